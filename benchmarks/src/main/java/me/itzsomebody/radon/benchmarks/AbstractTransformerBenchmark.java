@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import me.itzsomebody.radon.internal.Bootstrap;
+import me.itzsomebody.radon.transformers.AbstractTransformer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the helpers every transformer calls for every class and method:
+ * {@code exempted} and {@code methodSize}. One operation goes over every
+ * class and method of the sample input once.
+ *
+ * @author ItzSomebody
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbstractTransformerBenchmark {
+    /**
+     * Number of exempts in the config.
+     */
+    @Param({"0", "10", "100"})
+    public int exempts;
+
+    /**
+     * Transformer exposing the helpers.
+     */
+    private Probe probe;
+
+    /**
+     * Names of every class and method of the sample input, as transformers
+     * check them against the exempts.
+     */
+    private String[] members;
+
+    /**
+     * Every method of the sample input.
+     */
+    private MethodNode[] methods;
+
+    /**
+     * Reads the sample input and generates the exempts.
+     */
+    @Setup
+    public void setup() {
+        List<String> members = new ArrayList<>();
+        List<MethodNode> methods = new ArrayList<>();
+        for (ClassNode classNode : Samples.readClasses(Samples.input(), ClassReader.SKIP_FRAMES)) {
+            members.add(classNode.name);
+            for (MethodNode methodNode : classNode.methods) {
+                members.add(classNode.name + '.' + methodNode.name + methodNode.desc);
+                methods.add(methodNode);
+            }
+        }
+        this.members = members.toArray(new String[0]);
+        this.methods = methods.toArray(new MethodNode[0]);
+
+        // Mix of exempt types and wildcards like configs use them, mostly not matching
+        String[] types = {"Class", "Method", "Flow", "StringEncryption", "InvokeDynamic", "Renamer"};
+        Random random = new Random(0);
+        List<String> exempts = new ArrayList<>();
+        for (int i = 0; i < this.exempts; i++) {
+            String member = this.members[random.nextInt(this.members.length)];
+            String type = types[i % types.length];
+            if (i % 3 == 0) {
+                exempts.add(type + ": " + member.substring(0, member.lastIndexOf('/') + 1) + "Missing*");
+            } else if (i % 3 == 1) {
+                exempts.add(type + ": " + member + "Missing");
+            } else {
+                exempts.add(type + ": " + member);
+            }
+        }
+
+        this.probe = new Probe();
+        this.probe.init(new Bootstrap(new File("in.jar"), new File("out.jar"), new HashMap<>(),
+                new ArrayList<>(), new ArrayList<>(), -1, null, 0, null, 0), exempts, 0);
+    }
+
+    /**
+     * Checks every class and method against the exempts.
+     *
+     * @return the number of exempted members.
+     */
+    @Benchmark
+    public int exempted() {
+        int exempted = 0;
+        for (String member : this.members) {
+            if (this.probe.isExempted(member, "Flow")) {
+                exempted++;
+            }
+        }
+        return exempted;
+    }
+
+    /**
+     * Computes the size of every method.
+     *
+     * @return the total size of the methods.
+     */
+    @Benchmark
+    public int methodSize() {
+        int size = 0;
+        for (MethodNode methodNode : this.methods) {
+            size += this.probe.sizeOf(methodNode);
+        }
+        return size;
+    }
+
+    /**
+     * Transformer which only exposes the helpers of
+     * {@link AbstractTransformer}.
+     */
+    private static class Probe extends AbstractTransformer {
+        /**
+         * Calls {@link AbstractTransformer#exempted(String, String)}.
+         *
+         * @param checkThis string to check for exempt.
+         * @param exemptId  per-transformer exempt identifier.
+         * @return true if member is exempted from obfuscation.
+         */
+        private boolean isExempted(String checkThis, String exemptId) {
+            return this.exempted(checkThis, exemptId);
+        }
+
+        /**
+         * Calls {@link AbstractTransformer#methodSize(MethodNode)}.
+         *
+         * @param methodNode the method to evaluate the size of.
+         * @return the size of the method.
+         */
+        private int sizeOf(MethodNode methodNode) {
+            return this.methodSize(methodNode);
+        }
+
+        @Override
+        public void obfuscate() {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.itzsomebody.radon.classpath.ClassHierarchy;
+import me.itzsomebody.radon.classpath.LibraryStub;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the class hierarchy, the work of
+ * {@code Bootstrap.createTrees}, with every class of the runtime library
+ * as library classes instead of only the ones the input uses.
+ *
+ * @author ItzSomebody
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ClassHierarchyBenchmark {
+    /**
+     * Classes of the sample input.
+     */
+    private List<ClassNode> classNodes;
+
+    /**
+     * Every class of the runtime library.
+     */
+    private List<LibraryStub> stubs;
+
+    /**
+     * Reads the sample input and the runtime library.
+     */
+    @Setup
+    public void setup() {
+        this.classNodes = Samples.readClasses(Samples.input(), ClassReader.SKIP_CODE);
+        this.stubs = new ArrayList<>();
+        for (ClassNode classNode : Samples.readClasses(Samples.runtime(), ClassReader.SKIP_CODE)) {
+            this.stubs.add(LibraryStub.of(classNode));
+        }
+    }
+
+    /**
+     * Builds the hierarchy of the input and the runtime library.
+     *
+     * @return the built hierarchy.
+     */
+    @Benchmark
+    public ClassHierarchy build() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.build(this.classNodes, this.stubs);
+        return hierarchy;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import me.itzsomebody.radon.Radon;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Fixed inputs shared by the benchmarks.
+ * <p>
+ * The sample input is Radon itself together with ASM and SnakeYAML, taken
+ * from the benchmark jar, unless another jar is given with
+ * {@code -Dradon.benchmarks.input=<jar>}. The runtime library defaults to
+ * the rt.jar of the running JVM and can be changed with
+ * {@code -Dradon.benchmarks.runtime=<jar>}.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class Samples {
+    /**
+     * Packages copied from the benchmark jar into the sample input.
+     */
+    private static final String[] SAMPLE_PACKAGES = {
+            "me/itzsomebody/radon/",
+            "org/objectweb/asm/",
+            "org/yaml/snakeyaml/"
+    };
+
+    /**
+     * The sample input, created on first use.
+     */
+    private static File input;
+
+    /**
+     * Returns the sample input jar.
+     *
+     * @return the sample input jar.
+     * @throws RuntimeException if the sample input cannot be created.
+     */
+    public static synchronized File input() throws RuntimeException {
+        if (input == null) {
+            String path = System.getProperty("radon.benchmarks.input");
+            input = (path != null) ? existing(path) : extractSample();
+        }
+        return input;
+    }
+
+    /**
+     * Returns the runtime library jar.
+     *
+     * @return the runtime library jar.
+     * @throws RuntimeException if the runtime library doesn't exist.
+     */
+    public static File runtime() throws RuntimeException {
+        String path = System.getProperty("radon.benchmarks.runtime");
+        if (path == null) {
+            path = System.getProperty("java.home") + File.separator + "lib" + File.separator + "rt.jar";
+        }
+        return existing(path);
+    }
+
+    /**
+     * Reads every class of the given jar.
+     *
+     * @param jar   the jar to read.
+     * @param flags the {@link ClassReader} parsing flags.
+     * @return the classes of the jar in entry order.
+     * @throws RuntimeException if the jar cannot be read.
+     */
+    public static List<ClassNode> readClasses(File jar, int flags) throws RuntimeException {
+        List<ClassNode> classNodes = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (!entry.getName().endsWith(".class"))
+                    continue;
+
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    ClassNode classNode = new ClassNode();
+                    new ClassReader(in).accept(classNode, flags);
+                    classNodes.add(classNode);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("Error while reading " + jar.getAbsolutePath() + ": " + ioe.getMessage());
+        }
+        return classNodes;
+    }
+
+    /**
+     * Writes a config which obfuscates the sample input with the given
+     * options into a {@link String}.
+     *
+     * @param output  the output jar.
+     * @param threads number of worker threads.
+     * @param options config lines of the transformers to run.
+     * @return the config.
+     */
+    public static String config(File output, int threads, String... options) {
+        return config(input(), output, threads, options);
+    }
+
+    /**
+     * Writes a config which obfuscates the given input with the given
+     * options into a {@link String}.
+     *
+     * @param input   the input jar.
+     * @param output  the output jar.
+     * @param threads number of worker threads.
+     * @param options config lines of the transformers to run.
+     * @return the config.
+     */
+    public static String config(File input, File output, int threads, String... options) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Input: \"").append(input.getAbsolutePath()).append("\"\n");
+        sb.append("Output: \"").append(output.getAbsolutePath()).append("\"\n");
+        sb.append("Libraries:\n");
+        sb.append("    - \"").append(runtime().getAbsolutePath()).append("\"\n");
+        sb.append("Threads: ").append(threads).append('\n');
+        sb.append("Seed: 1\n");
+        sb.append("LogLevel: WARN\n");
+        for (String option : options) {
+            sb.append(option).append('\n');
+        }
+        return sb.toString().replace('\\', '/');
+    }
+
+    /**
+     * Copies the sample packages out of the jar the benchmarks run from.
+     *
+     * @return the created sample jar.
+     * @throws RuntimeException if the benchmarks don't run from a jar or the
+     *                          sample cannot be written.
+     */
+    private static File extractSample() throws RuntimeException {
+        File source;
+        try {
+            source = new File(Radon.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException use) {
+            throw new RuntimeException(use.getMessage());
+        }
+        if (!source.isFile())
+            throw new RuntimeException("Benchmarks aren't run from a jar, set -Dradon.benchmarks.input");
+
+        try {
+            File sample = File.createTempFile("radon-sample", ".jar");
+            sample.deleteOnExit();
+            byte[] buffer = new byte[8192];
+            try (JarFile jarFile = new JarFile(source);
+                 JarOutputStream out = new JarOutputStream(new FileOutputStream(sample))) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (entry.isDirectory() || !isSample(entry.getName()))
+                        continue;
+
+                    out.putNextEntry(new JarEntry(entry.getName()));
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                    out.closeEntry();
+                }
+            }
+            return sample;
+        } catch (IOException ioe) {
+            throw new RuntimeException("Error while creating the sample input: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if the given entry belongs into the sample input. The
+     * benchmarks themselves and the code JMH generated for them are left
+     * out.
+     *
+     * @param name the name of the entry.
+     * @return true if the entry belongs into the sample input.
+     */
+    private static boolean isSample(String name) {
+        if (name.contains("/benchmarks/") || name.contains("/generated/") || name.contains("Benchmark"))
+            return false;
+
+        for (String pkg : SAMPLE_PACKAGES) {
+            if (name.startsWith(pkg))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the given file, failing if it doesn't exist.
+     *
+     * @param path the path of the file.
+     * @return the file.
+     * @throws RuntimeException if the file doesn't exist.
+     */
+    private static File existing(String path) throws RuntimeException {
+        File file = new File(path);
+        if (!file.isFile())
+            throw new RuntimeException(file.getAbsolutePath() + " does not exist");
+        return file;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.itzsomebody.radon.analyzer.StackAnalyzer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link StackAnalyzer#returnStackAtBreak()} on the longest methods
+ * of the sample input, once with the break at the end of every method and
+ * once with a break at every instruction of the longest method as the flow
+ * obfuscation does it.
+ *
+ * @author ItzSomebody
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackAnalyzerBenchmark {
+    /**
+     * Number of longest methods analyzed.
+     */
+    @Param({"16"})
+    public int methodCount;
+
+    /**
+     * The longest methods of the sample input, longest first.
+     */
+    private MethodNode[] methods;
+
+    /**
+     * Picks the longest methods of the sample input.
+     */
+    @Setup
+    public void setup() {
+        List<MethodNode> methods = new ArrayList<>();
+        for (ClassNode classNode : Samples.readClasses(Samples.input(), ClassReader.SKIP_FRAMES)) {
+            methods.addAll(classNode.methods);
+        }
+        methods.sort(Comparator.comparingInt((MethodNode methodNode) -> methodNode.instructions.size())
+                .reversed());
+        this.methods = methods.subList(0, Math.min(this.methodCount, methods.size())).toArray(new MethodNode[0]);
+    }
+
+    /**
+     * Analyzes every picked method up to its last instruction.
+     *
+     * @param blackhole consumes the simulated stacks.
+     */
+    @Benchmark
+    public void atEnd(Blackhole blackhole) {
+        for (MethodNode methodNode : this.methods) {
+            blackhole.consume(new StackAnalyzer(methodNode, methodNode.instructions.getLast())
+                    .returnStackAtBreak());
+        }
+    }
+
+    /**
+     * Analyzes the longest method up to each of its instructions.
+     *
+     * @param blackhole consumes the simulated stacks.
+     */
+    @Benchmark
+    public void everyInstruction(Blackhole blackhole) {
+        MethodNode methodNode = this.methods[0];
+        for (AbstractInsnNode insn = methodNode.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            blackhole.consume(new StackAnalyzer(methodNode, insn).returnStackAtBreak());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Fixture which invokes static and virtual methods and accesses static and
+ * instance fields, invokedynamic obfuscation hides each of them behind a
+ * bootstrap method.
+ *
+ * @author ItzSomebody
+ */
+public class CallsFixture implements IntUnaryOperator {
+    /**
+     * Number of calls so far.
+     */
+    static int calls;
+
+    /**
+     * Sum of the operands so far.
+     */
+    int total;
+
+    @Override
+    public int applyAsInt(int operand) {
+        calls++;
+        this.total += twice(operand);
+        return this.value() + Math.abs(operand) + calls;
+    }
+
+    /**
+     * Static call target.
+     *
+     * @param value the value to double.
+     * @return the doubled value.
+     */
+    static int twice(int value) {
+        return value << 1;
+    }
+
+    /**
+     * Virtual call target.
+     *
+     * @return the sum of the operands so far.
+     */
+    int value() {
+        return this.total;
+    }
+}
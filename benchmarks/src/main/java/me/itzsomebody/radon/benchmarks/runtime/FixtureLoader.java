@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.util.Map;
+
+/**
+ * Loads the obfuscated fixture classes in isolation. Classes of the fixture
+ * are defined by this loader even if the benchmark classpath has a class of
+ * the same name, everything else is delegated to the parent.
+ *
+ * @author ItzSomebody
+ */
+class FixtureLoader extends ClassLoader {
+    /**
+     * Binary class name -> bytes of the obfuscated classes.
+     */
+    private Map<String, byte[]> classes;
+
+    /**
+     * Creates a new {@link FixtureLoader}.
+     *
+     * @param classes binary class name -> bytes of the obfuscated classes.
+     */
+    FixtureLoader(Map<String, byte[]> classes) {
+        super(FixtureLoader.class.getClassLoader());
+        this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (this.getClassLoadingLock(name)) {
+            Class<?> clazz = this.findLoadedClass(name);
+            if (clazz == null) {
+                byte[] bytes = this.classes.get(name);
+                clazz = (bytes != null) ? this.defineClass(name, bytes, 0, bytes.length)
+                        : super.loadClass(name, false);
+            }
+            if (resolve) {
+                this.resolveClass(clazz);
+            }
+            return clazz;
+        }
+    }
+}
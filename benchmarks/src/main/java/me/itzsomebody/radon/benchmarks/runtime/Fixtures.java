@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import me.itzsomebody.radon.benchmarks.Samples;
+import me.itzsomebody.radon.internal.Runs;
+
+/**
+ * Obfuscates fixtures and loads the results.
+ *
+ * @author ItzSomebody
+ */
+class Fixtures {
+    /**
+     * Option which leaves the fixture unobfuscated, the baseline.
+     */
+    static final String NONE = "None";
+
+    /**
+     * Obfuscates a fixture class on its own with the given option. The
+     * baseline still goes through Radon so every variant is written the
+     * same way.
+     *
+     * @param fixture the fixture class.
+     * @param option  config line of the transformer or {@link Fixtures#NONE}.
+     * @return binary class name -> bytes of every class of the output.
+     * @throws RuntimeException if the fixture cannot be obfuscated.
+     */
+    static Map<String, byte[]> obfuscate(Class<?> fixture, String option) throws RuntimeException {
+        try {
+            File input = File.createTempFile("radon-fixture", ".jar");
+            File output = File.createTempFile("radon-fixture", ".jar");
+            File log = File.createTempFile("radon-fixture", ".log");
+            try {
+                String entry = fixture.getName().replace('.', '/') + ".class";
+                try (JarOutputStream out = new JarOutputStream(new FileOutputStream(input));
+                     InputStream in = fixture.getClassLoader().getResourceAsStream(entry)) {
+                    out.putNextEntry(new JarEntry(entry));
+                    out.write(readFully(in));
+                    out.closeEntry();
+                }
+                output.delete();
+
+                String config = NONE.equals(option) ? Samples.config(input, output, 1)
+                        : Samples.config(input, output, 1, option);
+                Runs.obfuscate(config, log);
+
+                Map<String, byte[]> classes = new HashMap<>();
+                try (JarFile jarFile = new JarFile(output)) {
+                    Enumeration<JarEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        JarEntry jarEntry = entries.nextElement();
+                        String name = jarEntry.getName();
+                        if (!name.endsWith(".class"))
+                            continue;
+
+                        try (InputStream in = jarFile.getInputStream(jarEntry)) {
+                            classes.put(name.substring(0, name.length() - 6).replace('/', '.'), readFully(in));
+                        }
+                    }
+                }
+                return classes;
+            } finally {
+                input.delete();
+                output.delete();
+                log.delete();
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("Error while obfuscating " + fixture.getName() + ": " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Loads the given classes in a new {@link FixtureLoader} and creates an
+     * instance of the fixture, which initializes it.
+     *
+     * @param classes binary class name -> bytes of the obfuscated classes.
+     * @param fixture binary name of the fixture class.
+     * @return the new fixture.
+     * @throws RuntimeException if the fixture cannot be loaded.
+     */
+    static IntUnaryOperator instantiate(Map<String, byte[]> classes, String fixture) throws RuntimeException {
+        try {
+            return (IntUnaryOperator) new FixtureLoader(classes).loadClass(fixture).newInstance();
+        } catch (ReflectiveOperationException roe) {
+            throw new RuntimeException("Error while loading " + fixture + ": " + roe);
+        }
+    }
+
+    /**
+     * Reads a stream to its end.
+     *
+     * @param in the stream.
+     * @return the read bytes.
+     * @throws IOException if the stream cannot be read.
+     */
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.util.function.IntUnaryOperator;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures the runtime cost of each flow obfuscation setting on a loop.
+ *
+ * @author ItzSomebody
+ */
+public class FlowBenchmark extends RuntimeBenchmark {
+    /**
+     * Config line of the transformer under test.
+     */
+    @Param({
+            "None",
+            "FlowObfuscation: Light",
+            "FlowObfuscation: Normal",
+            "FlowObfuscation: Heavy"
+    })
+    public String option;
+
+    @Override
+    protected Class<? extends IntUnaryOperator> fixtureClass() {
+        return LoopFixture.class;
+    }
+
+    @Override
+    protected String option() {
+        return this.option;
+    }
+
+    @Override
+    protected int operand() {
+        return 100;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Fixture which runs a loop with a branch in its body, flow obfuscation adds
+ * opaque jumps around both.
+ *
+ * @author ItzSomebody
+ */
+public class LoopFixture implements IntUnaryOperator {
+    @Override
+    public int applyAsInt(int operand) {
+        int sum = 0;
+        for (int i = 0; i < operand; i++) {
+            if ((i & 1) == 0) {
+                sum += i;
+            } else {
+                sum -= i >> 1;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what obfuscation costs at runtime. A fixture is obfuscated on its
+ * own with the option under test, loaded in an isolated class loader and
+ * called:
+ * <ul>
+ * <li>{@code steadyState}: throughput of a warmed up instance on one
+ * thread.</li>
+ * <li>{@code contended}: the same with four threads calling one shared
+ * instance.</li>
+ * <li>{@code firstCall}: time to load, initialize and call the fixture in a
+ * fresh class loader, which includes linking bootstrap methods and
+ * initializing decryptors.</li>
+ * </ul>
+ * Every subclass has the option "None" as the unobfuscated baseline. Run
+ * with {@code -prof gc} to get the allocation rate of each variant.
+ *
+ * @author ItzSomebody
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class RuntimeBenchmark {
+    /**
+     * Binary class name -> bytes of the obfuscated fixture.
+     */
+    private Map<String, byte[]> classes;
+
+    /**
+     * Warmed up instance of the obfuscated fixture.
+     */
+    private IntUnaryOperator fixture;
+
+    /**
+     * Operand passed to the fixture, a field so it isn't constant folded.
+     */
+    private int operand;
+
+    /**
+     * Returns the fixture class to obfuscate.
+     *
+     * @return the fixture class.
+     */
+    protected abstract Class<? extends IntUnaryOperator> fixtureClass();
+
+    /**
+     * Returns the config line of the transformer under test.
+     *
+     * @return the config line of the transformer or "None".
+     */
+    protected abstract String option();
+
+    /**
+     * Returns the operand passed to the fixture.
+     *
+     * @return the operand passed to the fixture.
+     */
+    protected int operand() {
+        return 7;
+    }
+
+    /**
+     * Obfuscates and loads the fixture.
+     */
+    @Setup
+    public void setup() {
+        this.classes = Fixtures.obfuscate(this.fixtureClass(), this.option());
+        this.fixture = Fixtures.instantiate(this.classes, this.fixtureClass().getName());
+        this.operand = this.operand();
+    }
+
+    /**
+     * Calls the warmed up fixture.
+     *
+     * @return the result of the fixture.
+     */
+    @Benchmark
+    public int steadyState() {
+        return this.fixture.applyAsInt(this.operand);
+    }
+
+    /**
+     * Calls the warmed up fixture from four threads at once.
+     *
+     * @return the result of the fixture.
+     */
+    @Benchmark
+    @Threads(4)
+    public int contended() {
+        return this.fixture.applyAsInt(this.operand);
+    }
+
+    /**
+     * Loads, initializes and calls the fixture in a fresh class loader.
+     *
+     * @return the result of the fixture.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 200)
+    public int firstCall() {
+        return Fixtures.instantiate(this.classes, this.fixtureClass().getName()).applyAsInt(this.operand);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.util.function.IntUnaryOperator;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures the runtime cost of the string decryptors of each string encryption setting.
+ *
+ * @author ItzSomebody
+ */
+public class StringDecryptionBenchmark extends RuntimeBenchmark {
+    /**
+     * Config line of the transformer under test.
+     */
+    @Param({
+            "None",
+            "StringEncryption: SuperLight",
+            "StringEncryption: Light",
+            "StringEncryption: Normal",
+            "StringEncryption: Heavy"
+    })
+    public String option;
+
+    @Override
+    protected Class<? extends IntUnaryOperator> fixtureClass() {
+        return StringsFixture.class;
+    }
+
+    @Override
+    protected String option() {
+        return this.option;
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.benchmarks.runtime;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Fixture which loads string constants, string encryption puts a call to
+ * the decryptor behind every one of them.
+ *
+ * @author ItzSomebody
+ */
+public class StringsFixture implements IntUnaryOperator {
+    @Override
+    public int applyAsInt(int operand) {
+        return "alpha".length() + "bravo charlie".length() + "delta echo foxtrot".length()
+                + "golf hotel india juliett kilo".hashCode() + operand;
+    }
+}
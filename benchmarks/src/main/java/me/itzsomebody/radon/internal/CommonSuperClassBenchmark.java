@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import me.itzsomebody.radon.benchmarks.Samples;
+import me.itzsomebody.radon.config.Config;
+import org.objectweb.asm.ClassWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code CustomClassWriter.getCommonSuperClass} over random pairs
+ * of input classes, with and without the cache of common super classes.
+ * One operation resolves every pair once.
+ *
+ * @author ItzSomebody
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonSuperClassBenchmark {
+    /**
+     * Number of class pairs.
+     */
+    private static final int PAIRS = 1024;
+
+    /**
+     * The prepared run.
+     */
+    private Bootstrap bootstrap;
+
+    /**
+     * Writer of the prepared run.
+     */
+    private Bootstrap.CustomClassWriter writer;
+
+    /**
+     * Pairs of class names, two entries per pair.
+     */
+    private String[] pairs;
+
+    /**
+     * Loads the sample input and picks the pairs.
+     *
+     * @throws IOException if no temporary output can be created.
+     */
+    @Setup
+    public void setup() throws IOException {
+        File output = File.createTempFile("radon-benchmark", ".jar");
+        output.delete();
+        this.bootstrap = new Bootstrap(new Config(new ByteArrayInputStream(
+                Samples.config(output, 1).getBytes(StandardCharsets.UTF_8))));
+        this.bootstrap.prepare();
+        this.bootstrap.createTrees();
+        this.writer = this.bootstrap.new CustomClassWriter(ClassWriter.COMPUTE_FRAMES);
+
+        // Keep only pairs whose whole ancestry resolves
+        List<String> names = new ArrayList<>(this.bootstrap.getClasses().keySet());
+        names.sort(null);
+        Random random = new Random(0);
+        List<String> pairs = new ArrayList<>();
+        for (int attempt = 0; pairs.size() < PAIRS * 2 && attempt < PAIRS * 16; attempt++) {
+            String type1 = names.get(random.nextInt(names.size()));
+            String type2 = names.get(random.nextInt(names.size()));
+            try {
+                this.writer.computeCommonSuperClass(type1, type2);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            pairs.add(type1);
+            pairs.add(type2);
+        }
+        this.pairs = pairs.toArray(new String[0]);
+    }
+
+    /**
+     * Closes the prepared run.
+     */
+    @TearDown
+    public void tearDown() {
+        this.bootstrap.release();
+    }
+
+    /**
+     * Resolves every pair through the cache.
+     *
+     * @return the combined hash of the common super classes.
+     */
+    @Benchmark
+    public int cached() {
+        int hash = 0;
+        for (int i = 0; i < this.pairs.length; i += 2) {
+            hash += this.writer.getCommonSuperClass(this.pairs[i], this.pairs[i + 1]).hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Resolves every pair without looking at the cache first.
+     *
+     * @return the combined hash of the common super classes.
+     */
+    @Benchmark
+    public int uncached() {
+        int hash = 0;
+        for (int i = 0; i < this.pairs.length; i += 2) {
+            hash += this.writer.computeCommonSuperClass(this.pairs[i], this.pairs[i + 1]).hashCode();
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import me.itzsomebody.radon.config.Config;
+
+/**
+ * Gives the benchmarks outside of this package access to complete runs.
+ *
+ * @author ItzSomebody
+ */
+public class Runs {
+    /**
+     * Obfuscates with the given config.
+     *
+     * @param config the config.
+     * @param log    the file to write the log to.
+     * @throws RuntimeException if the run fails.
+     */
+    public static void obfuscate(String config, File log) throws RuntimeException {
+        try {
+            new Bootstrap(new Config(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8))), null, log)
+                    .startTheParty(true);
+        } catch (Throwable t) {
+            throw new RuntimeException(t.getMessage());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import me.itzsomebody.radon.benchmarks.Samples;
+import me.itzsomebody.radon.classpath.LibraryClassPath;
+import me.itzsomebody.radon.config.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@code obfuscate()} of each transformer over the sample
+ * input. Every invocation gets a freshly loaded input with its class
+ * hierarchy already built, loading isn't measured. The runs are seeded so
+ * every invocation does the same work.
+ *
+ * @author ItzSomebody
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransformerBenchmark {
+    /**
+     * Config line of the transformer to run.
+     */
+    @Param({
+            "StringEncryption: SuperLight",
+            "StringEncryption: Light",
+            "StringEncryption: Normal",
+            "StringEncryption: Heavy",
+            "InvokeDynamic: Light",
+            "InvokeDynamic: Normal",
+            "InvokeDynamic: Heavy",
+            "FlowObfuscation: Light",
+            "FlowObfuscation: Normal",
+            "FlowObfuscation: Heavy",
+            "LocalVariableObfuscation: Obfuscate",
+            "LineNumberObfuscation: Obfuscate",
+            "SourceNameObfuscation: Obfuscate",
+            "SourceDebugObfuscation: Obfuscate",
+            "NumberObfuscation: True",
+            "StringPool: True",
+            "Shuffler: True",
+            "Crasher: True",
+            "HideCode: True",
+            "InnerClassRemover: True",
+            "Renamer: True"
+    })
+    public String transformer;
+
+    /**
+     * Number of worker threads.
+     */
+    @Param({"1"})
+    public int threads;
+
+    /**
+     * The config of the run.
+     */
+    private byte[] config;
+
+    /**
+     * Runtime library shared by every invocation.
+     */
+    private LibraryClassPath libraries;
+
+    /**
+     * Log of the runs.
+     */
+    private File log;
+
+    /**
+     * The run of the current invocation.
+     */
+    private Bootstrap bootstrap;
+
+    /**
+     * Writes the config and opens the runtime library.
+     *
+     * @throws IOException if no temporary files can be created.
+     */
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        File output = File.createTempFile("radon-benchmark", ".jar");
+        output.delete();
+        this.log = File.createTempFile("radon-benchmark", ".log");
+        this.log.deleteOnExit();
+        this.config = Samples.config(output, this.threads, this.transformer).getBytes(StandardCharsets.UTF_8);
+        this.libraries = new LibraryClassPath(Collections.singletonList(Samples.runtime()));
+    }
+
+    /**
+     * Loads the input for the next invocation.
+     */
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        this.bootstrap = new Bootstrap(new Config(new ByteArrayInputStream(this.config)), this.libraries, this.log);
+        this.bootstrap.prepare();
+        this.bootstrap.createTrees();
+    }
+
+    /**
+     * Closes the run of the last invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        this.bootstrap.release();
+        this.bootstrap = null;
+    }
+
+    /**
+     * Closes the runtime library.
+     */
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        this.libraries.close();
+    }
+
+    /**
+     * Runs the transformer.
+     *
+     * @return the transformed run.
+     */
+    @Benchmark
+    public Bootstrap obfuscate() {
+        this.bootstrap.runTransformers();
+        return this.bootstrap;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.classpath;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import me.itzsomebody.radon.transformers.renamer.ClassTree;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Class hierarchy shared by the obfuscator and every transformer.
+ * <p>
+ * Subclass edges are found by inverting the super name and interfaces of
+ * every input class once, so building the hierarchy is linear in the number
+ * of classes. Only input classes are recorded as subclasses. Classes can be
+ * removed and added afterwards, which keeps the hierarchy up to date after
+ * renaming without building it again. Every change which can alter the
+ * relation between two classes increments the version of the hierarchy, so
+ * results derived from it can be cached until the next change.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class ClassHierarchy {
+    /**
+     * Class name -> {@link ClassTree}.
+     */
+    private Map<String, ClassTree> trees = new ConcurrentHashMap<>();
+
+    /**
+     * Class name -> names of the input classes which directly inherit it,
+     * including classes which aren't in {@link ClassHierarchy#trees} yet.
+     */
+    private Map<String, Set<String>> subClasses = new HashMap<>();
+
+    /**
+     * Incremented every time input classes are added or removed.
+     */
+    private volatile long version;
+
+    /**
+     * Adds the given library and input classes.
+     *
+     * @param classNodes the input classes.
+     * @param stubs      the library classes.
+     */
+    public synchronized void build(Collection<ClassNode> classNodes, Collection<LibraryStub> stubs) {
+        classNodes.forEach(classNode -> {
+            this.addEdge(classNode.superName, classNode.name);
+            classNode.interfaces.forEach(itf -> this.addEdge(itf, classNode.name));
+        });
+        stubs.forEach(stub -> this.trees.put(stub.getName(), this.createTree(stub)));
+        classNodes.forEach(classNode -> this.trees.put(classNode.name, this.createTree(classNode)));
+        this.version++;
+    }
+
+    /**
+     * Returns the version of the hierarchy. Adding library classes doesn't
+     * change the version since it doesn't change how classes relate.
+     *
+     * @return the version of the hierarchy.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the {@link ClassTree} of the class with the given name.
+     *
+     * @param name the name of the class.
+     * @return the {@link ClassTree} or null if the class isn't in the
+     * hierarchy.
+     */
+    public ClassTree get(String name) {
+        return this.trees.get(name);
+    }
+
+    /**
+     * Returns true if the class with the given name is in the hierarchy.
+     *
+     * @param name the name of the class.
+     * @return true if the class with the given name is in the hierarchy.
+     */
+    public boolean contains(String name) {
+        return this.trees.containsKey(name);
+    }
+
+    /**
+     * Returns the names of the input classes which directly inherit the
+     * class with the given name.
+     *
+     * @param name the name of the class.
+     * @return unmodifiable set of the direct subclasses.
+     */
+    public synchronized Set<String> getSubClasses(String name) {
+        Set<String> children = this.subClasses.get(name);
+        return (children == null) ? Collections.emptySet()
+                : Collections.unmodifiableSet(new HashSet<>(children));
+    }
+
+    /**
+     * Returns every {@link ClassTree} in the hierarchy.
+     *
+     * @return every {@link ClassTree} in the hierarchy.
+     */
+    public Collection<ClassTree> trees() {
+        return this.trees.values();
+    }
+
+    /**
+     * Returns the number of classes in the hierarchy.
+     *
+     * @return the number of classes in the hierarchy.
+     */
+    public int size() {
+        return this.trees.size();
+    }
+
+    /**
+     * Adds an input class to the hierarchy, replacing a class with the same
+     * name.
+     *
+     * @param classNode the input class.
+     * @return the {@link ClassTree} of the class.
+     */
+    public synchronized ClassTree add(ClassNode classNode) {
+        if (this.trees.containsKey(classNode.name)) {
+            this.remove(classNode.name);
+        }
+        this.addEdge(classNode.superName, classNode.name);
+        classNode.interfaces.forEach(itf -> this.addEdge(itf, classNode.name));
+
+        ClassTree classTree = this.createTree(classNode);
+        this.trees.put(classNode.name, classTree);
+        this.version++;
+        return classTree;
+    }
+
+    /**
+     * Adds a library class to the hierarchy if it isn't in it yet.
+     *
+     * @param stub the library class.
+     * @return the {@link ClassTree} of the class.
+     */
+    public synchronized ClassTree add(LibraryStub stub) {
+        return this.trees.computeIfAbsent(stub.getName(), name -> this.createTree(stub));
+    }
+
+    /**
+     * Adds every given input class which isn't in the hierarchy yet.
+     *
+     * @param classNodes the input classes.
+     */
+    public synchronized void addMissing(Collection<ClassNode> classNodes) {
+        classNodes.stream().filter(classNode -> !this.trees.containsKey(classNode.name))
+                .forEach(this::add);
+    }
+
+    /**
+     * Removes a class from the hierarchy.
+     *
+     * @param name the name of the class.
+     */
+    public synchronized void remove(String name) {
+        ClassTree classTree = this.trees.remove(name);
+        if (classTree == null || classTree.libraryNode)
+            return;
+
+        this.version++;
+        for (String parent : classTree.parentClasses) {
+            if (parent == null)
+                continue;
+
+            Set<String> children = this.subClasses.get(parent);
+            if (children != null) {
+                children.remove(name);
+                if (children.isEmpty()) {
+                    this.subClasses.remove(parent);
+                }
+            }
+            ClassTree parentTree = this.trees.get(parent);
+            if (parentTree != null) {
+                parentTree.subClasses.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Replaces input classes, such as after they were renamed. All old
+     * classes are removed before the new ones are added.
+     *
+     * @param oldClasses the classes to remove.
+     * @param newClasses the classes to add.
+     */
+    public synchronized void replace(Collection<ClassNode> oldClasses, Collection<ClassNode> newClasses) {
+        oldClasses.forEach(classNode -> this.remove(classNode.name));
+        newClasses.forEach(this::add);
+    }
+
+    /**
+     * Records that the child inherits the parent and adds the child to the
+     * {@link ClassTree} of the parent if there is one.
+     *
+     * @param parent the name of the parent, may be null.
+     * @param child  the name of the child.
+     */
+    private void addEdge(String parent, String child) {
+        if (parent == null)
+            return;
+
+        this.subClasses.computeIfAbsent(parent, key -> new HashSet<>()).add(child);
+        ClassTree parentTree = this.trees.get(parent);
+        if (parentTree != null) {
+            parentTree.subClasses.add(child);
+        }
+    }
+
+    /**
+     * Creates the {@link ClassTree} of an input class and sets the owner of
+     * its members.
+     *
+     * @param classNode the input class.
+     * @return the created {@link ClassTree}.
+     */
+    private ClassTree createTree(ClassNode classNode) {
+        classNode.methods.forEach(methodNode ->
+            methodNode.owner = classNode.name
+        );
+        classNode.fields.forEach(fieldNode ->
+            fieldNode.owner = classNode.name
+        );
+        ClassTree classTree = new ClassTree(classNode.name, classNode.libraryNode);
+        classTree.classNode = classNode;
+        classTree.parentClasses.add(classNode.superName);
+        classTree.parentClasses.addAll(classNode.interfaces);
+        classTree.subClasses.addAll(this.subClasses.getOrDefault(classNode.name, Collections.emptySet()));
+        classTree.methods.addAll(classNode.methods);
+        classTree.fields.addAll(classNode.fields);
+        return classTree;
+    }
+
+    /**
+     * Creates the {@link ClassTree} of a library class.
+     *
+     * @param stub the library class.
+     * @return the created {@link ClassTree}.
+     */
+    private ClassTree createTree(LibraryStub stub) {
+        ClassTree classTree = new ClassTree(stub);
+        classTree.subClasses.addAll(this.subClasses.getOrDefault(stub.getName(), Collections.emptySet()));
+        return classTree;
+    }
+}
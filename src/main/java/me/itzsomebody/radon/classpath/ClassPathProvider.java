@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.classpath;
+
+/**
+ * Source of library classes. Classes are looked up by name when the input
+ * depends on them, so a provider never has to list what it contains.
+ *
+ * @author ItzSomebody
+ */
+public interface ClassPathProvider {
+    /**
+     * Returns the {@link LibraryStub} of the library class with the given
+     * name.
+     *
+     * @param name internal name of the class.
+     * @return the {@link LibraryStub} or null if the class isn't provided.
+     * @throws RuntimeException if the class cannot be read.
+     */
+    LibraryStub resolve(String name) throws RuntimeException;
+}
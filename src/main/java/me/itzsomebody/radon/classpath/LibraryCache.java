@@ -0,0 +1,576 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.classpath;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import me.itzsomebody.radon.io.JarReader;
+import me.itzsomebody.radon.utils.FileUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Persistent on-disk cache of library class metadata.
+ * <p>
+ * Every library gets one compact binary index in the cache directory which
+ * stores the name, super name, interfaces, access flags and member
+ * names/descriptors of each of its classes. An index is keyed by the path,
+ * size, modification time and content hash of the library (the hash is
+ * taken over the central directory, which contains the CRC of every entry),
+ * and is rebuilt automatically as soon as any of them changes.
+ * </p>
+ * <p>
+ * Indexes are written to a temporary file of their own and atomically moved
+ * in place, so several processes can share a cache directory.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class LibraryCache {
+    /**
+     * Magic number and version of the index format.
+     */
+    private static final int MAGIC = 0x52444E43; // RDNC
+    private static final int VERSION = 1;
+
+    /**
+     * Directory the indexes are stored in.
+     */
+    private File directory;
+
+    /**
+     * Creates a new {@link LibraryCache}.
+     *
+     * @param directory directory the indexes are stored in.
+     */
+    public LibraryCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the index of the given library. If there is no index yet or
+     * the existing one is stale, every class of the library is parsed on the
+     * pool and a new index is written.
+     *
+     * @param jar  the opened library.
+     * @param pool pool the classes are parsed on if a new index is needed.
+     * @return the index of the given library, which must be closed once
+     * it is not needed anymore.
+     * @throws RuntimeException if the library cannot be parsed.
+     */
+    public CachedLibrary open(JarReader jar, ForkJoinPool pool) throws RuntimeException {
+        File lib = jar.getFile();
+        byte[] hash;
+        try {
+            hash = contentHash(jar);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not read library " + lib.getAbsolutePath()
+                    + " -> " + ioe.getMessage());
+        }
+        File indexFile = new File(this.directory, hex(sha1(lib.getAbsolutePath()
+                .getBytes(StandardCharsets.UTF_8))) + ".idx");
+
+        CachedLibrary cached = null;
+        if (indexFile.isFile()) {
+            try {
+                cached = CachedLibrary.map(indexFile);
+                if (!cached.matches(lib, hash)) {
+                    // Unmapped first, a mapped index can't be replaced on Windows
+                    cached.close();
+                    cached = null;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Corrupt or from an older version, just rebuild it
+                cached = null;
+            }
+        }
+        if (cached != null)
+            return cached;
+
+        try {
+            this.write(indexFile, jar, hash, pool);
+            return CachedLibrary.map(indexFile);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not write library cache "
+                    + indexFile.getAbsolutePath() + " -> " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Parses every class of the library and writes a new index. The index
+     * is written to a new temporary file first and then atomically moved in
+     * place.
+     *
+     * @param indexFile the index file to write.
+     * @param jar       the opened library.
+     * @param hash      content hash of the library.
+     * @param pool      pool the classes are parsed on.
+     * @throws IOException if the index cannot be written.
+     */
+    private void write(File indexFile, JarReader jar, byte[] hash, ForkJoinPool pool) throws IOException {
+        List<JarReader.Entry> entries = new ArrayList<>();
+        for (JarReader.Entry entry : jar.getEntries()) {
+            if (entry.getName().endsWith(".class") && !entry.isDirectory()
+                    && !entry.getName().startsWith("META-INF/")) {
+                entries.add(entry);
+            }
+        }
+
+        LibraryStub[] parsed = new LibraryStub[entries.size()];
+        try {
+            pool.submit(() -> IntStream.range(0, parsed.length).parallel().forEach(i -> {
+                try {
+                    ClassNode classNode = new ClassNode();
+                    new ClassReader(jar.read(entries.get(i))).accept(classNode,
+                            ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES | ClassReader.SKIP_CODE);
+                    parsed[i] = LibraryStub.of(classNode);
+                } catch (IOException ioe) {
+                    throw new RuntimeException("Error while reading " + entries.get(i).getName()
+                            + " -> " + ioe.getMessage());
+                }
+            })).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing " + jar.getFile().getAbsolutePath());
+        } catch (ExecutionException ee) {
+            throw new IOException(ee.getCause().getMessage());
+        }
+
+        // Strings are pooled so names and descriptors are only stored once
+        Map<String, Integer> pool0 = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int[] names = new int[parsed.length];
+        int[] offsets = new int[parsed.length];
+        for (int i = 0; i < parsed.length; i++) {
+            LibraryStub stub = parsed[i];
+            names[i] = intern(pool0, strings, stub.getName());
+            offsets[i] = records.size();
+            records.writeInt(stub.getAccess());
+            records.writeInt(intern(pool0, strings, stub.getSuperName()));
+            records.writeShort(stub.getInterfaces().size());
+            for (String itf : stub.getInterfaces()) {
+                records.writeInt(intern(pool0, strings, itf));
+            }
+            records.writeShort(stub.methodCount());
+            for (int j = 0; j < stub.methodCount(); j++) {
+                records.writeInt(stub.getMethodAccess(j));
+                records.writeInt(intern(pool0, strings, stub.getMethodName(j)));
+                records.writeInt(intern(pool0, strings, stub.getMethodDesc(j)));
+            }
+            records.writeShort(stub.fieldCount());
+            for (int j = 0; j < stub.fieldCount(); j++) {
+                records.writeInt(stub.getFieldAccess(j));
+                records.writeInt(intern(pool0, strings, stub.getFieldName(j)));
+                records.writeInt(intern(pool0, strings, stub.getFieldDesc(j)));
+            }
+        }
+        records.flush();
+
+        if (!this.directory.isDirectory() && !this.directory.mkdirs())
+            throw new IOException("Could not create " + this.directory.getAbsolutePath());
+        Path temp = Files.createTempFile(this.directory.toPath(), indexFile.getName() + ".", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            File lib = jar.getFile();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(lib.getAbsolutePath());
+            out.writeLong(lib.length());
+            out.writeLong(lib.lastModified());
+            out.write(hash);
+
+            // String table: offsets first so strings can be decoded lazily
+            ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+            DataOutputStream stringData = new DataOutputStream(stringBytes);
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                out.writeInt(stringData.size());
+                stringData.writeUTF(string);
+            }
+            stringData.flush();
+            out.writeInt(stringBytes.size());
+            stringBytes.writeTo(out);
+
+            // Class table: name and record offset of each class
+            out.writeInt(parsed.length);
+            for (int i = 0; i < parsed.length; i++) {
+                out.writeInt(names[i]);
+                out.writeInt(offsets[i]);
+            }
+            out.writeInt(recordBytes.size());
+            recordBytes.writeTo(out);
+            out.close();
+            Files.move(temp, indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the index of the string in the pool, adding it if needed.
+     * Null is stored as -1.
+     *
+     * @param indexes string -> index map.
+     * @param strings the pooled strings.
+     * @param string  the string to add.
+     * @return the index of the string in the pool.
+     */
+    private static int intern(Map<String, Integer> indexes, List<String> strings, String string) {
+        if (string == null)
+            return -1;
+        return indexes.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Returns the SHA-1 hash of the central directory of the library.
+     *
+     * @param jar the opened library.
+     * @return the content hash.
+     * @throws IOException if the library is closed.
+     */
+    private static byte[] contentHash(JarReader jar) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            jar.digestCentralDirectory(digest);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    /**
+     * Returns the SHA-1 hash of the given bytes.
+     *
+     * @param bytes the bytes to hash.
+     * @return the SHA-1 hash of the given bytes.
+     */
+    private static byte[] sha1(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(bytes);
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    /**
+     * Returns the given bytes as lowercase hexadecimal {@link String}.
+     *
+     * @param bytes the bytes to convert.
+     * @return the hexadecimal {@link String}.
+     */
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A memory-mapped library index. Closing it unmaps the index right away.
+     */
+    public static class CachedLibrary implements Closeable {
+        /**
+         * The mapped index, null once closed.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Keeps the index from being unmapped while it is read.
+         */
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Library key stored in the index.
+         */
+        private String path;
+        private long size;
+        private long lastModified;
+        private byte[] hash = new byte[20];
+
+        /**
+         * Offsets of the strings, relative to {@link CachedLibrary#stringsStart}.
+         */
+        private int[] stringOffsets;
+        private int stringsStart;
+
+        /**
+         * Decoded strings.
+         */
+        private String[] strings;
+
+        /**
+         * Class names (as string indexes) and record offsets, relative to
+         * {@link CachedLibrary#recordsStart}.
+         */
+        private int[] classNames;
+        private int[] recordOffsets;
+        private int recordsStart;
+
+        /**
+         * Maps an index file and reads its header and tables.
+         *
+         * @param indexFile the index file.
+         * @return the mapped index.
+         * @throws IOException if the index file cannot be read or is invalid.
+         */
+        private static CachedLibrary map(File indexFile) throws IOException {
+            CachedLibrary cached = new CachedLibrary();
+            try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r");
+                 FileChannel channel = raf.getChannel()) {
+                cached.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            try {
+                cached.readTables();
+            } catch (IOException | RuntimeException e) {
+                cached.close();
+                throw e;
+            }
+            return cached;
+        }
+
+        /**
+         * Reads the header and tables of the index.
+         *
+         * @throws IOException if the index is invalid.
+         */
+        private void readTables() throws IOException {
+            ByteBuffer buffer = this.buffer.duplicate();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                throw new IOException("Not a library index");
+            this.path = readUTF(buffer, buffer.position());
+            buffer.position(buffer.position() + 2 + (buffer.getShort(buffer.position()) & 0xFFFF));
+            this.size = buffer.getLong();
+            this.lastModified = buffer.getLong();
+            buffer.get(this.hash);
+
+            int stringCount = buffer.getInt();
+            this.stringOffsets = new int[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                this.stringOffsets[i] = buffer.getInt();
+            }
+            int stringsLength = buffer.getInt();
+            this.stringsStart = buffer.position();
+            this.strings = new String[stringCount];
+            buffer.position(this.stringsStart + stringsLength);
+
+            int classCount = buffer.getInt();
+            this.classNames = new int[classCount];
+            this.recordOffsets = new int[classCount];
+            for (int i = 0; i < classCount; i++) {
+                this.classNames[i] = buffer.getInt();
+                this.recordOffsets[i] = buffer.getInt();
+            }
+            int recordsLength = buffer.getInt();
+            this.recordsStart = buffer.position();
+            if (this.recordsStart + recordsLength != buffer.limit())
+                throw new IOException("Truncated library index");
+        }
+
+        /**
+         * Returns true if this index was built from the given library.
+         *
+         * @param lib  the library.
+         * @param hash the current content hash of the library.
+         * @return true if this index was built from the given library.
+         */
+        private boolean matches(File lib, byte[] hash) {
+            return this.path.equals(lib.getAbsolutePath())
+                    && this.size == lib.length()
+                    && this.lastModified == lib.lastModified()
+                    && Arrays.equals(this.hash, hash);
+        }
+
+        /**
+         * Returns the number of classes in this index.
+         *
+         * @return the number of classes in this index.
+         */
+        public int classCount() {
+            return this.classNames.length;
+        }
+
+        /**
+         * Returns the name of the class with the given index.
+         *
+         * @param index the index of the class.
+         * @return the name of the class.
+         */
+        public String className(int index) {
+            this.lock.readLock().lock();
+            try {
+                this.checkOpen();
+                return this.string(this.classNames[index]);
+            } finally {
+                this.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Rebuilds the {@link LibraryStub} of the class with the given index.
+         *
+         * @param index the index of the class.
+         * @return the {@link LibraryStub}.
+         */
+        public LibraryStub readStub(int index) {
+            this.lock.readLock().lock();
+            try {
+                this.checkOpen();
+                return this.parseStub(index);
+            } finally {
+                this.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Unmaps the index once it isn't read anymore. Classes can't be read
+         * from it afterwards.
+         */
+        @Override
+        public void close() {
+            this.lock.writeLock().lock();
+            try {
+                if (this.buffer != null) {
+                    FileUtils.unmap(this.buffer);
+                    this.buffer = null;
+                }
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Throws if this index was closed.
+         *
+         * @throws IllegalStateException if this index was closed.
+         */
+        private void checkOpen() throws IllegalStateException {
+            if (this.buffer == null)
+                throw new IllegalStateException("Library index of " + this.path + " is closed");
+        }
+
+        /**
+         * Rebuilds the {@link LibraryStub} of the class with the given index
+         * while the read lock is held.
+         *
+         * @param index the index of the class.
+         * @return the {@link LibraryStub}.
+         */
+        private LibraryStub parseStub(int index) {
+            ByteBuffer buffer = this.buffer.duplicate();
+            buffer.position(this.recordsStart + this.recordOffsets[index]);
+
+            int access = buffer.getInt();
+            String superName = this.string(buffer.getInt());
+            String[] interfaces = new String[buffer.getShort() & 0xFFFF];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaces[i] = this.string(buffer.getInt());
+            }
+            int[] methodAccess = new int[buffer.getShort() & 0xFFFF];
+            String[] methods = new String[methodAccess.length * 2];
+            for (int i = 0; i < methodAccess.length; i++) {
+                methodAccess[i] = buffer.getInt();
+                methods[i * 2] = this.string(buffer.getInt());
+                methods[i * 2 + 1] = this.string(buffer.getInt());
+            }
+            int[] fieldAccess = new int[buffer.getShort() & 0xFFFF];
+            String[] fields = new String[fieldAccess.length * 2];
+            for (int i = 0; i < fieldAccess.length; i++) {
+                fieldAccess[i] = buffer.getInt();
+                fields[i * 2] = this.string(buffer.getInt());
+                fields[i * 2 + 1] = this.string(buffer.getInt());
+            }
+            return new LibraryStub(access, this.string(this.classNames[index]), superName, interfaces,
+                    methods, methodAccess, fields, fieldAccess);
+        }
+
+        /**
+         * Returns the pooled string with the given index, decoding it the
+         * first time it is needed.
+         *
+         * @param index the index of the string, -1 for null.
+         * @return the pooled string.
+         */
+        private String string(int index) {
+            if (index < 0)
+                return null;
+            String string = this.strings[index];
+            if (string == null) {
+                string = readUTF(this.buffer, this.stringsStart + this.stringOffsets[index]);
+                this.strings[index] = string;
+            }
+            return string;
+        }
+
+        /**
+         * Decodes a string written by {@link DataOutputStream#writeUTF(String)}.
+         *
+         * @param buffer   the buffer to read from.
+         * @param position absolute position of the string.
+         * @return the decoded string.
+         */
+        private static String readUTF(ByteBuffer buffer, int position) {
+            int length = buffer.getShort(position) & 0xFFFF;
+            char[] chars = new char[length];
+            int count = 0;
+            int i = position + 2;
+            int end = i + length;
+            while (i < end) {
+                int c = buffer.get(i++) & 0xFF;
+                if (c < 0x80) {
+                    chars[count++] = (char) c;
+                } else if ((c & 0xE0) == 0xC0) {
+                    chars[count++] = (char) (((c & 0x1F) << 6) | (buffer.get(i++) & 0x3F));
+                } else {
+                    chars[count++] = (char) (((c & 0x0F) << 12) | ((buffer.get(i++) & 0x3F) << 6)
+                            | (buffer.get(i++) & 0x3F));
+                }
+            }
+            return new String(chars, 0, count);
+        }
+    }
+}
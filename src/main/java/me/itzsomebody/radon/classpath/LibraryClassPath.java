@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.classpath;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipException;
+import me.itzsomebody.radon.io.JarReader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Indexed library classpath. Opening the libraries only records where each
+ * class file is located; a class is parsed the first time it is looked up
+ * into a compact {@link LibraryStub} and kept until it is evicted. If a
+ * {@link LibraryCache} is given, stubs are rebuilt from its mapped indexes
+ * instead of being parsed.
+ *
+ * @author ItzSomebody
+ */
+public class LibraryClassPath implements ClassPathProvider, Closeable {
+    /**
+     * Opened libraries.
+     */
+    private List<JarReader> jars = new ArrayList<>();
+
+    /**
+     * Opened library indexes.
+     */
+    private List<LibraryCache.CachedLibrary> indexes = new ArrayList<>();
+
+    /**
+     * Class name -> location of the class file.
+     */
+    private Map<String, Location> index = new HashMap<>();
+
+    /**
+     * Classes which were already looked up.
+     */
+    private Map<String, LibraryStub> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the given libraries and indexes the classes they contain.
+     * Libraries later in the list win over earlier ones if they contain a
+     * class with the same name.
+     *
+     * @param libs the library {@link File}s.
+     * @throws RuntimeException if library cannot be be opened as Zip or does
+     *                          not exist.
+     */
+    public LibraryClassPath(List<File> libs) throws RuntimeException {
+        this(libs, null, null);
+    }
+
+    /**
+     * Opens the given libraries and indexes the classes they contain using
+     * the given {@link LibraryCache}. Libraries later in the list win over
+     * earlier ones if they contain a class with the same name.
+     *
+     * @param libs  the library {@link File}s.
+     * @param cache the {@link LibraryCache} to use, or null to parse every
+     *              class from its library.
+     * @param pool  pool used to parse the libraries whose cached index is
+     *              missing or stale.
+     * @throws RuntimeException if library cannot be be opened as Zip or does
+     *                          not exist.
+     */
+    public LibraryClassPath(List<File> libs, LibraryCache cache, ForkJoinPool pool) throws RuntimeException {
+        for (File lib : libs) {
+            JarReader jar;
+            try {
+                jar = new JarReader(lib);
+            } catch (ZipException ze) {
+                this.close();
+                throw new RuntimeException("There was an error opening "
+                        + lib.getAbsolutePath() + " as a zip!");
+            } catch (IOException ioe) {
+                this.close();
+                throw new RuntimeException("Library " + lib.getAbsolutePath()
+                        + " does not exist!");
+            }
+            this.jars.add(jar);
+
+            if (cache != null) {
+                LibraryCache.CachedLibrary cached;
+                try {
+                    cached = cache.open(jar, pool);
+                } catch (RuntimeException e) {
+                    this.close();
+                    throw e;
+                }
+                this.indexes.add(cached);
+                for (int i = 0; i < cached.classCount(); i++) {
+                    this.index.put(cached.className(i), new CachedLocation(cached, i));
+                }
+                continue;
+            }
+
+            for (JarReader.Entry entry : jar.getEntries()) {
+                String name = entry.getName();
+                if (name.endsWith(".class") && !entry.isDirectory()
+                        && !name.startsWith("META-INF/")) {
+                    this.index.put(name.substring(0, name.length() - 6), new JarLocation(jar, entry));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if a library contains a class with the given name.
+     *
+     * @param name internal name of the class.
+     * @return true if a library contains a class with the given name.
+     */
+    public boolean contains(String name) {
+        return this.index.containsKey(name);
+    }
+
+    /**
+     * Returns the {@link LibraryStub} of the library class with the given
+     * name, creating it if it has not been looked up before.
+     *
+     * @param name internal name of the class.
+     * @return the {@link LibraryStub} or null if no library contains the
+     * class.
+     * @throws RuntimeException if the class file cannot be read.
+     */
+    @Override
+    public LibraryStub resolve(String name) throws RuntimeException {
+        LibraryStub stub = this.resolved.get(name);
+        if (stub != null)
+            return stub;
+
+        Location location = this.index.get(name);
+        if (location == null)
+            return null;
+
+        return this.resolved.computeIfAbsent(name, key -> location.parse());
+    }
+
+    /**
+     * Drops the parsed class with the given name. It is parsed again if it
+     * is looked up later.
+     *
+     * @param name internal name of the class.
+     */
+    public void evict(String name) {
+        this.resolved.remove(name);
+    }
+
+    /**
+     * Drops every parsed class.
+     */
+    public void evictAll() {
+        this.resolved.clear();
+    }
+
+    /**
+     * Returns the number of classes in the index.
+     *
+     * @return the number of classes in the index.
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Returns the number of classes which are currently parsed.
+     *
+     * @return the number of classes which are currently parsed.
+     */
+    public int resolvedCount() {
+        return this.resolved.size();
+    }
+
+    /**
+     * Drops every parsed class and closes the libraries and their indexes.
+     */
+    @Override
+    public void close() {
+        this.resolved.clear();
+        this.jars.forEach(JarReader::close);
+        this.indexes.forEach(LibraryCache.CachedLibrary::close);
+    }
+
+    /**
+     * Location of a class in a library.
+     */
+    private abstract static class Location {
+        /**
+         * Builds the {@link LibraryStub} of the class.
+         *
+         * @return the {@link LibraryStub}.
+         * @throws RuntimeException if the class cannot be read.
+         */
+        abstract LibraryStub parse() throws RuntimeException;
+    }
+
+    /**
+     * Location of a class file in a library.
+     */
+    private static class JarLocation extends Location {
+        /**
+         * Library containing the class.
+         */
+        private JarReader jar;
+
+        /**
+         * Entry of the class file.
+         */
+        private JarReader.Entry entry;
+
+        /**
+         * Creates a new {@link JarLocation}.
+         *
+         * @param jar   library containing the class.
+         * @param entry entry of the class file.
+         */
+        private JarLocation(JarReader jar, JarReader.Entry entry) {
+            this.jar = jar;
+            this.entry = entry;
+        }
+
+        /**
+         * Parses the class file.
+         *
+         * @return the {@link LibraryStub} of the parsed class.
+         * @throws RuntimeException if the class file cannot be read.
+         */
+        @Override
+        LibraryStub parse() throws RuntimeException {
+            try {
+                ClassNode classNode = new ClassNode();
+
+                // We don't need code in methods for libs
+                new ClassReader(this.jar.read(this.entry)).accept(classNode,
+                        ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES | ClassReader.SKIP_CODE);
+                return LibraryStub.of(classNode);
+            } catch (IOException ioe) {
+                throw new RuntimeException("Error while reading " + this.entry.getName()
+                        + " from " + this.jar.getFile().getAbsolutePath() + " -> " + ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Location of a class in a cached library index.
+     */
+    private static class CachedLocation extends Location {
+        /**
+         * Index containing the class.
+         */
+        private LibraryCache.CachedLibrary cached;
+
+        /**
+         * Index of the class in the library index.
+         */
+        private int index;
+
+        /**
+         * Creates a new {@link CachedLocation}.
+         *
+         * @param cached index containing the class.
+         * @param index  index of the class in the library index.
+         */
+        private CachedLocation(LibraryCache.CachedLibrary cached, int index) {
+            this.cached = cached;
+            this.index = index;
+        }
+
+        /**
+         * Rebuilds the class from the index.
+         *
+         * @return the rebuilt {@link LibraryStub}.
+         */
+        @Override
+        LibraryStub parse() {
+            return this.cached.readStub(this.index);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.classpath;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Immutable, compact view of a library class. Only what is needed to answer
+ * hierarchy and member-existence questions is kept: interned names, access
+ * flags and the member signatures packed into sorted arrays of
+ * (name, descriptor) pairs.
+ *
+ * @author ItzSomebody
+ */
+public final class LibraryStub {
+    /**
+     * Access flags of the class.
+     */
+    private final int access;
+
+    /**
+     * Internal name of the class.
+     */
+    private final String name;
+
+    /**
+     * Internal name of the super class, null for java/lang/Object.
+     */
+    private final String superName;
+
+    /**
+     * Internal names of the implemented interfaces.
+     */
+    private final List<String> interfaces;
+
+    /**
+     * Methods as sorted (name, descriptor) pairs and their access flags.
+     */
+    private final String[] methods;
+    private final int[] methodAccess;
+
+    /**
+     * Fields as sorted (name, descriptor) pairs and their access flags.
+     */
+    private final String[] fields;
+    private final int[] fieldAccess;
+
+    /**
+     * Creates a new {@link LibraryStub}. Every name is interned and the
+     * members are sorted.
+     *
+     * @param access       access flags of the class.
+     * @param name         internal name of the class.
+     * @param superName    internal name of the super class.
+     * @param interfaces   internal names of the implemented interfaces.
+     * @param methods      methods as (name, descriptor) pairs.
+     * @param methodAccess access flags of the methods.
+     * @param fields       fields as (name, descriptor) pairs.
+     * @param fieldAccess  access flags of the fields.
+     */
+    LibraryStub(int access, String name, String superName, String[] interfaces,
+                String[] methods, int[] methodAccess, String[] fields, int[] fieldAccess) {
+        this.access = access;
+        this.name = intern(name);
+        this.superName = intern(superName);
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = intern(interfaces[i]);
+        }
+        this.interfaces = (interfaces.length == 0) ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(interfaces));
+        this.methodAccess = new int[methodAccess.length];
+        this.methods = sort(methods, methodAccess, this.methodAccess);
+        this.fieldAccess = new int[fieldAccess.length];
+        this.fields = sort(fields, fieldAccess, this.fieldAccess);
+    }
+
+    /**
+     * Creates a {@link LibraryStub} of the given {@link ClassNode}.
+     *
+     * @param classNode the {@link ClassNode} to create the stub of.
+     * @return the created {@link LibraryStub}.
+     */
+    public static LibraryStub of(ClassNode classNode) {
+        String[] methods = new String[classNode.methods.size() * 2];
+        int[] methodAccess = new int[classNode.methods.size()];
+        for (int i = 0; i < methodAccess.length; i++) {
+            MethodNode methodNode = classNode.methods.get(i);
+            methods[i * 2] = methodNode.name;
+            methods[i * 2 + 1] = methodNode.desc;
+            methodAccess[i] = methodNode.access;
+        }
+        String[] fields = new String[classNode.fields.size() * 2];
+        int[] fieldAccess = new int[classNode.fields.size()];
+        for (int i = 0; i < fieldAccess.length; i++) {
+            FieldNode fieldNode = classNode.fields.get(i);
+            fields[i * 2] = fieldNode.name;
+            fields[i * 2 + 1] = fieldNode.desc;
+            fieldAccess[i] = fieldNode.access;
+        }
+        return new LibraryStub(classNode.access, classNode.name, classNode.superName,
+                classNode.interfaces.toArray(new String[0]), methods, methodAccess, fields, fieldAccess);
+    }
+
+    /**
+     * Returns the access flags of the class.
+     *
+     * @return the access flags of the class.
+     */
+    public int getAccess() {
+        return this.access;
+    }
+
+    /**
+     * Returns true if the class is an interface.
+     *
+     * @return true if the class is an interface.
+     */
+    public boolean isInterface() {
+        return Modifier.isInterface(this.access);
+    }
+
+    /**
+     * Returns the internal name of the class.
+     *
+     * @return the internal name of the class.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the internal name of the super class.
+     *
+     * @return the internal name of the super class, null for
+     * java/lang/Object.
+     */
+    public String getSuperName() {
+        return this.superName;
+    }
+
+    /**
+     * Returns the internal names of the implemented interfaces.
+     *
+     * @return unmodifiable list of the implemented interfaces.
+     */
+    public List<String> getInterfaces() {
+        return this.interfaces;
+    }
+
+    /**
+     * Returns true if the class declares a method with the given name and
+     * descriptor.
+     *
+     * @param name the name of the method.
+     * @param desc the descriptor of the method.
+     * @return true if the class declares the method.
+     */
+    public boolean hasMethod(String name, String desc) {
+        return find(this.methods, name, desc) >= 0;
+    }
+
+    /**
+     * Returns true if the class declares a field with the given name and
+     * descriptor.
+     *
+     * @param name the name of the field.
+     * @param desc the descriptor of the field.
+     * @return true if the class declares the field.
+     */
+    public boolean hasField(String name, String desc) {
+        return find(this.fields, name, desc) >= 0;
+    }
+
+    /**
+     * Returns the number of declared methods.
+     *
+     * @return the number of declared methods.
+     */
+    public int methodCount() {
+        return this.methodAccess.length;
+    }
+
+    /**
+     * Returns the name of the method at the given index.
+     *
+     * @param index index of the method.
+     * @return the name of the method.
+     */
+    public String getMethodName(int index) {
+        return this.methods[index * 2];
+    }
+
+    /**
+     * Returns the descriptor of the method at the given index.
+     *
+     * @param index index of the method.
+     * @return the descriptor of the method.
+     */
+    public String getMethodDesc(int index) {
+        return this.methods[index * 2 + 1];
+    }
+
+    /**
+     * Returns the access flags of the method at the given index.
+     *
+     * @param index index of the method.
+     * @return the access flags of the method.
+     */
+    public int getMethodAccess(int index) {
+        return this.methodAccess[index];
+    }
+
+    /**
+     * Returns the number of declared fields.
+     *
+     * @return the number of declared fields.
+     */
+    public int fieldCount() {
+        return this.fieldAccess.length;
+    }
+
+    /**
+     * Returns the name of the field at the given index.
+     *
+     * @param index index of the field.
+     * @return the name of the field.
+     */
+    public String getFieldName(int index) {
+        return this.fields[index * 2];
+    }
+
+    /**
+     * Returns the descriptor of the field at the given index.
+     *
+     * @param index index of the field.
+     * @return the descriptor of the field.
+     */
+    public String getFieldDesc(int index) {
+        return this.fields[index * 2 + 1];
+    }
+
+    /**
+     * Returns the access flags of the field at the given index.
+     *
+     * @param index index of the field.
+     * @return the access flags of the field.
+     */
+    public int getFieldAccess(int index) {
+        return this.fieldAccess[index];
+    }
+
+    /**
+     * Binary searches the sorted (name, descriptor) pairs.
+     *
+     * @param members the sorted (name, descriptor) pairs.
+     * @param name    the name to find.
+     * @param desc    the descriptor to find.
+     * @return the index of the pair or -1 if it doesn't exist.
+     */
+    private static int find(String[] members, String name, String desc) {
+        int low = 0;
+        int high = members.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(members[mid * 2], members[mid * 2 + 1], name, desc);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares two (name, descriptor) pairs.
+     *
+     * @param name1 name of the first pair.
+     * @param desc1 descriptor of the first pair.
+     * @param name2 name of the second pair.
+     * @param desc2 descriptor of the second pair.
+     * @return the order of the pairs.
+     */
+    private static int compare(String name1, String desc1, String name2, String desc2) {
+        int cmp = name1.compareTo(name2);
+        return (cmp != 0) ? cmp : desc1.compareTo(desc2);
+    }
+
+    /**
+     * Sorts the (name, descriptor) pairs and interns every name.
+     *
+     * @param members      the unsorted pairs.
+     * @param access       access flags of the unsorted pairs.
+     * @param sortedAccess array the access flags are copied into in sorted
+     *                     order.
+     * @return the sorted pairs.
+     */
+    private static String[] sort(String[] members, int[] access, int[] sortedAccess) {
+        int count = access.length;
+        if (count == 0)
+            return members;
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(members[a * 2], members[a * 2 + 1],
+                members[b * 2], members[b * 2 + 1]));
+
+        String[] sorted = new String[count * 2];
+        for (int i = 0; i < count; i++) {
+            int from = order[i];
+            sorted[i * 2] = intern(members[from * 2]);
+            sorted[i * 2 + 1] = intern(members[from * 2 + 1]);
+            sortedAccess[i] = access[from];
+        }
+        return sorted;
+    }
+
+    /**
+     * Interns the given {@link String}.
+     *
+     * @param string the {@link String} to intern, may be null.
+     * @return the interned {@link String}.
+     */
+    private static String intern(String string) {
+        return (string == null) ? null : string.intern();
+    }
+}
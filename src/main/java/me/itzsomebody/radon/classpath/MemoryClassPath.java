@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.classpath;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Library classpath of class files which are already held in memory. Like
+ * {@link LibraryClassPath}, a class is only parsed the first time it is
+ * looked up.
+ *
+ * @author ItzSomebody
+ */
+public class MemoryClassPath implements ClassPathProvider {
+    /**
+     * Class name -> class file.
+     */
+    private Map<String, byte[]> index = new HashMap<>();
+
+    /**
+     * Classes which were already looked up.
+     */
+    private Map<String, LibraryStub> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link MemoryClassPath}. The class files are not copied,
+     * they must not change while the classpath is used.
+     *
+     * @param entries entry name -> data, like the entries of a jar. Entries
+     *                which aren't class files are ignored.
+     */
+    public MemoryClassPath(Map<String, byte[]> entries) {
+        entries.forEach((name, data) -> {
+            if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                this.index.put(name.substring(0, name.length() - 6), data);
+            }
+        });
+    }
+
+    /**
+     * Returns the {@link LibraryStub} of the class with the given name,
+     * creating it if it has not been looked up before.
+     *
+     * @param name internal name of the class.
+     * @return the {@link LibraryStub} or null if there is no such class.
+     * @throws RuntimeException if the class file cannot be parsed.
+     */
+    @Override
+    public LibraryStub resolve(String name) throws RuntimeException {
+        LibraryStub stub = this.resolved.get(name);
+        if (stub != null)
+            return stub;
+
+        byte[] data = this.index.get(name);
+        if (data == null)
+            return null;
+
+        return this.resolved.computeIfAbsent(name, key -> {
+            ClassNode classNode = new ClassNode();
+
+            // We don't need code in methods for libs
+            new ClassReader(data).accept(classNode,
+                    ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES | ClassReader.SKIP_CODE);
+            return LibraryStub.of(classNode);
+        });
+    }
+
+    /**
+     * Returns the number of classes in the classpath.
+     *
+     * @return the number of classes in the classpath.
+     */
+    public int size() {
+        return this.index.size();
+    }
+}
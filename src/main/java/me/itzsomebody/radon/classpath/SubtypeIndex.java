@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.classpath;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import me.itzsomebody.radon.transformers.renamer.ClassTree;
+
+/**
+ * Immutable index which answers subtype questions about a
+ * {@link ClassHierarchy} in constant time.
+ * <p>
+ * Every class is numbered in pre- and post-order of the tree formed by the
+ * super class edges, so a class is a subclass of another if its interval is
+ * inside the interval of the other one. Every interface gets a bit and every
+ * class a bitset of all interfaces it implements, including inherited ones.
+ * The index contains the classes of the hierarchy and all of their
+ * ancestors; classes outside of it aren't known to the index.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public final class SubtypeIndex {
+    /**
+     * Bitset of classes which don't implement any interfaces.
+     */
+    private static final long[] NO_INTERFACES = new long[0];
+
+    /**
+     * Class name -> {@link Entry}.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * Version of the hierarchy this index was built from.
+     */
+    private final long version;
+
+    /**
+     * Creates a new {@link SubtypeIndex}.
+     *
+     * @param entries class name -> {@link Entry}.
+     * @param version version of the hierarchy this index was built from.
+     */
+    private SubtypeIndex(Map<String, Entry> entries, long version) {
+        this.entries = entries;
+        this.version = version;
+    }
+
+    /**
+     * Builds the index of the given hierarchy.
+     *
+     * @param hierarchy the hierarchy to index.
+     * @param resolver  looks up the {@link ClassTree} of ancestors which
+     *                  aren't in the hierarchy yet, returns null if the
+     *                  class can't be found.
+     * @return the built index.
+     */
+    public static SubtypeIndex build(ClassHierarchy hierarchy, Function<String, ClassTree> resolver) {
+        // Collect every class and its ancestors.
+        Map<String, Entry> entries = new HashMap<>();
+        Deque<String> searchThese = new ArrayDeque<>();
+        for (ClassTree tree : new ArrayList<>(hierarchy.trees())) {
+            if (entries.putIfAbsent(tree.className, new Entry(tree)) == null) {
+                searchThese.add(tree.className);
+            }
+        }
+        while (!searchThese.isEmpty()) {
+            Entry entry = entries.get(searchThese.poll());
+            for (String parent : entry.parents()) {
+                if (entries.containsKey(parent))
+                    continue;
+
+                ClassTree tree = resolver.apply(parent);
+                if (tree != null) {
+                    entries.put(parent, new Entry(tree));
+                    searchThese.add(parent);
+                }
+            }
+        }
+
+        // Resolving ancestors can add input classes to the hierarchy.
+        long version = hierarchy.getVersion();
+
+        // Super class -> direct subclasses, classes with unknown super
+        // classes are roots.
+        Map<String, List<Entry>> children = new HashMap<>();
+        List<Entry> roots = new ArrayList<>();
+        entries.values().forEach(entry -> {
+            if (entry.superName != null && entries.containsKey(entry.superName)) {
+                children.computeIfAbsent(entry.superName, key -> new ArrayList<>()).add(entry);
+            } else {
+                roots.add(entry);
+            }
+        });
+
+        // Number the classes, super class cycles are broken by treating the
+        // first class found of them as a root.
+        int counter = 0;
+        Deque<Entry> stack = new ArrayDeque<>();
+        List<Entry> unnumbered = new ArrayList<>(roots);
+        unnumbered.addAll(entries.values());
+        for (Entry root : unnumbered) {
+            if (root.pre >= 0)
+                continue;
+
+            root.pre = counter++;
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Entry entry = stack.peek();
+                List<Entry> subClasses = children.getOrDefault(entry.name, Collections.emptyList());
+                if (entry.next < subClasses.size()) {
+                    Entry child = subClasses.get(entry.next++);
+                    if (child.pre < 0) {
+                        child.pre = counter++;
+                        stack.push(child);
+                    }
+                } else {
+                    entry.post = counter++;
+                    stack.pop();
+                }
+            }
+        }
+
+        // Give every interface a bit.
+        int interfaceCount = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.isInterface) {
+                entry.bit = interfaceCount++;
+            }
+        }
+        int words = (interfaceCount + 63) >>> 6;
+        for (Entry entry : entries.values()) {
+            computeInterfaces(entry, entries, words);
+        }
+
+        return new SubtypeIndex(entries, version);
+    }
+
+    /**
+     * Computes the bitset of every interface the given class implements.
+     *
+     * @param entry   the class.
+     * @param entries class name -> {@link Entry}.
+     * @param words   number of longs in a bitset.
+     * @return the bitset of the class.
+     */
+    private static long[] computeInterfaces(Entry entry, Map<String, Entry> entries, int words) {
+        if (entry.interfaces != null)
+            return entry.interfaces;
+        if (entry.computing)
+            return NO_INTERFACES; // Inheritance cycle.
+
+        entry.computing = true;
+        long[] interfaces = null;
+        Entry superEntry = (entry.superName == null) ? null : entries.get(entry.superName);
+        long[] inherited = (superEntry == null) ? NO_INTERFACES : computeInterfaces(superEntry, entries, words);
+        if (entry.bit >= 0) {
+            interfaces = set(interfaces, inherited, entry.bit, words);
+        }
+        for (String itf : entry.interfaceNames) {
+            Entry itfEntry = entries.get(itf);
+            if (itfEntry == null)
+                continue;
+
+            long[] itfInterfaces = computeInterfaces(itfEntry, entries, words);
+            for (int i = 0; i < itfInterfaces.length; i++) {
+                long[] current = (interfaces == null) ? inherited : interfaces;
+                if ((itfInterfaces[i] & ~word(current, i)) != 0) {
+                    interfaces = copy(interfaces, inherited, words);
+                    interfaces[i] |= itfInterfaces[i];
+                }
+            }
+        }
+        // Classes which don't add any interfaces share the bitset of their
+        // super class.
+        entry.interfaces = (interfaces == null) ? inherited : interfaces;
+        entry.computing = false;
+        return entry.interfaces;
+    }
+
+    /**
+     * Sets a bit, copying the inherited bitset first if needed.
+     *
+     * @param interfaces the bitset of the class, null if not copied yet.
+     * @param inherited  the bitset of the super class.
+     * @param bit        the bit to set.
+     * @param words      number of longs in a bitset.
+     * @return the bitset of the class.
+     */
+    private static long[] set(long[] interfaces, long[] inherited, int bit, int words) {
+        interfaces = copy(interfaces, inherited, words);
+        interfaces[bit >>> 6] |= 1L << bit;
+        return interfaces;
+    }
+
+    /**
+     * Copies the inherited bitset if the class doesn't have its own yet.
+     *
+     * @param interfaces the bitset of the class, null if not copied yet.
+     * @param inherited  the bitset of the super class.
+     * @param words      number of longs in a bitset.
+     * @return the bitset of the class.
+     */
+    private static long[] copy(long[] interfaces, long[] inherited, int words) {
+        if (interfaces != null)
+            return interfaces;
+
+        long[] copy = new long[words];
+        System.arraycopy(inherited, 0, copy, 0, inherited.length);
+        return copy;
+    }
+
+    /**
+     * Returns a word of a bitset which may be shorter than usual.
+     *
+     * @param bits  the bitset.
+     * @param index index of the word.
+     * @return the word or 0 if the bitset is too short.
+     */
+    private static long word(long[] bits, int index) {
+        return (index < bits.length) ? bits[index] : 0;
+    }
+
+    /**
+     * Returns the version of the hierarchy this index was built from.
+     *
+     * @return the version of the hierarchy this index was built from.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns true if the given class is in this index.
+     *
+     * @param name the name of the class.
+     * @return true if the given class is in this index.
+     */
+    public boolean contains(String name) {
+        return this.entries.containsKey(name);
+    }
+
+    /**
+     * Returns true if the given class is an interface.
+     *
+     * @param name the name of the class.
+     * @return true if the class is known and an interface.
+     */
+    public boolean isInterface(String name) {
+        Entry entry = this.entries.get(name);
+        return entry != null && entry.isInterface;
+    }
+
+    /**
+     * Returns true if the child can be assigned to the parent, which is if
+     * they are the same class, the parent is java/lang/Object or the child
+     * extends or implements the parent.
+     *
+     * @param parent the possible super class or interface.
+     * @param child  the possible subclass.
+     * @return true if the child can be assigned to the parent. False if
+     * either class isn't in this index.
+     */
+    public boolean isAssignable(String parent, String child) {
+        if (parent.equals(child) || parent.equals("java/lang/Object"))
+            return true;
+
+        Entry parentEntry = this.entries.get(parent);
+        Entry childEntry = this.entries.get(child);
+        if (parentEntry == null || childEntry == null)
+            return false;
+
+        if (parentEntry.isInterface) {
+            return (word(childEntry.interfaces, parentEntry.bit >>> 6) & (1L << parentEntry.bit)) != 0;
+        }
+        return parentEntry.pre <= childEntry.pre && childEntry.post <= parentEntry.post;
+    }
+
+    /**
+     * Indexed class.
+     */
+    private static class Entry {
+        /**
+         * Name of the class.
+         */
+        private final String name;
+
+        /**
+         * Name of the super class, null for java/lang/Object.
+         */
+        private final String superName;
+
+        /**
+         * Names of the directly implemented interfaces.
+         */
+        private final List<String> interfaceNames;
+
+        /**
+         * True if the class is an interface.
+         */
+        private final boolean isInterface;
+
+        /**
+         * Pre- and post-order number of the class, -1 if not numbered yet.
+         */
+        private int pre = -1;
+        private int post = -1;
+
+        /**
+         * Index of the next subclass to number.
+         */
+        private int next;
+
+        /**
+         * Bit of the interface, -1 if the class isn't an interface.
+         */
+        private int bit = -1;
+
+        /**
+         * Bitset of all implemented interfaces, null if not computed yet.
+         */
+        private long[] interfaces;
+
+        /**
+         * True while the bitset is being computed.
+         */
+        private boolean computing;
+
+        /**
+         * Creates an {@link Entry} of the given {@link ClassTree}.
+         *
+         * @param tree the {@link ClassTree} of the class.
+         */
+        private Entry(ClassTree tree) {
+            this.name = tree.className;
+            if (tree.classNode != null) {
+                this.superName = tree.classNode.superName;
+                this.interfaceNames = tree.classNode.interfaces;
+                this.isInterface = Modifier.isInterface(tree.classNode.access);
+            } else if (tree.libraryStub != null) {
+                this.superName = tree.libraryStub.getSuperName();
+                this.interfaceNames = tree.libraryStub.getInterfaces();
+                this.isInterface = tree.libraryStub.isInterface();
+            } else {
+                this.superName = null;
+                this.interfaceNames = Collections.emptyList();
+                this.isInterface = false;
+            }
+        }
+
+        /**
+         * Returns the super class and interfaces of the class.
+         *
+         * @return the super class and interfaces of the class.
+         */
+        private List<String> parents() {
+            List<String> parents = new ArrayList<>(this.interfaceNames.size() + 1);
+            if (this.superName != null) {
+                parents.add(this.superName);
+            }
+            parents.addAll(this.interfaceNames);
+            return parents;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import me.itzsomebody.radon.transformers.AbstractTransformer;
 import me.itzsomebody.radon.transformers.flow.HeavyFlowObfuscation;
@@ -52,6 +53,7 @@ import me.itzsomebody.radon.transformers.stringencryption.HeavyStringEncryption;
 import me.itzsomebody.radon.transformers.stringencryption.LightStringEncryption;
 import me.itzsomebody.radon.transformers.stringencryption.NormalStringEncryption;
 import me.itzsomebody.radon.transformers.stringencryption.SuperLightStringEncryption;
+import me.itzsomebody.radon.utils.LoggerUtils;
 import org.yaml.snakeyaml.Yaml;
 
 /**
@@ -92,6 +94,16 @@ public class Config {
             add("Shuffler");
             add("InnerClassRemover");
             add("Dictionary");
+            add("Threads");
+            add("CacheDirectory");
+            add("Streaming");
+            add("ParallelTransformers");
+            add("ClassCompression");
+            add("ResourceCompression");
+            add("Incremental");
+            add("Seed");
+            add("Report");
+            add("LogLevel");
         }
     };
 
@@ -1071,4 +1083,271 @@ public class Config {
             return 0;
         }
     }
+
+    /**
+     * Returns the number of worker threads from {@link Config#map} as an
+     * {@link Integer}. Defaults to the number of available processors if
+     * null.
+     *
+     * @return Returns the number of worker threads from {@link Config#map}
+     * as an {@link Integer}. Defaults to the number of available processors
+     * if null.
+     * @throws IllegalArgumentException if value from key is null, not an
+     *                                  {@link Integer} or less than one.
+     */
+    public int getThreads() throws IllegalArgumentException {
+        if (this.map.containsKey("Threads")) {
+            Object value = this.map.get("Threads");
+            if (value != null) {
+                if (!(value instanceof Integer))
+                    throw new IllegalArgumentException("Threads arg must " +
+                            "be an integer");
+                int threads = (Integer) value;
+                if (threads < 1)
+                    throw new IllegalArgumentException("Threads arg must " +
+                            "be at least 1");
+                return threads;
+            } else {
+                throw new IllegalArgumentException("Threads arg is null");
+            }
+        } else {
+            return Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Returns the boolean value of streaming mode from {@link Config#map}
+     * as a {@link Boolean}. Defaults to false if null.
+     *
+     * @return Returns the boolean value of streaming mode from
+     * {@link Config#map} as a {@link Boolean}. Defaults to false if null.
+     * @throws IllegalArgumentException if value from key is null or not
+     *                                  a {@link Boolean}
+     */
+    public boolean getStreamingBool() throws IllegalArgumentException {
+        if (this.map.containsKey("Streaming")) {
+            Object value = this.map.get("Streaming");
+            if (value != null) {
+                if (!(value instanceof Boolean))
+                    throw new IllegalArgumentException("Streaming arg " +
+                            "must be true/false");
+                return (Boolean) value;
+            } else {
+                throw new IllegalArgumentException("Streaming arg is null");
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the boolean value of parallel transformer mode from
+     * {@link Config#map} as a {@link Boolean}. Defaults to false if null.
+     *
+     * @return Returns the boolean value of parallel transformer mode from
+     * {@link Config#map} as a {@link Boolean}. Defaults to false if null.
+     * @throws IllegalArgumentException if value from key is null or not
+     *                                  a {@link Boolean}
+     */
+    public boolean getParallelTransformersBool() throws IllegalArgumentException {
+        if (this.map.containsKey("ParallelTransformers")) {
+            Object value = this.map.get("ParallelTransformers");
+            if (value != null) {
+                if (!(value instanceof Boolean))
+                    throw new IllegalArgumentException("ParallelTransformers arg " +
+                            "must be true/false");
+                return (Boolean) value;
+            } else {
+                throw new IllegalArgumentException("ParallelTransformers arg is null");
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the boolean value of incremental mode from {@link Config#map}
+     * as a {@link Boolean}. Defaults to false if null.
+     *
+     * @return Returns the boolean value of incremental mode from
+     * {@link Config#map} as a {@link Boolean}. Defaults to false if null.
+     * @throws IllegalArgumentException if value from key is null or not a
+     *                                  {@link Boolean}.
+     */
+    public boolean getIncrementalBool() throws IllegalArgumentException {
+        if (this.map.containsKey("Incremental")) {
+            Object value = this.map.get("Incremental");
+            if (value != null) {
+                if (!(value instanceof Boolean))
+                    throw new IllegalArgumentException("Incremental arg " +
+                            "must be true/false");
+                return (Boolean) value;
+            } else {
+                throw new IllegalArgumentException("Incremental arg is null");
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the library cache directory from {@link Config#map} as a
+     * {@link File}. Defaults to null (no cache) if null.
+     *
+     * @return Returns the library cache directory from {@link Config#map}
+     * as a {@link File}. Defaults to null if null.
+     * @throws IllegalArgumentException if value from key is null or not a
+     *                                  {@link String}.
+     */
+    public File getCacheDirectory() throws IllegalArgumentException {
+        if (this.map.containsKey("CacheDirectory")) {
+            Object value = this.map.get("CacheDirectory");
+            if (value != null) {
+                if (!(value instanceof String))
+                    throw new IllegalArgumentException("CacheDirectory arg must " +
+                            "be a string");
+                return new File((String) value);
+            } else {
+                throw new IllegalArgumentException("CacheDirectory arg is null");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the compression level of classes from {@link Config#map} as
+     * an {@link Integer}. Defaults to -1 (default compression) if null.
+     *
+     * @return Returns the compression level of classes from
+     * {@link Config#map} as an {@link Integer}. Defaults to -1 if null.
+     * @throws IllegalArgumentException if value from key is null, not an
+     *                                  {@link Integer} or not from -1 to 9.
+     */
+    public int getClassCompression() throws IllegalArgumentException {
+        return this.getCompression("ClassCompression");
+    }
+
+    /**
+     * Returns the compression level of resources from {@link Config#map} as
+     * an {@link Integer}. Defaults to -1 (default compression) if null. Only
+     * applies to resources which are rewritten, other resources are copied
+     * as they are stored in the input.
+     *
+     * @return Returns the compression level of resources from
+     * {@link Config#map} as an {@link Integer}. Defaults to -1 if null.
+     * @throws IllegalArgumentException if value from key is null, not an
+     *                                  {@link Integer} or not from -1 to 9.
+     */
+    public int getResourceCompression() throws IllegalArgumentException {
+        return this.getCompression("ResourceCompression");
+    }
+
+    /**
+     * Returns the file to write the run report to from {@link Config#map}
+     * as {@link File}. Defaults to null if not present.
+     *
+     * @return the file to write the run report to or null if no report is
+     * made.
+     * @throws IllegalArgumentException if value from key is null or not a
+     *                                  {@link String}.
+     */
+    public File getReport() throws IllegalArgumentException {
+        if (this.map.containsKey("Report")) {
+            Object value = this.map.get("Report");
+            if (value != null) {
+                if (!(value instanceof String))
+                    throw new IllegalArgumentException("Report arg must " +
+                            "be a string");
+                return new File((String) value);
+            } else {
+                throw new IllegalArgumentException("Report arg is null");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the lowest {@link LoggerUtils.Level} of logged messages from
+     * {@link Config#map}. Defaults to null if not present.
+     *
+     * @return the lowest {@link LoggerUtils.Level} of logged messages or
+     * null if the level isn't changed.
+     * @throws IllegalArgumentException if value from key is null, not a
+     *                                  {@link String} or not a level.
+     */
+    public LoggerUtils.Level getLogLevel() throws IllegalArgumentException {
+        if (this.map.containsKey("LogLevel")) {
+            Object value = this.map.get("LogLevel");
+            if (value != null) {
+                if (!(value instanceof String))
+                    throw new IllegalArgumentException("LogLevel arg must " +
+                            "be a string");
+                try {
+                    return LoggerUtils.Level.valueOf(((String) value).toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException iae) {
+                    throw new IllegalArgumentException("LogLevel arg must " +
+                            "be DEBUG, INFO, WARN or ERROR");
+                }
+            } else {
+                throw new IllegalArgumentException("LogLevel arg is null");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the seed of the run from {@link Config#map} as a
+     * {@link Long}. Defaults to null if not present.
+     *
+     * @return the seed of the run from {@link Config#map} as a {@link Long}
+     * or null if the run isn't seeded.
+     * @throws IllegalArgumentException if value from key is null or not an
+     *                                  {@link Integer} or {@link Long}.
+     */
+    public Long getSeed() throws IllegalArgumentException {
+        if (this.map.containsKey("Seed")) {
+            Object value = this.map.get("Seed");
+            if (value != null) {
+                if (!(value instanceof Integer) && !(value instanceof Long))
+                    throw new IllegalArgumentException("Seed arg must " +
+                            "be a 64-bit integer");
+                return ((Number) value).longValue();
+            } else {
+                throw new IllegalArgumentException("Seed arg is null");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns a compression level from {@link Config#map}.
+     *
+     * @param key the key of the compression level.
+     * @return the compression level, -1 if null.
+     * @throws IllegalArgumentException if value from key is null, not an
+     *                                  {@link Integer} or not from -1 to 9.
+     */
+    private int getCompression(String key) throws IllegalArgumentException {
+        if (this.map.containsKey(key)) {
+            Object value = this.map.get(key);
+            if (value != null) {
+                if (!(value instanceof Integer))
+                    throw new IllegalArgumentException(key + " arg must " +
+                            "be an integer");
+                int level = (Integer) value;
+                if (level < -1 || level > 9)
+                    throw new IllegalArgumentException(key + " arg must " +
+                            "be from -1 to 9");
+                return level;
+            } else {
+                throw new IllegalArgumentException(key + " arg is null");
+            }
+        }
+
+        return -1;
+    }
 }
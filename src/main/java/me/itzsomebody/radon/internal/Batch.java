@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import me.itzsomebody.radon.classpath.LibraryCache;
+import me.itzsomebody.radon.classpath.LibraryClassPath;
+import me.itzsomebody.radon.config.Config;
+import me.itzsomebody.radon.utils.LoggerUtils;
+
+/**
+ * Runs several configs in one process. The libraries of every config are
+ * opened once into a classpath shared by all runs, so every run sees the
+ * libraries of the whole batch. Their metadata is cached in the
+ * CacheDirectory of the first config which sets one. A bounded number of
+ * runs execute at the same time, each writes its own output and its own log
+ * next to the output.
+ *
+ * @author ItzSomebody
+ */
+public class Batch {
+    /**
+     * The config {@link File}s to run.
+     */
+    private List<File> configs;
+
+    /**
+     * Maximum number of runs executing at the same time.
+     */
+    private int jobs;
+
+    /**
+     * Creates a new {@link Batch}.
+     *
+     * @param paths config files and directories of config files.
+     * @param jobs  maximum number of runs executing at the same time.
+     * @throws IllegalArgumentException if a path doesn't exist or no config
+     *                                  was found.
+     */
+    public Batch(List<File> paths, int jobs) throws IllegalArgumentException {
+        this.configs = new ArrayList<>();
+        for (File path : paths) {
+            if (path.isDirectory()) {
+                File[] files = path.listFiles((dir, name) -> name.endsWith(".yml") || name.endsWith(".yaml"));
+                if (files != null) {
+                    Arrays.sort(files);
+                    this.configs.addAll(Arrays.asList(files));
+                }
+            } else if (path.isFile()) {
+                this.configs.add(path);
+            } else {
+                throw new IllegalArgumentException("Config " + path.getAbsolutePath() + " does not exist");
+            }
+        }
+        if (this.configs.isEmpty())
+            throw new IllegalArgumentException("No configs found");
+        this.jobs = jobs;
+    }
+
+    /**
+     * Runs every config.
+     *
+     * @return the number of runs which failed.
+     * @throws RuntimeException if a config can't be read or two configs
+     *                          write the same output.
+     */
+    public int run() throws RuntimeException {
+        long current = System.currentTimeMillis();
+
+        // Read every config up front to find the libraries and outputs
+        Map<File, byte[]> contents = new LinkedHashMap<>();
+        Map<File, File> outputs = new HashMap<>();
+        Map<File, File> logs = new HashMap<>();
+        Map<String, File> libs = new LinkedHashMap<>();
+        File cacheDirectory = null;
+        File cacheConfig = null;
+        for (File file : this.configs) {
+            try {
+                byte[] bytes = Files.readAllBytes(file.toPath());
+                Config config = new Config(new ByteArrayInputStream(bytes));
+                config.loadIntoMap();
+                File output = config.getOutput().getAbsoluteFile();
+                File other = outputs.put(output, file);
+                if (other != null)
+                    throw new RuntimeException(file.getName() + " and " + other.getName()
+                            + " both write " + output.getPath());
+                logs.put(file, new File(output.getPath() + ".log"));
+
+                for (File lib : config.getLibraries().values()) {
+                    libs.putIfAbsent(lib.getAbsolutePath(), lib);
+                }
+                File configCache = config.getCacheDirectory();
+                if (configCache != null) {
+                    if (cacheDirectory == null) {
+                        cacheDirectory = configCache;
+                        cacheConfig = file;
+                    } else if (!cacheDirectory.toPath().toAbsolutePath().normalize()
+                            .equals(configCache.toPath().toAbsolutePath().normalize())) {
+                        // Incremental output is still cached in the directory of each config
+                        LoggerUtils.warn("Shared library metadata is cached in " + cacheDirectory.getPath()
+                                + " from " + cacheConfig.getName() + ", not in " + configCache.getPath()
+                                + " from " + file.getName());
+                    }
+                }
+                contents.put(file, bytes);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new RuntimeException("Error while reading config " + file.getAbsolutePath()
+                        + ": " + e.getMessage());
+            }
+        }
+
+        LoggerUtils.stdOut("Loading " + libs.size() + " libraries shared by "
+                + this.configs.size() + " configs");
+        ForkJoinPool pool = new ForkJoinPool();
+        LibraryClassPath libraries;
+        try {
+            LibraryCache cache = (cacheDirectory != null) ? new LibraryCache(cacheDirectory) : null;
+            libraries = new LibraryClassPath(new ArrayList<>(libs.values()), cache, pool);
+        } finally {
+            pool.shutdown();
+        }
+        LoggerUtils.stdOut("Indexed " + libraries.size() + " library classes. ["
+                + (System.currentTimeMillis() - current) + "ms]");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.jobs, this.configs.size()));
+        int failed = 0;
+        try {
+            Map<File, Future<?>> futures = new LinkedHashMap<>();
+            contents.forEach((file, bytes) -> {
+                Bootstrap bootstrap = new Bootstrap(new Config(new ByteArrayInputStream(bytes)), libraries,
+                        logs.get(file));
+                futures.put(file, executor.submit(() -> {
+                    try {
+                        bootstrap.startTheParty(true);
+                    } catch (Throwable t) {
+                        throw new RuntimeException(t.getMessage());
+                    }
+                }));
+            });
+
+            for (Map.Entry<File, Future<?>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException ee) {
+                    failed++;
+                    LoggerUtils.stdOut(entry.getKey().getName() + " failed: " + ee.getCause().getMessage());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for " + entry.getKey().getName());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            libraries.close();
+        }
+
+        LoggerUtils.stdOut("Finished " + (this.configs.size() - failed) + " of " + this.configs.size()
+                + " configs. [" + (System.currentTimeMillis() - current) + "ms]");
+        return failed;
+    }
+}
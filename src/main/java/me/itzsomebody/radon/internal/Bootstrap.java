@@ -18,28 +18,50 @@
 package me.itzsomebody.radon.internal;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
 import me.itzsomebody.radon.Radon;
+import me.itzsomebody.radon.classpath.ClassHierarchy;
+import me.itzsomebody.radon.classpath.ClassPathProvider;
+import me.itzsomebody.radon.classpath.LibraryCache;
+import me.itzsomebody.radon.classpath.LibraryClassPath;
+import me.itzsomebody.radon.classpath.LibraryStub;
+import me.itzsomebody.radon.classpath.SubtypeIndex;
 import me.itzsomebody.radon.config.Config;
+import me.itzsomebody.radon.io.JarReader;
+import me.itzsomebody.radon.io.JarWriter;
 import me.itzsomebody.radon.transformers.AbstractTransformer;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
+import me.itzsomebody.radon.transformers.FusedPass;
 import me.itzsomebody.radon.transformers.misc.Expiry;
 import me.itzsomebody.radon.transformers.misc.TrashClasses;
 import me.itzsomebody.radon.transformers.renamer.ClassTree;
 import me.itzsomebody.radon.utils.FileUtils;
+import me.itzsomebody.radon.utils.LogFile;
 import me.itzsomebody.radon.utils.LoggerUtils;
 import me.itzsomebody.radon.utils.NumberUtils;
 import me.itzsomebody.radon.utils.StringUtils;
@@ -47,24 +69,44 @@ import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Bootstraps and runs the obfuscation process.
- * TODO: Create class hierarchy more efficiently.
  * TODO: Renaming classes causes exempts on other classes to not work.
  *
  * @author ItzSomebody
  */
 public class Bootstrap { // Eyyy bootstrap bill
     /**
-     * HashMap that stores all of the loaded classes.
+     * Resources which transformers might rewrite, only these are read into
+     * {@link Bootstrap#passThru}.
      */
-    private Map<String, ClassNode> classPath = new HashMap<>();
+    private static final Set<String> REWRITTEN_RESOURCES =
+            new HashSet<>(Arrays.asList("META-INF/MANIFEST.MF", "plugin.yml"));
 
     /**
-     * HashMap that stores all of the input classes (and as they are obfuscated).
+     * Time set on the entries of seeded runs. Entries store the local time,
+     * so this is midnight of the earliest time they can store in the local
+     * time zone, which gives the same entries in every time zone.
      */
-    private Map<String, ClassNode> classes = new HashMap<>();
+    private static final long SEEDED_TIME =
+            LocalDateTime.of(1980, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    /**
+     * Map that stores all of the loaded classes.
+     */
+    private Map<String, ClassNode> classPath = new ConcurrentHashMap<>();
+
+    /**
+     * Map that stores the library classes the input classes depend on.
+     */
+    private Map<String, LibraryStub> libraryClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Map that stores all of the input classes (and as they are obfuscated).
+     */
+    private Map<String, ClassNode> classes = new ConcurrentHashMap<>();
 
     /**
      * Extra classes that are generated by the obfuscator.
@@ -72,14 +114,86 @@ public class Bootstrap { // Eyyy bootstrap bill
     private Map<String, ClassNode> extraClasses = new HashMap<>();
 
     /**
-     * Resources which "pass through" the obfuscator.
+     * Resources which "pass through" the obfuscator and might be rewritten.
+     * Every other resource is copied from the input without being read.
+     */
+    private Map<String, byte[]> passThru = new ConcurrentHashMap<>();
+
+    /**
+     * Every resource of the input in archive order.
+     */
+    private List<JarReader.Entry> resources = new ArrayList<>();
+
+    /**
+     * The opened input jar, kept open so resources can be copied from it.
      */
-    private Map<String, byte[]> passThru = new HashMap<>();
+    private JarReader inputJar;
 
     /**
      * Class hiearchy.
      */
-    private Map<String, ClassTree> hierarchy = new HashMap<>();
+    private ClassHierarchy hierarchy = new ClassHierarchy();
+
+    /**
+     * Type 1 -> type 2 -> common super class computed by
+     * {@link CustomClassWriter}.
+     */
+    private Map<String, Map<String, String>> commonSuperClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Class name -> every class name it is assignable to through input
+     * classes.
+     */
+    private Map<String, Set<String>> ancestorChains = new ConcurrentHashMap<>();
+
+    /**
+     * Version of {@link Bootstrap#hierarchy} the cached common super classes
+     * and ancestor chains were computed for.
+     */
+    private volatile long cacheVersion = -1;
+
+    /**
+     * Subtype index of {@link Bootstrap#hierarchy}, null if not built yet.
+     */
+    private volatile SubtypeIndex subtypeIndex;
+
+    /**
+     * Indexed library classes which are only parsed once they are needed.
+     */
+    private LibraryClassPath libraries;
+
+    /**
+     * Library classes given by code embedding Radon, looked up in order if
+     * {@link Bootstrap#libraries} is null.
+     */
+    private List<ClassPathProvider> providers = Collections.emptyList();
+
+    /**
+     * Library classpaths kept open by the {@link Daemon}, null if the
+     * libraries are opened for this run only.
+     */
+    private ResidentLibraries residentLibraries;
+
+    /**
+     * Library classpath shared with other runs of a {@link Batch}, null if
+     * the libraries are opened for this run only.
+     */
+    private LibraryClassPath sharedLibraries;
+
+    /**
+     * File the log is written to.
+     */
+    private File logFile = new File("Radon.log");
+
+    /**
+     * File the run report is written to, null if no report is made.
+     */
+    private File reportFile;
+
+    /**
+     * Performance report of this run, null if no report is made.
+     */
+    private RunReport report;
 
     /**
      * Config object
@@ -97,9 +211,44 @@ public class Bootstrap { // Eyyy bootstrap bill
     private File output;
 
     /**
-     * A {@link ZipOutputStream} which we use to write changes to the classes.
+     * Supplies the entries of an input held in memory, null if the input
+     * is read from {@link Bootstrap#input}.
      */
-    private ZipOutputStream zos;
+    private Supplier<Map<String, byte[]>> inputEntries;
+
+    /**
+     * Names of the resources of an input held in memory, in input order.
+     */
+    private List<String> memoryResources = new ArrayList<>();
+
+    /**
+     * Entries of an output kept in memory, null if the output is written to
+     * {@link Bootstrap#output}.
+     */
+    private Map<String, byte[]> outputEntries;
+
+    /**
+     * Receives the log messages of this run instead of the console, null if
+     * they are printed.
+     */
+    private Consumer<String> logSink;
+
+    /**
+     * Lowest level of messages logged by the threads of this run, null if
+     * they use the level set with {@link LoggerUtils#setLevel}.
+     */
+    private LoggerUtils.Level logLevel;
+
+    /**
+     * Level the thread which started this run used before, restored by
+     * {@link Bootstrap#release()}.
+     */
+    private LoggerUtils.Level previousLevel;
+
+    /**
+     * A {@link JarWriter} which we use to write changes to the classes.
+     */
+    private JarWriter writer;
 
     /**
      * A HashMap that stores the locations to each of the libraries that will
@@ -143,9 +292,67 @@ public class Bootstrap { // Eyyy bootstrap bill
     private String watermarkKey;
 
     /**
-     * Strings to write to log.
+     * Number of worker threads used to load the input and libraries.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Directory library class metadata is cached in, null if caching is
+     * disabled.
+     */
+    private File cacheDirectory;
+
+    /**
+     * Indication to obfuscate the input one class at a time.
+     */
+    private boolean streaming;
+
+    /**
+     * Indication to spread the classes over the worker threads while
+     * {@link ClassLocalTransformer}s run.
+     */
+    private boolean parallelTransformers;
+
+    /**
+     * Should classes which didn't change be reused from the cache?
+     */
+    private boolean incremental;
+
+    /**
+     * Cache of obfuscated classes, null if not in incremental mode.
+     */
+    private IncrementalCache incrementalCache;
+
+    /**
+     * Output of the input classes which were reused from the cache.
+     */
+    private Map<String, byte[]> cachedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Compression level of classes in the output.
+     */
+    private int classCompression = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Compression level of rewritten resources in the output.
+     */
+    private int resourceCompression = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Seed the random streams are derived from, null if the run isn't
+     * seeded.
+     */
+    private Long seed;
+
+    /**
+     * Pool of worker threads.
      */
-    private List<String> logStrings;
+    private ForkJoinPool pool;
+
+    /**
+     * Log of the run, lines are written as they are added.
+     */
+    private LogFile logStrings;
 
     /**
      * Constructor used for CLI to create a {@link Bootstrap} object.
@@ -156,6 +363,34 @@ public class Bootstrap { // Eyyy bootstrap bill
         this.config = config;
     }
 
+    /**
+     * Constructor used by the {@link Daemon} to create a {@link Bootstrap}
+     * object which takes its libraries from the resident classpaths.
+     *
+     * @param config            {@link Config} object.
+     * @param residentLibraries the library classpaths kept open by the
+     *                          daemon.
+     */
+    Bootstrap(Config config, ResidentLibraries residentLibraries) {
+        this.config = config;
+        this.residentLibraries = residentLibraries;
+    }
+
+    /**
+     * Constructor used by {@link Batch} to create a {@link Bootstrap} object
+     * which uses a library classpath shared by every run of the batch.
+     *
+     * @param config          {@link Config} object.
+     * @param sharedLibraries the shared library classpath, it isn't closed
+     *                        by this run.
+     * @param logFile         the file to write the log to.
+     */
+    Bootstrap(Config config, LibraryClassPath sharedLibraries, File logFile) {
+        this.config = config;
+        this.sharedLibraries = sharedLibraries;
+        this.logFile = logFile;
+    }
+
     /**
      * Constructor used for MainGUI to create a {@link Bootstrap} object.
      *
@@ -194,6 +429,41 @@ public class Bootstrap { // Eyyy bootstrap bill
         this.dictionary = dictionary;
     }
 
+    /**
+     * Constructor used by {@link BootstrapBuilder} to create a
+     * {@link Bootstrap} object which obfuscates an input held in memory into
+     * memory. Nothing is printed and no log file is written.
+     *
+     * @param inputEntries supplies the entries of the input.
+     * @param providers    library classes, looked up in order.
+     * @param transformers transformers that will be run.
+     * @param exempts      exempt information.
+     * @param dictionary   dictionary type used for string generation.
+     * @param threads      number of worker threads.
+     * @param parallel     should the classes be spread over the worker
+     *                     threads while {@link ClassLocalTransformer}s run?
+     * @param seed         seed of the run, null if it isn't seeded.
+     * @param report       should a {@link RunReport} be made?
+     * @param logSink      receives the log messages of the run.
+     */
+    Bootstrap(Supplier<Map<String, byte[]>> inputEntries, List<ClassPathProvider> providers,
+              List<AbstractTransformer> transformers, List<String> exempts, int dictionary, int threads,
+              boolean parallel, Long seed, boolean report, Consumer<String> logSink) {
+        this.inputEntries = inputEntries;
+        this.providers = providers;
+        this.transformers = transformers;
+        this.exempts = exempts;
+        this.dictionary = dictionary;
+        this.threads = threads;
+        this.parallelTransformers = parallel;
+        this.seed = seed;
+        this.report = report ? new RunReport() : null;
+        this.logSink = logSink;
+        this.logFile = null;
+        this.trashClasses = -1;
+        this.outputEntries = new LinkedHashMap<>();
+    }
+
     /**
      * Actual obfuscation starts here.
      *
@@ -202,147 +472,548 @@ public class Bootstrap { // Eyyy bootstrap bill
      * @throws Throwable if any errors are thrown.
      */
     public void startTheParty(boolean doInit) throws Throwable {
+        boolean success = false;
+        Consumer<String> previousSink = (this.logSink != null) ? LoggerUtils.redirect(this.logSink) : null;
         try {
-            this.logStrings = new ArrayList<>();
+            this.logStrings = LoggerUtils.openLog(this.logFile);
             if (doInit) {
                 this.init();
                 this.logStrings.add(LoggerUtils.stdOut("Successfully parsed " +
                         "config"));
             } else {
-                if (output.exists()) {
+                if (output != null && output.exists()) {
                     logStrings.add(LoggerUtils.stdOut("Output already exists, renamed to "
                             + FileUtils.renameExistingFile(output)));
                 }
-                this.zos = new ZipOutputStream(new FileOutputStream(output));
             }
-            long currentTime = System.currentTimeMillis();
+            long currentTime = (this.seed != null) ? SEEDED_TIME : System.currentTimeMillis();
+            this.pool = this.newPool();
+            if (this.outputEntries == null) {
+                this.writer = new JarWriter(this.output, this.pool);
+            }
+            this.logStrings.add(LoggerUtils.stdOut("Using " + this.threads
+                    + " worker thread(s)"));
+            RunReport.Phase phase = this.beginPhase("loadClassPath");
             this.loadClassPath();
-            this.loadInput();
+            this.endPhase(phase);
+            if (this.streaming) {
+                phase = this.beginPhase("streamInput");
+                this.streamInput(currentTime);
+                this.endPhase(phase);
+            } else {
+                phase = this.beginPhase("loadInput");
+                this.loadInput();
+                this.endPhase(phase);
+                phase = this.beginPhase("createTrees");
+                this.createTrees();
+                this.endPhase(phase);
+                if (this.incremental) {
+                    phase = this.beginPhase("loadCachedClasses");
+                    this.loadCachedClasses();
+                    this.endPhase(phase);
+                }
 
-            for (AbstractTransformer transformer : this.transformers) {
-                transformer.init(this, this.exempts, this.dictionary);
-                transformer.obfuscate();
-                this.logStrings.addAll(transformer.getLogStrings());
+                this.runTransformers();
             }
 
+            phase = this.beginPhase("trashClasses");
             if (this.trashClasses != -1) {
                 this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-                for (int i = 0; i < this.trashClasses; i++) {
-                    TrashClasses trashClass =
-                            new TrashClasses(StringUtils.randomClassName(this.classes.keySet(), this.dictionary));
-                    ClassNode classNode = trashClass.returnTrashClass();
-                    this.extraClasses.put(classNode.name, classNode);
+                // Sorted so the picked packages don't depend on the order library classes were resolved in
+                List<String> classNames = new ArrayList<>(this.classPath.keySet());
+                Collections.sort(classNames);
+                Random previous = NumberUtils.enterStream(this.seed, TrashClasses.class.getName());
+                try {
+                    for (int i = 0; i < this.trashClasses; i++) {
+                        TrashClasses trashClass =
+                                new TrashClasses(StringUtils.randomClassName(classNames, this.dictionary));
+                        ClassNode classNode = trashClass.returnTrashClass();
+                        this.extraClasses.put(classNode.name, classNode);
+                    }
+                } finally {
+                    NumberUtils.exitStream(previous);
                 }
                 this.logStrings.add(LoggerUtils.stdOut("Generated "
                         + String.valueOf(this.trashClasses) + " trash classes"));
             }
+            this.endPhase(phase);
 
-            this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-            this.createTrees();
+            // Pick up classes the transformers generated
+            this.hierarchy.addMissing(this.classes.values());
 
+            phase = this.beginPhase("writeGeneratedClasses");
             if (this.extraClasses.values().size() != 0) {
                 this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
                 this.logStrings.add(LoggerUtils.stdOut("Writing generated classes to output"));
 
-                // Write the contents of extraClasses to zos
+                // Write the contents of extraClasses to the output
                 for (ClassNode classNode : this.extraClasses.values()) {
                     ClassWriter cw = new ClassWriter(0);
                     classNode.accept(cw);
-
-                    ZipEntry newEntry = new ZipEntry(classNode.name + ".class");
-                    newEntry.setTime(currentTime);
-                    newEntry.setCompressedSize(-1);
-                    this.zos.putNextEntry(newEntry);
-                    this.zos.write(cw.toByteArray());
-                    this.zos.closeEntry();
+                    this.writeEntry(classNode.name + ".class", cw.toByteArray(), currentTime,
+                            this.classCompression);
                 }
             }
+            this.endPhase(phase);
 
-            // Write the contents of classes to zos and recompute maxlocals, maxstack and stackframes
-            this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-            this.logStrings.add(LoggerUtils.stdOut("Writing classes to output"));
-            for (ClassNode classNode : this.classes.values()) {
-                ClassWriter cw;
-
-                if (classNode.version > Opcodes.V1_5) {
-                    cw = new CustomClassWriter(ClassWriter.COMPUTE_FRAMES);
-                } else {
-                    cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-                }
-
-                try {
-                    classNode.accept(cw);
-                    if (this.watermarkMsg != null) {
-                        if (this.watermarkType == 0
-                                && NumberUtils.getRandomInt(10) >= 5) {
-                            cw.newUTF8("WMID: "
-                                    + StringUtils.aesEncrypt(this.watermarkMsg, this.watermarkKey));
-
-                            this.logStrings.add(LoggerUtils.stdOut("Watermarking "
-                                    + this.watermarkMsg + " into " + classNode.name));
-                        } else if (this.watermarkType == 1
-                                && NumberUtils.getRandomInt(10) >= 5) {
-                            classNode.signature =
-                                    StringUtils.aesEncrypt("WMID: " + this.watermarkMsg,
-                                            this.watermarkKey);
-
-                            this.logStrings.add(LoggerUtils.stdOut("Watermarking "
-                                    + this.watermarkMsg + " into " + classNode.name));
-                        }
-                    }
-
-                    cw.newUTF8("RADON" + Radon.VERSION); // :D
-                } catch (Throwable t) {
-                    this.logStrings.add(LoggerUtils
-                            .stdOut("Error while writing "
-                                    + classNode.name + " -> " + t.getMessage()));
-                    throw t;
-                }
-
-                ZipEntry newEntry = new ZipEntry(classNode.name
-                        + ".class");
-                newEntry.setTime(currentTime);
-                newEntry.setCompressedSize(-1);
-                this.zos.putNextEntry(newEntry);
-                this.zos.write(cw.toByteArray());
-                this.zos.closeEntry();
-            }
+            if (!this.streaming) {
+                // Write the contents of classes to the output and recompute maxlocals, maxstack and stackframes
+                this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
+                this.logStrings.add(LoggerUtils.stdOut("Writing classes to output"));
+                phase = this.beginPhase("writeClasses");
+                this.writeClasses(currentTime);
+                this.endPhase(phase);
 
-            // Write resources to output
-            this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-            this.logStrings.add(LoggerUtils.stdOut("Writing resources to output"));
-            for (String name : this.passThru.keySet()) {
-                ZipEntry newEntry = new ZipEntry(name);
-                newEntry.setTime(currentTime);
-                this.zos.putNextEntry(newEntry);
-                this.zos.write(this.passThru.get(name));
-                this.zos.closeEntry();
+                // Write resources to output
+                this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
+                this.logStrings.add(LoggerUtils.stdOut("Writing resources to output"));
+                phase = this.beginPhase("writeResources");
+                this.writeResources(currentTime);
+                this.endPhase(phase);
             }
 
             this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-            if (this.zos != null) {
-                this.zos.setComment("Obfuscation by Radon obfuscator developed by ItzSomebody"); // Cause why not xD
-                this.zos.close();
+            if (this.writer != null) {
+                phase = this.beginPhase("closeOutput");
+                this.writer.setComment("Obfuscation by Radon obfuscator developed by ItzSomebody"); // Cause why not xD
+                this.writer.close();
+                this.endPhase(phase);
                 this.logStrings.add(LoggerUtils.stdOut("Finished processing file."));
             }
+            success = true;
         } catch (Throwable t) {
-            this.logStrings.add(LoggerUtils.stdOut("Error happened while processing: "
+            this.logStrings.add(LoggerUtils.error("Error happened while processing: "
                     + t.getMessage()));
 
-            if (zos != null) {
-                zos.close();
+            if (this.writer != null) {
+                // Never finish a half-written jar, and never lose the original error
+                try {
+                    this.writer.abort();
+                } catch (Throwable abortError) {
+                    this.logStrings.add(LoggerUtils.warn("Unable to close faulty output: "
+                            + abortError.getMessage()));
+                }
             }
-            if (this.output.delete()) {
+            if (this.outputEntries != null) {
+                this.outputEntries.clear();
+            } else if (this.output.delete()) {
                 this.logStrings.add(LoggerUtils.stdOut("Deleted output."));
             } else {
                 this.logStrings.add(LoggerUtils.stdOut("Unable to delete faulty output."));
             }
 
-            t.printStackTrace();
+            if (this.logSink == null) {
+                t.printStackTrace();
+            }
             throw new RuntimeException(t.getMessage());
         } finally {
-            this.logStrings.add(LoggerUtils.stdOut("Writing log."));
-            LoggerUtils.logWriter(this.logStrings);
+            if (this.report != null && this.reportFile != null) {
+                try {
+                    this.report.write(this.reportFile, this.input, this.output, this.threads, success);
+                    this.logStrings.add(LoggerUtils.stdOut("Wrote report to "
+                            + this.reportFile.getAbsolutePath()));
+                } catch (IOException ioe) {
+                    this.logStrings.add(LoggerUtils.warn("Unable to write report: " + ioe.getMessage()));
+                }
+            }
+            this.release();
+            if (this.logSink != null) {
+                LoggerUtils.restore(previousSink);
+            }
+        }
+    }
+
+    /**
+     * Runs every transformer over the loaded input classes. Consecutive
+     * {@link ClassLocalTransformer}s run together in one {@link FusedPass}.
+     */
+    void runTransformers() {
+        List<ClassLocalTransformer> classLocal = new ArrayList<>();
+        for (AbstractTransformer transformer : this.transformers) {
+            if (transformer instanceof ClassLocalTransformer) {
+                transformer.init(this, this.exempts, this.dictionary);
+                classLocal.add((ClassLocalTransformer) transformer);
+                continue;
+            }
+
+            this.runFused(classLocal);
+            transformer.init(this, this.exempts, this.dictionary);
+            RunReport.Phase phase = this.beginPhase(transformer.getClass().getSimpleName());
+            RunReport.Stats stats = transformer.getReportStats();
+            Map<MethodNode, Integer> counts = (stats != null) ? stats.snapshot(this.classes.values()) : null;
+            Random previous = NumberUtils.enterStream(this.seed, transformer.getClass().getName());
+            try {
+                transformer.obfuscate();
+            } finally {
+                NumberUtils.exitStream(previous);
+            }
+            if (stats != null) {
+                stats.recordGrowth(this.classes.values(), counts);
+            }
+            this.endPhase(phase);
+            this.logStrings.addAll(transformer.getLogStrings());
+        }
+        this.runFused(classLocal);
+    }
+
+    /**
+     * Runs the given {@link ClassLocalTransformer}s over the loaded input
+     * classes in one {@link FusedPass} and clears them. In parallel mode the
+     * classes are sharded over {@link Bootstrap#pool}. Anything shared by
+     * all classes, such as a generated source name, is picked in
+     * {@link ClassLocalTransformer#begin()} before the classes are
+     * transformed, and seeded runs draw from one stream per transformer and
+     * class, so the output doesn't depend on scheduling.
+     *
+     * @param transformers the transformers to run, in order.
+     * @throws RuntimeException if a class cannot be transformed.
+     */
+    private void runFused(List<ClassLocalTransformer> transformers) throws RuntimeException {
+        if (transformers.isEmpty())
+            return;
+
+        // Transformers sharing a walk over the methods can't be measured on their own
+        FusedPass pass = new FusedPass(new ArrayList<>(transformers), this.report == null);
+        transformers.clear();
+        RunReport.Phase phase = this.beginPhase(pass.getName());
+        pass.begin();
+        if (this.parallelTransformers && this.threads > 1) {
+            List<ClassNode> classNodes = new ArrayList<>(this.classes.values());
+            try {
+                this.pool.submit(() -> classNodes.parallelStream().forEach(pass::transform)).get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while running " + pass.getName());
+            } catch (ExecutionException ee) {
+                throw new RuntimeException("Error while running " + pass.getName() + " -> "
+                        + ee.getCause().getMessage(), ee.getCause());
+            }
+        } else {
+            this.classes.values().forEach(pass::transform);
+        }
+        pass.finish();
+        this.endPhase(phase);
+        pass.getTransformers().forEach(transformer -> this.logStrings.addAll(transformer.getLogStrings()));
+    }
+
+    /**
+     * Reads the config, loads the libraries and the input classes without
+     * building the class hierarchy or running any transformer. Lets the
+     * benchmarks set up the state of a run and measure its steps one by one,
+     * {@link Bootstrap#release()} has to be called afterwards.
+     *
+     * @throws RuntimeException if the config is invalid or the input or
+     *                          libraries cannot be read.
+     */
+    void prepare() throws RuntimeException {
+        this.logStrings = LoggerUtils.openLog(this.logFile);
+        this.init();
+        this.pool = this.newPool();
+        this.loadClassPath();
+        this.loadInput();
+    }
+
+    /**
+     * Shuts the worker threads down and closes the input, the libraries
+     * this run opened and the log.
+     */
+    void release() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+        if (this.libraries != null && this.residentLibraries == null && this.sharedLibraries == null) {
+            this.libraries.close();
+        }
+        if (this.inputJar != null) {
+            this.inputJar.close();
+        }
+        if (this.logStrings != null) {
+            this.logStrings.close();
+        }
+        if (this.logLevel != null) {
+            LoggerUtils.restoreLevel(this.previousLevel);
+        }
+    }
+
+    /**
+     * Returns the output entries of a run into memory.
+     *
+     * @return entry name -> data in output order, null if the output is
+     * written to a file.
+     */
+    public Map<String, byte[]> getOutputEntries() {
+        return this.outputEntries;
+    }
+
+    /**
+     * Creates the pool of worker threads. The workers log with the level of
+     * this run and, if the log is redirected, to the same sink as the thread
+     * which started the run. If a report is made, the calling thread and the
+     * workers are the threads it measures.
+     *
+     * @return the pool of worker threads.
+     */
+    private ForkJoinPool newPool() {
+        Consumer<String> sink = this.logSink;
+        LoggerUtils.Level level = this.logLevel;
+        RunReport report = this.report;
+        if (report != null) {
+            report.attach();
+        }
+        if (sink == null && level == null && report == null)
+            return new ForkJoinPool(this.threads);
+
+        return new ForkJoinPool(this.threads, pool -> new ForkJoinWorkerThread(pool) {
+            @Override
+            protected void onStart() {
+                super.onStart();
+                if (sink != null) {
+                    LoggerUtils.redirect(sink);
+                }
+                LoggerUtils.useLevel(level);
+                if (report != null) {
+                    report.attach();
+                }
+            }
+
+            @Override
+            protected void onTermination(Throwable exception) {
+                if (report != null) {
+                    report.detach();
+                }
+                super.onTermination(exception);
+            }
+        }, null, false);
+    }
+
+    /**
+     * Writes an entry to the output jar or into the output entries.
+     *
+     * @param name        the name of the entry.
+     * @param data        the data of the entry.
+     * @param currentTime time to set on the entry.
+     * @param level       compression level of the entry.
+     * @throws IOException if the entry cannot be written.
+     */
+    private void writeEntry(String name, byte[] data, long currentTime, int level) throws IOException {
+        if (this.outputEntries != null) {
+            this.outputEntries.put(name, data);
+        } else {
+            this.writer.writeEntry(name, data, currentTime, level);
+        }
+    }
+
+    /**
+     * Begins a phase of the run report.
+     *
+     * @param name the name of the phase.
+     * @return the phase or null if no report is made.
+     */
+    private RunReport.Phase beginPhase(String name) {
+        return (this.report != null) ? this.report.begin(name) : null;
+    }
+
+    /**
+     * Ends a phase of the run report.
+     *
+     * @param phase the phase from {@link Bootstrap#beginPhase(String)}, may
+     *              be null.
+     */
+    private void endPhase(RunReport.Phase phase) {
+        if (phase != null) {
+            this.report.end(phase);
+        }
+    }
+
+    /**
+     * Writes the input classes to {@link Bootstrap#writer} and recomputes
+     * maxlocals, maxstack and stackframes. Classes are serialized
+     * concurrently on {@link Bootstrap#pool} while this thread writes the
+     * finished classes to the output one after another, sorted by name.
+     * Classes reused from the cache are written as they were cached and
+     * newly serialized classes are stored in the cache.
+     *
+     * @param currentTime time to set on the written entries.
+     * @throws Throwable if a class cannot be serialized or written.
+     */
+    private void writeClasses(long currentTime) throws Throwable {
+        List<ClassNode> classNodes = new ArrayList<>(this.classes.values());
+        classNodes.sort(Comparator.comparing(classNode -> classNode.name));
+        List<String> cachedNames = new ArrayList<>(this.cachedClasses.keySet());
+        Collections.sort(cachedNames);
+
+        // Pick the watermarked classes up front so the output doesn't depend on scheduling
+        String[] watermarks = new String[classNodes.size()];
+        for (int i = 0; i < watermarks.length; i++) {
+            watermarks[i] = this.watermark(classNodes.get(i));
+        }
+
+        List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(classNodes.size());
+        for (int i = 0; i < classNodes.size(); i++) {
+            ClassNode classNode = classNodes.get(i);
+            String watermark = watermarks[i];
+            tasks.add(this.pool.submit(() -> {
+                byte[] bytes = this.writeClass(classNode, watermark);
+                if (this.incrementalCache != null) {
+                    this.incrementalCache.store(classNode.name, bytes);
+                }
+                return bytes;
+            }));
+        }
+
+        int cached = 0;
+        for (int i = 0; i < classNodes.size(); i++) {
+            ClassNode classNode = classNodes.get(i);
+            for (; cached < cachedNames.size() && cachedNames.get(cached).compareTo(classNode.name) < 0; cached++) {
+                String name = cachedNames.get(cached);
+                this.writeEntry(name + ".class", this.cachedClasses.get(name), currentTime,
+                        this.classCompression);
+            }
+
+            byte[] bytes;
+            try {
+                bytes = tasks.get(i).get();
+            } catch (ExecutionException ee) {
+                Throwable t = ee.getCause();
+                this.logStrings.add(LoggerUtils
+                        .error("Error while writing "
+                                + classNode.name + " -> " + t.getMessage()));
+                tasks.forEach(task -> task.cancel(false));
+                throw t;
+            }
+
+            this.writeEntry(classNode.name + ".class", bytes, currentTime, this.classCompression);
+        }
+        for (; cached < cachedNames.size(); cached++) {
+            String name = cachedNames.get(cached);
+            this.writeEntry(name + ".class", this.cachedClasses.get(name), currentTime,
+                    this.classCompression);
+        }
+    }
+
+    /**
+     * Writes the resources to {@link Bootstrap#writer} in archive order.
+     * Resources in {@link Bootstrap#passThru} are written from there, every
+     * other resource is copied from the input as it is stored.
+     *
+     * @param currentTime time to set on the written entries.
+     * @throws IOException if a resource cannot be copied or written.
+     */
+    private void writeResources(long currentTime) throws IOException {
+        Set<String> written = new HashSet<>();
+        for (JarReader.Entry zipEntry : this.resources) {
+            if (!written.add(zipEntry.getName()))
+                continue;
+
+            byte[] data = this.passThru.get(zipEntry.getName());
+            if (data != null) {
+                this.writeEntry(zipEntry.getName(), data, currentTime, this.resourceCompression);
+            } else {
+                this.writer.copyEntry(this.inputJar, zipEntry, currentTime);
+            }
+        }
+        for (String name : this.memoryResources) {
+            byte[] data = this.passThru.get(name);
+            if (data != null && written.add(name)) {
+                this.writeEntry(name, data, currentTime, this.resourceCompression);
+            }
+        }
+        for (Map.Entry<String, byte[]> resource : this.passThru.entrySet()) {
+            if (written.add(resource.getKey())) {
+                this.writeEntry(resource.getKey(), resource.getValue(), currentTime,
+                        this.resourceCompression);
+            }
+        }
+    }
+
+    /**
+     * Randomly decides if the given class gets watermarked. Signature
+     * watermarks are applied to the class right away.
+     *
+     * @param classNode the class which might get watermarked.
+     * @return the watermark to add to the constant pool of the class, null
+     * if none.
+     */
+    private String watermark(ClassNode classNode) {
+        String watermark = null;
+        if (this.watermarkMsg != null) {
+            boolean picked;
+            Random previous = NumberUtils.enterStream(this.seed, "Watermark", classNode.name);
+            try {
+                picked = NumberUtils.getRandomInt(10) >= 5;
+            } finally {
+                NumberUtils.exitStream(previous);
+            }
+
+            if (this.watermarkType == 0 && picked) {
+                watermark = "WMID: "
+                        + StringUtils.aesEncrypt(this.watermarkMsg, this.watermarkKey);
+
+                if (LoggerUtils.isEnabled(LoggerUtils.Level.DEBUG)) {
+                    this.logStrings.add(LoggerUtils.debug("Watermarking "
+                            + this.watermarkMsg + " into " + classNode.name));
+                }
+            } else if (this.watermarkType == 1 && picked) {
+                classNode.signature =
+                        StringUtils.aesEncrypt("WMID: " + this.watermarkMsg,
+                                this.watermarkKey);
+
+                if (LoggerUtils.isEnabled(LoggerUtils.Level.DEBUG)) {
+                    this.logStrings.add(LoggerUtils.debug("Watermarking "
+                            + this.watermarkMsg + " into " + classNode.name));
+                }
+            }
+        }
+        return watermark;
+    }
+
+    /**
+     * Serializes a single input class.
+     *
+     * @param classNode the class to serialize.
+     * @param watermark constant pool watermark to add, null if none.
+     * @return the serialized class.
+     */
+    private byte[] writeClass(ClassNode classNode, String watermark) {
+        RunReport.Stats stats = (this.report != null) ? this.report.stats("Writer") : null;
+        RunReport.ClassMeasurement measurement = (stats != null) ? stats.beginClass(classNode) : null;
+        this.validateCaches();
+        ClassWriter cw;
+
+        if (classNode.version > Opcodes.V1_5) {
+            cw = new CustomClassWriter(ClassWriter.COMPUTE_FRAMES);
+        } else {
+            cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        }
+
+        classNode.accept(cw);
+        if (watermark != null) {
+            cw.newUTF8(watermark);
+        }
+
+        cw.newUTF8("RADON" + Radon.VERSION); // :D
+        byte[] bytes = cw.toByteArray();
+        if (measurement != null) {
+            stats.endClass(measurement);
+        }
+        return bytes;
+    }
+
+    /**
+     * Clears the cached common super classes and ancestor chains if the
+     * hierarchy changed since they were computed.
+     */
+    private void validateCaches() {
+        long version = this.hierarchy.getVersion();
+        if (version == this.cacheVersion)
+            return;
+
+        synchronized (this) {
+            if (version != this.cacheVersion) {
+                this.commonSuperClasses.clear();
+                this.ancestorChains.clear();
+                this.cacheVersion = version;
+            }
         }
     }
 
@@ -423,14 +1094,55 @@ public class Bootstrap { // Eyyy bootstrap bill
             this.watermarkType = this.config.getWatermarkType();
             this.watermarkKey = this.config.getWatermarkKey();
             this.dictionary = this.config.getDictionaryType();
+            this.threads = this.config.getThreads();
+            this.cacheDirectory = this.config.getCacheDirectory();
+            this.streaming = this.config.getStreamingBool();
+            this.parallelTransformers = this.config.getParallelTransformersBool();
+            this.incremental = this.config.getIncrementalBool();
+            this.classCompression = this.config.getClassCompression();
+            this.resourceCompression = this.config.getResourceCompression();
+            // The level belongs to this run, a run without one logs at the default level
+            LoggerUtils.Level logLevel = this.config.getLogLevel();
+            this.logLevel = (logLevel != null) ? logLevel : LoggerUtils.Level.INFO;
+            this.previousLevel = LoggerUtils.useLevel(this.logLevel);
+            this.seed = this.config.getSeed();
+            this.reportFile = this.config.getReport();
+            this.report = (this.reportFile != null) ? new RunReport() : null;
             if (this.output.exists()) {
                 this.logStrings.add(LoggerUtils.stdOut("Output already exists, renamed to "
                         + FileUtils.renameExistingFile(this.output)));
             }
+            if (this.streaming) {
+                for (AbstractTransformer streamed : this.transformers) {
+                    if (!(streamed instanceof ClassLocalTransformer)) {
+                        throw new RuntimeException(streamed.getClass().getSimpleName()
+                                + " needs every class at once and is not compatible with streaming mode.");
+                    }
+                }
+            }
+            if (this.incremental) {
+                if (this.streaming) {
+                    throw new RuntimeException("Incremental mode is not compatible with streaming mode.");
+                }
+                if (this.cacheDirectory == null) {
+                    throw new RuntimeException("Incremental mode needs a CacheDirectory.");
+                }
+                for (AbstractTransformer cached : this.transformers) {
+                    if (!(cached instanceof ClassLocalTransformer)) {
+                        throw new RuntimeException(cached.getClass().getSimpleName()
+                                + " needs every class at once and is not compatible with incremental mode.");
+                    }
+                    if (this.seed == null && ((ClassLocalTransformer) cached).sharesRandomValues()) {
+                        // Reused classes would keep the value picked by the run which cached them
+                        throw new RuntimeException(cached.getClass().getSimpleName()
+                                + " picks one value for every class and needs a Seed in incremental mode.");
+                    }
+                }
+                this.incrementalCache = new IncrementalCache(this.cacheDirectory, this.fingerprint());
+            }
             if (this.trashClasses != 1 && this.config.getSpigotBool()) {
                 throw new RuntimeException("Trash classes are not compatible with Spigot's anti-piracy injection.");
             }
-            this.zos = new ZipOutputStream(new FileOutputStream(this.output));
         } catch (Throwable t) {
             t.printStackTrace();
             throw new RuntimeException("Error while loading config: "
@@ -439,129 +1151,304 @@ public class Bootstrap { // Eyyy bootstrap bill
     }
 
     /**
-     * Loads library classes into classpath.
+     * Indexes the library classes. Library classes are only parsed and put
+     * into the classpath once they are needed.
      *
      * @throws RuntimeException if library cannot be be opened as Zip or some
      *                          IOE happens.
      */
     private void loadClassPath() throws RuntimeException {
-        ZipFile zipFile;
-        Enumeration<? extends ZipEntry> entries;
-        ZipEntry zipEntry;
+        if (this.inputEntries != null) {
+            this.logStrings.add(LoggerUtils.stdOut("Using " + this.providers.size()
+                    + " library classpath(s)"));
+            return;
+        }
+
+        long current = System.currentTimeMillis();
         for (File lib : this.libs.values()) {
-            try {
-                this.logStrings.add(LoggerUtils.stdOut("Loading library "
-                        + lib.getAbsolutePath()));
-                zipFile = new ZipFile(lib);
-                entries = zipFile.entries();
-                while (entries.hasMoreElements()) {
-                    zipEntry = entries.nextElement();
-                    if (zipEntry.getName().endsWith(".class") && !zipEntry.isDirectory()) {
-                        ClassReader cr = new ClassReader(zipFile
-                                .getInputStream(zipEntry));
-                        ClassNode classNode = new ClassNode();
-                        classNode.libraryNode = true;
-
-                        // We don't need code in methods for libs
-                        cr.accept(classNode, ClassReader.SKIP_DEBUG |
-                                ClassReader.SKIP_FRAMES | ClassReader.SKIP_CODE);
-
-
-                        this.classPath.put(classNode.name, classNode);
-                    }
-                }
-                zipFile.close();
-            } catch (ZipException ze) {
-                throw new RuntimeException("There was an error opening "
-                        + lib.getAbsolutePath() + " as a zip!");
-            } catch (IOException ioe) {
-                throw new RuntimeException("Library " + lib.getAbsolutePath()
-                        + " does not exist!");
-            }
+            this.logStrings.add(LoggerUtils.stdOut("Loading library "
+                    + lib.getAbsolutePath()));
         }
+        if (this.sharedLibraries != null) {
+            this.libraries = this.sharedLibraries;
+        } else if (this.residentLibraries != null) {
+            this.libraries = this.residentLibraries.acquire(new ArrayList<>(this.libs.values()),
+                    this.cacheDirectory, this.pool);
+        } else {
+            LibraryCache cache = (this.cacheDirectory != null) ? new LibraryCache(this.cacheDirectory) : null;
+            this.libraries = new LibraryClassPath(new ArrayList<>(this.libs.values()), cache, this.pool);
+        }
+        this.logStrings.add(LoggerUtils.stdOut("Indexed " + this.libraries.size()
+                + " library classes. [" + (System.currentTimeMillis() - current) + "ms]"));
     }
 
     /**
-     * Loads input JAR classes and adds them to {@link Bootstrap#extraClasses}
-     * and {@link Bootstrap#classes}.
+     * Loads input JAR classes and adds them to {@link Bootstrap#classes}
+     * and {@link Bootstrap#passThru}.
      *
      * @throws RuntimeException if input cannot be be opened as Zip or some
      *                          IOE happens.
      */
     private void loadInput() throws RuntimeException {
-        ZipFile zipFile;
-        Enumeration<? extends ZipEntry> entries;
-        ZipEntry zipEntry;
-        try {
+        long current = System.currentTimeMillis();
+        if (this.inputEntries != null) {
+            this.logStrings.add(LoggerUtils.stdOut("Loading classes held in memory"));
+            new ParallelLoader(this.pool).loadInput(this.inputEntries.get(), this.classes, this.passThru,
+                    this.memoryResources);
+        } else {
             this.logStrings.add(LoggerUtils.stdOut("Loading classes of "
                     + this.input.getAbsolutePath()));
-            zipFile = new ZipFile(this.input);
-            entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                zipEntry = entries.nextElement();
-                if (!zipEntry.isDirectory()) {
-                    if (zipEntry.getName().endsWith(".class")) {
-                        ClassReader cr = new ClassReader(zipFile
-                                .getInputStream(zipEntry));
-                        ClassNode classNode = new ClassNode();
-                        classNode.libraryNode = false;
-
-                        // We will manually compute stack frames later
-                        cr.accept(classNode, ClassReader.SKIP_FRAMES);
-
-                        this.classes.put(classNode.name, classNode);
-                    } else {
-                        this.passThru.put(zipEntry.getName(), FileUtils.toByteArray(zipFile.getInputStream(zipEntry)));
-                    }
-                }
-            }
-            zipFile.close();
-        } catch (ZipException ze) {
-            throw new RuntimeException("There was an error opening "
-                    + this.input.getAbsolutePath() + " as a zip!");
-        } catch (IOException ioe) {
-            throw new RuntimeException("Input "
-                    + this.input.getAbsolutePath() + " does not exist!");
+            this.inputJar = ParallelLoader.openJar(this.input, "Input ");
+            new ParallelLoader(this.pool).loadInput(this.inputJar, this.classes, this.passThru,
+                    this.resources, REWRITTEN_RESOURCES,
+                    (this.incrementalCache != null) ? this.incrementalCache::record : null);
         }
+        this.logStrings.add(LoggerUtils.stdOut("Loaded " + this.classes.size()
+                + " classes and " + (this.resources.size() + this.memoryResources.size()) + " resources. ["
+                + (System.currentTimeMillis() - current) + "ms]"));
 
         this.classPath.putAll(this.classes);
+        this.resolveSuperClasses(this.classes.values());
+        this.logStrings.add(LoggerUtils.stdOut("Resolved " + this.libraryClasses.size()
+                + " library classes used by the input."));
     }
 
     /**
-     * Creates {@link ClassTree}s needed for renaming.
+     * Moves every input class whose output is in the incremental cache from
+     * {@link Bootstrap#classes} to {@link Bootstrap#cachedClasses}, so the
+     * transformers skip it. The class stays in the classpath and the class
+     * hierarchy.
+     *
+     * @throws RuntimeException if the cache cannot be read.
      */
-    private void createTrees() {
-        long executionTime = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("Creating class hierarchy."));
-        classPath.values().forEach(classNode -> {
-            classNode.methods.forEach(methodNode ->
-                methodNode.owner = classNode.name
-            );
-            classNode.fields.forEach(fieldNode ->
-                fieldNode.owner = classNode.name
-            );
-            ClassTree classTree = new ClassTree(classNode.name, classNode.libraryNode);
-            classTree.parentClasses.add(classNode.superName);
-            classTree.parentClasses.addAll(classNode.interfaces);
-            classes.values().forEach(anotherClass -> {
-                if (anotherClass.interfaces != null
-                        && anotherClass.interfaces.contains(classNode.name)) {
-                    classTree.subClasses.add(anotherClass.name);
+    private void loadCachedClasses() throws RuntimeException {
+        long current = System.currentTimeMillis();
+        List<String> names = new ArrayList<>(this.classes.keySet());
+        try {
+            this.pool.submit(() -> names.parallelStream().forEach(name -> {
+                byte[] bytes = this.incrementalCache.load(name, this::lookupTree);
+                if (bytes != null) {
+                    this.cachedClasses.put(name, bytes);
                 }
+            })).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while reading the incremental cache");
+        } catch (ExecutionException ee) {
+            throw new RuntimeException("Error while reading the incremental cache -> "
+                    + ee.getCause().getMessage());
+        }
+        this.cachedClasses.keySet().forEach(this.classes::remove);
+        this.logStrings.add(LoggerUtils.stdOut("Reused " + this.cachedClasses.size() + " of "
+                + names.size() + " classes from the incremental cache. ["
+                + (System.currentTimeMillis() - current) + "ms]"));
+    }
 
-                if (anotherClass.superName != null
-                        && anotherClass.superName.equals(classNode.name)) {
-                    classTree.subClasses.add(anotherClass.name);
+    /**
+     * Returns a description of everything besides the input and the class
+     * hierarchy which affects the output of a class.
+     *
+     * @return the fingerprint of this run.
+     */
+    private String fingerprint() {
+        StringBuilder sb = new StringBuilder("RADON").append(Radon.VERSION).append('\n');
+        for (AbstractTransformer transformer : this.transformers) {
+            sb.append(transformer.fingerprint()).append('\n');
+        }
+        sb.append(this.exempts).append('\n');
+        sb.append(this.dictionary).append('\n');
+        sb.append(this.watermarkMsg).append(' ').append(this.watermarkType).append(' ')
+                .append(this.watermarkKey).append('\n');
+        sb.append(this.seed).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Obfuscates the input one class at a time. Only the headers of the
+     * input classes are kept in {@link Bootstrap#classes} to build the class
+     * hierarchy. Every class is then read, transformed, written and released
+     * before the next one, and resources are copied straight to the output.
+     * Only {@link ClassLocalTransformer}s are supported.
+     *
+     * @param currentTime time to set on the written entries.
+     * @throws Throwable if the input cannot be read or a class cannot be
+     *                   transformed or written.
+     */
+    private void streamInput(long currentTime) throws Throwable {
+        long current = System.currentTimeMillis();
+        this.logStrings.add(LoggerUtils.stdOut("Streaming classes of "
+                + this.input.getAbsolutePath()));
+        JarReader jar = ParallelLoader.openJar(this.input, "Input ");
+        this.inputJar = jar;
+        List<JarReader.Entry> zipEntries = new ArrayList<>();
+        for (JarReader.Entry zipEntry : jar.getEntries()) {
+            if (!zipEntry.isDirectory()) {
+                zipEntries.add(zipEntry);
+            }
+        }
+
+        // Only the headers are needed for the hierarchy
+        for (JarReader.Entry zipEntry : zipEntries) {
+            if (zipEntry.getName().endsWith(".class")) {
+                ClassReader cr = new ClassReader(jar.read(zipEntry));
+                ClassNode header = new ClassNode();
+                header.name = cr.getClassName();
+                header.access = cr.getAccess();
+                header.superName = cr.getSuperName();
+                header.interfaces.addAll(Arrays.asList(cr.getInterfaces()));
+                this.classes.put(header.name, header);
+            }
+        }
+        this.classPath.putAll(this.classes);
+        this.resolveSuperClasses(this.classes.values());
+        this.logStrings.add(LoggerUtils.stdOut("Read " + this.classes.size()
+                + " class headers and resolved " + this.libraryClasses.size()
+                + " library classes. [" + (System.currentTimeMillis() - current) + "ms]"));
+        this.createTrees();
+
+        List<ClassLocalTransformer> transformers = new ArrayList<>();
+        for (AbstractTransformer transformer : this.transformers) {
+            transformer.init(this, this.exempts, this.dictionary);
+            transformers.add((ClassLocalTransformer) transformer);
+        }
+        FusedPass pass = new FusedPass(transformers, this.report == null);
+        pass.begin();
+
+        for (JarReader.Entry zipEntry : zipEntries) {
+            if (zipEntry.getName().endsWith(".class")) {
+                byte[] bytes = jar.read(zipEntry);
+                ClassNode classNode = new ClassNode();
+                classNode.libraryNode = false;
+
+                // We will manually compute stack frames later
+                new ClassReader(bytes).accept(classNode, ClassReader.SKIP_FRAMES);
+                try {
+                    pass.transform(classNode);
+                    bytes = this.writeClass(classNode, this.watermark(classNode));
+                } catch (Throwable t) {
+                    this.logStrings.add(LoggerUtils
+                            .error("Error while writing "
+                                    + classNode.name + " -> " + t.getMessage()));
+                    throw t;
                 }
-            });
 
-            classTree.methods.addAll(classNode.methods);
-            classTree.fields.addAll(classNode.fields);
-            hierarchy.put(classNode.name, classTree);
+                this.writer.writeEntry(classNode.name + ".class", bytes, currentTime, this.classCompression);
+            } else {
+                this.writer.copyEntry(jar, zipEntry, currentTime);
+            }
+        }
+
+        pass.finish();
+        for (ClassLocalTransformer transformer : transformers) {
+            this.logStrings.addAll(transformer.getLogStrings());
+        }
+    }
+
+    /**
+     * Puts every library class the given classes inherit from (directly or
+     * indirectly) into {@link Bootstrap#libraryClasses}.
+     *
+     * @param classNodes the classes to resolve the parents of.
+     */
+    private void resolveSuperClasses(Collection<ClassNode> classNodes) {
+        Deque<String> queue = new ArrayDeque<>();
+        classNodes.forEach(classNode -> {
+            queue.addAll(classNode.interfaces);
+            if (classNode.superName != null) {
+                queue.add(classNode.superName);
+            }
         });
+        while (!queue.isEmpty()) {
+            String parent = queue.poll();
+            if (!this.classPath.containsKey(parent)
+                    && !this.libraryClasses.containsKey(parent)) {
+                LibraryStub library = this.resolveLibrary(parent);
+                if (library != null) {
+                    this.libraryClasses.put(parent, library);
+                    queue.addAll(library.getInterfaces());
+                    if (library.getSuperName() != null) {
+                        queue.add(library.getSuperName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds {@link Bootstrap#hierarchy} from the input classes and the
+     * library classes they depend on.
+     */
+    void createTrees() {
+        long executionTime = System.currentTimeMillis();
+        this.logStrings.add(LoggerUtils.stdOut("Creating class hierarchy."));
+        this.hierarchy.build(this.classes.values(), this.libraryClasses.values());
         this.logStrings.add(LoggerUtils.stdOut("Finished creating class hierarchy. [" + (System.currentTimeMillis() - executionTime) + "ms]"));
     }
 
+    /**
+     * Returns the library class with the given name from
+     * {@link Bootstrap#libraryClasses}. Library classes which were not needed
+     * so far are looked up in {@link Bootstrap#libraries} and added.
+     *
+     * @param name the name of the class.
+     * @return the library class with the given name or null if it doesn't
+     * exist.
+     */
+    private LibraryStub lookupLibrary(String name) {
+        LibraryStub stub = this.libraryClasses.get(name);
+        if (stub == null) {
+            stub = this.resolveLibrary(name);
+            if (stub != null) {
+                this.libraryClasses.putIfAbsent(name, stub);
+            }
+        }
+        return stub;
+    }
+
+    /**
+     * Looks the library class with the given name up in
+     * {@link Bootstrap#libraries} or, if the libraries were given by
+     * embedding code, in {@link Bootstrap#providers}.
+     *
+     * @param name the name of the class.
+     * @return the library class with the given name or null if it doesn't
+     * exist.
+     */
+    private LibraryStub resolveLibrary(String name) {
+        if (this.libraries != null)
+            return this.libraries.resolve(name);
+
+        for (ClassPathProvider provider : this.providers) {
+            LibraryStub stub = provider.resolve(name);
+            if (stub != null)
+                return stub;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@link ClassTree} of the class with the given name,
+     * creating it if the class was not needed when the hierarchy was built.
+     *
+     * @param name the name of the class.
+     * @return the {@link ClassTree} of the class or null if it doesn't exist.
+     */
+    private ClassTree lookupTree(String name) {
+        ClassTree classTree = this.hierarchy.get(name);
+        if (classTree == null) {
+            ClassNode classNode = this.classPath.get(name);
+            if (classNode != null) {
+                classTree = this.hierarchy.add(classNode);
+            } else {
+                LibraryStub stub = this.lookupLibrary(name);
+                if (stub != null) {
+                    classTree = this.hierarchy.add(stub);
+                }
+            }
+        }
+        return classTree;
+    }
+
     /**
      * Returns the loaded input {@link ClassNode}s.
      *
@@ -580,6 +1467,63 @@ public class Bootstrap { // Eyyy bootstrap bill
         return this.classPath;
     }
 
+    /**
+     * Returns the performance report of this run.
+     *
+     * @return the report of this run, null if no report is made.
+     */
+    public RunReport getReport() {
+        return this.report;
+    }
+
+    /**
+     * Returns the seed the random streams are derived from.
+     *
+     * @return the seed of this run, null if the run isn't seeded.
+     */
+    public Long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the class hierarchy.
+     *
+     * @return the class hierarchy.
+     */
+    public ClassHierarchy getHierarchy() {
+        return this.hierarchy;
+    }
+
+    /**
+     * Returns the {@link SubtypeIndex} of the class hierarchy, building it
+     * again if the hierarchy changed since it was last built.
+     *
+     * @return the {@link SubtypeIndex} of the class hierarchy.
+     */
+    public SubtypeIndex getSubtypeIndex() {
+        SubtypeIndex index = this.subtypeIndex;
+        if (index != null && index.getVersion() == this.hierarchy.getVersion())
+            return index;
+
+        synchronized (this) {
+            index = this.subtypeIndex;
+            if (index == null || index.getVersion() != this.hierarchy.getVersion()) {
+                index = SubtypeIndex.build(this.hierarchy, this::lookupTree);
+                this.subtypeIndex = index;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Returns the library classes the input classes depend on.
+     *
+     * @return the library classes the input classes depend on.
+     */
+    public Map<String, LibraryStub> getLibraryClasses() {
+        return this.libraryClasses;
+    }
+
     /**
      * Returns the map of extra classes.
      *
@@ -605,7 +1549,7 @@ public class Bootstrap { // Eyyy bootstrap bill
      * @author ItzSomebody
      */
     class CustomClassWriter extends ClassWriter {
-        private CustomClassWriter(int flags) {
+        CustomClassWriter(int flags) {
             super(flags);
         }
 
@@ -617,6 +1561,24 @@ public class Bootstrap { // Eyyy bootstrap bill
                 return "java/lang/Object";
             }
 
+            Map<String, String> cached = commonSuperClasses.get(type1);
+            String common = (cached != null) ? cached.get(type2) : null;
+            if (common == null) {
+                common = computeCommonSuperClass(type1, type2);
+                commonSuperClasses.computeIfAbsent(type1, key -> new ConcurrentHashMap<>()).put(type2, common);
+            }
+            return common;
+        }
+
+        /**
+         * Computes the common superclass of two classes without looking at
+         * the cache.
+         *
+         * @param type1 first class name.
+         * @param type2 second class name.
+         * @return the common superclass.
+         */
+        String computeCommonSuperClass(String type1, String type2) {
             String first = deriveCommonSuperName(type1, type2);
             String second = deriveCommonSuperName(type2, type1);
             if (!first.equals("java/lang/Object")) {
@@ -626,7 +1588,7 @@ public class Bootstrap { // Eyyy bootstrap bill
                 return second;
             }
 
-            return getCommonSuperClass(returnClazz(type1).superName, returnClazz(type2).superName);
+            return getCommonSuperClass(superName(type1), superName(type2));
         }
 
         /**
@@ -637,38 +1599,58 @@ public class Bootstrap { // Eyyy bootstrap bill
          * @return the common superclass.
          */
         private String deriveCommonSuperName(String type1, String type2) {
-            ClassNode first = returnClazz(type1);
-            ClassNode second = returnClazz(type2);
-            if (isAssignableFrom(first, second)) {
+            if (isAssignableFrom(type1, type2)) {
                 return type1;
-            } else if (isAssignableFrom(first, second)) {
+            } else if (isAssignableFrom(type1, type2)) {
                 return type2;
-            } else if (Modifier.isInterface(first.access) || Modifier.isInterface(second.access)) {
+            } else if (Modifier.isInterface(access(type1)) || Modifier.isInterface(access(type2))) {
                 return "java/lang/Object";
             } else {
                 do {
-                    type1 = first.superName;
-                    first = returnClazz(type1);
-                } while (!isAssignableFrom(first, second));
+                    type1 = superName(type1);
+                } while (!isAssignableFrom(type1, type2));
                 return type1;
             }
         }
 
         /**
-         * Returns the {@link ClassNode} object from {@link Bootstrap#classPath}
-         * if it exists.
+         * Returns the access flags of the given class from
+         * {@link Bootstrap#classPath} or the library classes.
+         *
+         * @param ref class name to fetch the access flags of.
+         * @return the access flags of the class.
+         */
+        private int access(String ref) {
+            ClassNode clazz = classPath.get(ref);
+            return (clazz != null) ? clazz.access : returnLibrary(ref).getAccess();
+        }
+
+        /**
+         * Returns the super name of the given class from
+         * {@link Bootstrap#classPath} or the library classes.
          *
-         * @param ref class name to fetch from {@link Bootstrap#classPath}.
-         * @return the {@link ClassNode} object from {@link Bootstrap#classPath}
-         * if it exists.
+         * @param ref class name to fetch the super name of.
+         * @return the super name of the class.
          */
-        private ClassNode returnClazz(String ref) {
+        private String superName(String ref) {
             ClassNode clazz = classPath.get(ref);
-            if (clazz == null) {
+            return (clazz != null) ? clazz.superName : returnLibrary(ref).getSuperName();
+        }
+
+        /**
+         * Returns the {@link LibraryStub} of the given library class if it
+         * exists.
+         *
+         * @param ref class name to fetch from the library classes.
+         * @return the {@link LibraryStub} of the given library class.
+         */
+        private LibraryStub returnLibrary(String ref) {
+            LibraryStub stub = lookupLibrary(ref);
+            if (stub == null) {
                 throw new RuntimeException(ref
                         + " does not exist in classpath!");
             }
-            return clazz;
+            return stub;
         }
 
         /**
@@ -678,27 +1660,49 @@ public class Bootstrap { // Eyyy bootstrap bill
          * @param clazz2 class to check if assignable from clazz1.
          * @return true/false based on if clazz1 is the superclass of clazz2.
          */
-        private boolean isAssignableFrom(ClassNode clazz1, ClassNode clazz2) {
-            if (clazz1.name.equals("java/lang/Object")) {
+        private boolean isAssignableFrom(String clazz1, String clazz2) {
+            if (clazz1.equals("java/lang/Object")) {
                 return true;
             }
-            if (clazz1.name.equals(clazz2.name)) {
+            if (clazz1.equals(clazz2)) {
                 return true;
             }
-            ClassTree firstTree = hierarchy.get(clazz1.name);
-            if (firstTree == null) {
-                throw new RuntimeException("Could not find " + clazz1.name + " in the built class hiearchy");
+            SubtypeIndex index = getSubtypeIndex();
+            if (index.contains(clazz2)) {
+                return index.isAssignable(clazz1, clazz2);
             }
-            Set<String> children = new HashSet<>();
-            LinkedList<String> searchThese = new LinkedList<>(firstTree.subClasses);
+            return ancestors(clazz2).contains(clazz1);
+        }
+
+        /**
+         * Returns every class the given class is assignable to. Only used
+         * for classes which aren't in the {@link SubtypeIndex}, such as
+         * library classes no input class inherits.
+         *
+         * @param clazz class name to fetch the ancestors of.
+         * @return the ancestors of the class.
+         */
+        private Set<String> ancestors(String clazz) {
+            Set<String> ancestors = ancestorChains.get(clazz);
+            if (ancestors != null)
+                return ancestors;
+
+            ancestors = new HashSet<>();
+            Deque<String> searchThese = new ArrayDeque<>();
+            searchThese.add(clazz);
             while (!searchThese.isEmpty()) {
-                String s = searchThese.poll();
-                if (children.add(s)) {
-                    ClassTree tempTree = hierarchy.get(s);
-                    searchThese.addAll(tempTree.subClasses);
+                ClassTree tree = lookupTree(searchThese.poll());
+                if (tree == null)
+                    continue;
+
+                for (String parent : tree.parentClasses) {
+                    if (parent != null && ancestors.add(parent)) {
+                        searchThese.add(parent);
+                    }
                 }
             }
-            return children.contains(clazz2.name);
+            ancestorChains.putIfAbsent(clazz, ancestors);
+            return ancestors;
         }
     }
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import me.itzsomebody.radon.classpath.ClassPathProvider;
+import me.itzsomebody.radon.classpath.LibraryClassPath;
+import me.itzsomebody.radon.classpath.MemoryClassPath;
+import me.itzsomebody.radon.transformers.AbstractTransformer;
+
+/**
+ * Builds and runs an obfuscation of classes and resources held in memory,
+ * for tools which embed Radon instead of calling it with a config. The
+ * output is returned as entries in memory, no file is read or written and
+ * nothing is printed:
+ * <pre>
+ * Map&lt;String, byte[]&gt; output = new BootstrapBuilder()
+ *         .input(entries)
+ *         .library(new LibraryClassPath(Collections.singletonList(rtJar)))
+ *         .transformer(new NormalStringEncryption(false))
+ *         .seed(1L)
+ *         .obfuscate();
+ * </pre>
+ * <p>
+ * Log messages of the run go to the sink given with
+ * {@link BootstrapBuilder#log(Consumer)} and are dropped otherwise. They
+ * still have to pass the level set with
+ * {@link me.itzsomebody.radon.utils.LoggerUtils#setLevel}.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class BootstrapBuilder {
+    /**
+     * Supplies the entries of the input.
+     */
+    private Supplier<Map<String, byte[]>> input;
+
+    /**
+     * Library classes, looked up in order.
+     */
+    private List<ClassPathProvider> libraries = new ArrayList<>();
+
+    /**
+     * Transformers to run, in order.
+     */
+    private List<AbstractTransformer> transformers = new ArrayList<>();
+
+    /**
+     * Exempt information.
+     */
+    private List<String> exempts = new ArrayList<>();
+
+    /**
+     * Dictionary type to use.
+     */
+    private int dictionary;
+
+    /**
+     * Number of worker threads.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Should the classes be spread over the worker threads while
+     * class-local transformers run?
+     */
+    private boolean parallel;
+
+    /**
+     * Seed of the run, null if it isn't seeded.
+     */
+    private Long seed;
+
+    /**
+     * Should a {@link RunReport} be made?
+     */
+    private boolean report;
+
+    /**
+     * Receives the log messages of the run.
+     */
+    private Consumer<String> log = line -> {
+    };
+
+    /**
+     * Sets the input. The map is read once the run starts and isn't
+     * changed.
+     *
+     * @param entries entry name -> data, like the entries of a jar. Names
+     *                ending with .class are input classes, all others are
+     *                resources.
+     * @return this builder.
+     */
+    public BootstrapBuilder input(Map<String, byte[]> entries) {
+        return this.input(() -> entries);
+    }
+
+    /**
+     * Sets the input, supplied once the run starts.
+     *
+     * @param entries supplies entry name -> data, like the entries of a jar.
+     *                Names ending with .class are input classes, all others
+     *                are resources.
+     * @return this builder.
+     */
+    public BootstrapBuilder input(Supplier<Map<String, byte[]>> entries) {
+        this.input = entries;
+        return this;
+    }
+
+    /**
+     * Adds library classes, for example a {@link LibraryClassPath} which
+     * is kept open between runs or a {@link MemoryClassPath}. Libraries
+     * added first are looked up first. The libraries aren't closed by the
+     * run.
+     *
+     * @param library the library classes.
+     * @return this builder.
+     */
+    public BootstrapBuilder library(ClassPathProvider library) {
+        this.libraries.add(library);
+        return this;
+    }
+
+    /**
+     * Adds library classes held in memory.
+     *
+     * @param entries entry name -> data, like the entries of a jar.
+     * @return this builder.
+     */
+    public BootstrapBuilder library(Map<String, byte[]> entries) {
+        return this.library(new MemoryClassPath(entries));
+    }
+
+    /**
+     * Adds a transformer. Transformers run in the order they are added.
+     *
+     * @param transformer the transformer.
+     * @return this builder.
+     */
+    public BootstrapBuilder transformer(AbstractTransformer transformer) {
+        this.transformers.add(transformer);
+        return this;
+    }
+
+    /**
+     * Adds transformers. Transformers run in the order they are added.
+     *
+     * @param transformers the transformers.
+     * @return this builder.
+     */
+    public BootstrapBuilder transformers(Collection<? extends AbstractTransformer> transformers) {
+        this.transformers.addAll(transformers);
+        return this;
+    }
+
+    /**
+     * Adds exempts, written like the Exempts of a config.
+     *
+     * @param exempts the exempts.
+     * @return this builder.
+     */
+    public BootstrapBuilder exempts(Collection<String> exempts) {
+        this.exempts.addAll(exempts);
+        return this;
+    }
+
+    /**
+     * Sets the dictionary type used for generated names, like the
+     * Dictionary of a config.
+     *
+     * @param dictionary the dictionary type.
+     * @return this builder.
+     */
+    public BootstrapBuilder dictionary(int dictionary) {
+        this.dictionary = dictionary;
+        return this;
+    }
+
+    /**
+     * Sets the number of worker threads. Defaults to the number of
+     * processors.
+     *
+     * @param threads the number of worker threads.
+     * @return this builder.
+     * @throws IllegalArgumentException if threads isn't positive.
+     */
+    public BootstrapBuilder threads(int threads) throws IllegalArgumentException {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be at least 1");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Spreads the classes over the worker threads while class-local
+     * transformers run, like the ParallelTransformers of a config.
+     *
+     * @param parallel should the classes be spread over the worker threads?
+     * @return this builder.
+     */
+    public BootstrapBuilder parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Seeds the run, so the same input gives the same output.
+     *
+     * @param seed the seed or null to not seed the run.
+     * @return this builder.
+     */
+    public BootstrapBuilder seed(Long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Makes a {@link RunReport}, available through
+     * {@link Bootstrap#getReport()} of the built run.
+     *
+     * @param report should a {@link RunReport} be made?
+     * @return this builder.
+     */
+    public BootstrapBuilder report(boolean report) {
+        this.report = report;
+        return this;
+    }
+
+    /**
+     * Sets the sink which receives the formatted log messages of the run.
+     * It is called by the thread running the obfuscation and its worker
+     * threads.
+     *
+     * @param log the sink.
+     * @return this builder.
+     */
+    public BootstrapBuilder log(Consumer<String> log) {
+        this.log = log;
+        return this;
+    }
+
+    /**
+     * Builds the run. A built run can only be started once.
+     *
+     * @return the built {@link Bootstrap}.
+     * @throws IllegalStateException if no input was set.
+     */
+    public Bootstrap build() throws IllegalStateException {
+        if (this.input == null)
+            throw new IllegalStateException("No input set");
+
+        return new Bootstrap(this.input, new ArrayList<>(this.libraries), new ArrayList<>(this.transformers),
+                new ArrayList<>(this.exempts), this.dictionary, this.threads, this.parallel, this.seed, this.report,
+                this.log);
+    }
+
+    /**
+     * Builds and runs the obfuscation.
+     *
+     * @return entry name -> data of the output, classes first, then the
+     * resources in input order.
+     * @throws IllegalStateException if no input was set.
+     * @throws RuntimeException      if the obfuscation fails.
+     */
+    public Map<String, byte[]> obfuscate() throws RuntimeException {
+        Bootstrap bootstrap = this.build();
+        try {
+            bootstrap.startTheParty(false);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t.getMessage(), t);
+        }
+        return bootstrap.getOutputEntries();
+    }
+}
@@ -20,6 +20,8 @@ package me.itzsomebody.radon.internal;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import me.itzsomebody.radon.Radon;
 import me.itzsomebody.radon.config.Config;
@@ -52,7 +54,9 @@ public class CLI {
      * Parses {@link CLI#args}.
      */
     private void startTheParty() {
-        if (this.args.length == 1) {
+        if (this.args.length >= 2 && this.isBatch(this.args[0])) {
+            this.batch();
+        } else if (this.args.length == 1) {
             switch (this.args[0].toLowerCase()) {
                 case "--version":
                 case "-version":
@@ -65,6 +69,18 @@ public class CLI {
                 case "/help":
                     CLIMessages.helpMsg();
                     break;
+                case "--daemon":
+                case "-daemon":
+                case "daemon":
+                case "/daemon":
+                    this.daemon(Daemon.DEFAULT_PORT);
+                    break;
+                case "--stop":
+                case "-stop":
+                case "stop":
+                case "/stop":
+                    this.stop(Daemon.DEFAULT_PORT);
+                    break;
                 default:
                     CLIMessages.usageMsg();
             }
@@ -89,6 +105,36 @@ public class CLI {
                         t.printStackTrace();
                     }
                     break;
+                case "--daemon":
+                case "-daemon":
+                case "daemon":
+                case "/daemon":
+                    Integer daemonPort = this.parsePort(this.args[1]);
+                    if (daemonPort != null) {
+                        this.daemon(daemonPort);
+                    }
+                    break;
+                case "--submit":
+                case "-submit":
+                case "submit":
+                case "/submit":
+                    this.submit(new File(this.args[1]), Daemon.DEFAULT_PORT);
+                    break;
+                case "--benchmark":
+                case "-benchmark":
+                case "benchmark":
+                case "/benchmark":
+                    this.benchmark(new File(this.args[1]));
+                    break;
+                case "--stop":
+                case "-stop":
+                case "stop":
+                case "/stop":
+                    Integer stopPort = this.parsePort(this.args[1]);
+                    if (stopPort != null) {
+                        this.stop(stopPort);
+                    }
+                    break;
                 default:
                     CLIMessages.usageMsg();
                     break;
@@ -115,6 +161,15 @@ public class CLI {
                         t.printStackTrace();
                     }
                     break;
+                case "--submit":
+                case "-submit":
+                case "submit":
+                case "/submit":
+                    Integer submitPort = this.parsePort(this.args[2]);
+                    if (submitPort != null) {
+                        this.submit(new File(this.args[1]), submitPort);
+                    }
+                    break;
                 default:
                     CLIMessages.usageMsg();
                     break;
@@ -123,4 +178,145 @@ public class CLI {
             CLIMessages.usageMsg();
         }
     }
+
+    /**
+     * Returns true if the given argument is the batch command.
+     *
+     * @param arg the argument.
+     * @return true if the given argument is the batch command.
+     */
+    private boolean isBatch(String arg) {
+        switch (arg.toLowerCase()) {
+            case "--batch":
+            case "-batch":
+            case "batch":
+            case "/batch":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Runs every config and config directory given after the batch command,
+     * optionally preceded by --jobs and the number of configs to run at the
+     * same time. Exits with status 1 if a config failed.
+     */
+    private void batch() {
+        int jobs = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int first = 1;
+        if (this.args[1].equalsIgnoreCase("--jobs") || this.args[1].equalsIgnoreCase("-jobs")) {
+            if (this.args.length < 4) {
+                CLIMessages.usageMsg();
+                return;
+            }
+            try {
+                jobs = Integer.parseInt(this.args[2]);
+            } catch (NumberFormatException nfe) {
+                jobs = 0;
+            }
+            if (jobs < 1) {
+                LoggerUtils.stdOut("Invalid number of jobs " + this.args[2]);
+                return;
+            }
+            first = 3;
+        }
+
+        List<File> paths = new ArrayList<>();
+        for (int i = first; i < this.args.length; i++) {
+            paths.add(new File(this.args[i]));
+        }
+        try {
+            if (new Batch(paths, jobs).run() != 0) {
+                System.exit(1);
+            }
+        } catch (RuntimeException e) {
+            LoggerUtils.stdOut(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the throughput benchmark described by the given spec. Exits with
+     * status 1 if the spec is invalid or a run failed.
+     *
+     * @param spec the benchmark spec {@link File}.
+     */
+    private void benchmark(File spec) {
+        if (!spec.isFile()) {
+            LoggerUtils.stdOut("Benchmark spec not found");
+            System.exit(1);
+        }
+        try {
+            new ThroughputBenchmark(spec).run();
+        } catch (RuntimeException e) {
+            LoggerUtils.stdOut(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parses a port number.
+     *
+     * @param port the port as {@link String}.
+     * @return the port or null if it's not a valid port.
+     */
+    private Integer parsePort(String port) {
+        try {
+            int value = Integer.parseInt(port);
+            if (value > 0 && value <= 0xFFFF)
+                return value;
+        } catch (NumberFormatException ignored) {
+        }
+        LoggerUtils.stdOut("Invalid port " + port);
+        return null;
+    }
+
+    /**
+     * Runs a {@link Daemon} on the given port until it is stopped.
+     *
+     * @param port the port to listen on.
+     */
+    private void daemon(int port) {
+        try {
+            new Daemon(port).run();
+        } catch (IOException ioe) {
+            LoggerUtils.stdOut("Could not start daemon: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Submits a config to the {@link Daemon} on the given port. Exits with
+     * status 1 if the run failed.
+     *
+     * @param config the config {@link File}.
+     * @param port   the port the daemon listens on.
+     */
+    private void submit(File config, int port) {
+        if (!config.isFile()) {
+            LoggerUtils.stdOut("Config file not found");
+            System.exit(1);
+        }
+        try {
+            if (!new DaemonClient(port).submit(config)) {
+                System.exit(1);
+            }
+        } catch (IOException ioe) {
+            LoggerUtils.stdOut("Could not reach daemon: " + ioe.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Stops the {@link Daemon} on the given port.
+     *
+     * @param port the port the daemon listens on.
+     */
+    private void stop(int port) {
+        try {
+            new DaemonClient(port).stop();
+        } catch (IOException ioe) {
+            LoggerUtils.stdOut("Could not reach daemon: " + ioe.getMessage());
+        }
+    }
 }
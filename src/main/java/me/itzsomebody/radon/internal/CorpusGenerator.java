@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates synthetic input jars for the {@link ThroughputBenchmark}.
+ * <p>
+ * Every class has an int field, a constructor, a virtual {@code run(I)I}
+ * and a number of static {@code m<k>(I)I} methods. Classes extend the
+ * previous class until the hierarchy reaches the configured depth, then a
+ * new chain starts at {@link Object}. Method bodies are random blocks of
+ * integer arithmetic, small loops, string constants, calls into the
+ * runtime library and calls to methods of the same or earlier classes.
+ * The same seed always generates the same jar.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+class CorpusGenerator {
+    /**
+     * Number of classes put into one package.
+     */
+    private static final int CLASSES_PER_PACKAGE = 256;
+
+    /**
+     * Only classes this close to the calling class are called, so the call
+     * graph stays local like in real code.
+     */
+    private static final int CALL_WINDOW = 64;
+
+    /**
+     * Static runtime library methods returning an int. They take two ints,
+     * except for the varargs {@code Objects.hash} without descriptor.
+     */
+    private static final String[][] LIBRARY_METHODS = {
+            {"java/lang/Math", "max", "(II)I"},
+            {"java/lang/Math", "min", "(II)I"},
+            {"java/lang/Integer", "rotateLeft", "(II)I"},
+            {"java/lang/Integer", "rotateRight", "(II)I"},
+            {"java/lang/Integer", "compare", "(II)I"},
+            {"java/util/Objects", "hash", null}
+    };
+
+    /**
+     * Characters of the generated strings.
+     */
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+
+    /**
+     * Number of classes to generate.
+     */
+    private final int classes;
+
+    /**
+     * Number of static methods per class.
+     */
+    private final int methodsPerClass;
+
+    /**
+     * Approximate number of instructions per static method.
+     */
+    private final int methodSize;
+
+    /**
+     * Chance of a block being a string constant.
+     */
+    private final double stringDensity;
+
+    /**
+     * Maximum depth of the class hierarchy below {@link Object}.
+     */
+    private final int hierarchyDepth;
+
+    /**
+     * Chance of a block being a call into the runtime library.
+     */
+    private final double libraryReferences;
+
+    /**
+     * Seed of the generated jar.
+     */
+    private final long seed;
+
+    /**
+     * Creates a new {@link CorpusGenerator}.
+     *
+     * @param classes           number of classes to generate.
+     * @param methodsPerClass   number of static methods per class.
+     * @param methodSize        approximate number of instructions per
+     *                          static method.
+     * @param stringDensity     chance of a block being a string constant.
+     * @param hierarchyDepth    maximum depth of the class hierarchy.
+     * @param libraryReferences chance of a block being a call into the
+     *                          runtime library.
+     * @param seed              seed of the generated jar.
+     */
+    CorpusGenerator(int classes, int methodsPerClass, int methodSize, double stringDensity, int hierarchyDepth,
+                    double libraryReferences, long seed) {
+        this.classes = classes;
+        this.methodsPerClass = methodsPerClass;
+        this.methodSize = methodSize;
+        this.stringDensity = stringDensity;
+        this.hierarchyDepth = hierarchyDepth;
+        this.libraryReferences = libraryReferences;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the synthetic jar.
+     *
+     * @param jar the file to write to.
+     * @throws IOException if the jar cannot be written.
+     */
+    void write(File jar) throws IOException {
+        Random random = new Random(this.seed);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (int i = 0; i < this.classes; i++) {
+                out.putNextEntry(new JarEntry(className(i) + ".class"));
+                out.write(this.generateClass(i, random));
+                out.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Returns the internal name of a generated class.
+     *
+     * @param index the index of the class.
+     * @return the internal name of the class.
+     */
+    private static String className(int index) {
+        return "synthetic/p" + (index / CLASSES_PER_PACKAGE) + "/C" + index;
+    }
+
+    /**
+     * Generates a single class.
+     *
+     * @param index  the index of the class.
+     * @param random the random stream of the jar.
+     * @return the bytes of the class.
+     */
+    private byte[] generateClass(int index, Random random) {
+        String name = className(index);
+        String superName = (index % this.hierarchyDepth == 0) ? "java/lang/Object" : className(index - 1);
+        boolean hasParent = !superName.equals("java/lang/Object");
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // Generated code never merges two reference types
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        cw.visitField(Opcodes.ACC_PROTECTED, "state", "I", null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "run", "(I)I", null, null);
+        mv.visitCode();
+        if (hasParent) {
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "run", "(I)I", false);
+            mv.visitVarInsn(Opcodes.ISTORE, 1);
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, name, "m0", "(I)I", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, "state", "I");
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, name, "state", "I");
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, "state", "I");
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        for (int k = 0; k < this.methodsPerClass; k++) {
+            mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m" + k, "(I)I", null, null);
+            mv.visitCode();
+            this.generateBody(mv, index, k, random);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Generates the body of a static method. Local 0 is the argument,
+     * local 1 the accumulated result and local 2 the loop counter.
+     *
+     * @param mv     the method to generate into.
+     * @param index  the index of the class.
+     * @param method the index of the method.
+     * @param random the random stream of the jar.
+     */
+    private void generateBody(MethodVisitor mv, int index, int method, Random random) {
+        mv.visitVarInsn(Opcodes.ILOAD, 0);
+        mv.visitVarInsn(Opcodes.ISTORE, 1);
+
+        int size = 2;
+        while (size < this.methodSize) {
+            double block = random.nextDouble();
+            if (block < this.stringDensity) {
+                size += this.stringBlock(mv, random);
+            } else if (block < this.stringDensity + this.libraryReferences) {
+                size += this.libraryBlock(mv, random);
+            } else {
+                int kind = random.nextInt(10);
+                if (kind < 2) {
+                    size += this.callBlock(mv, index, method, random);
+                } else if (kind < 3) {
+                    size += this.loopBlock(mv, random);
+                } else {
+                    size += this.arithmeticBlock(mv, random);
+                }
+            }
+        }
+
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitInsn(Opcodes.IRETURN);
+    }
+
+    /**
+     * Combines the result with a random constant.
+     *
+     * @param mv     the method to generate into.
+     * @param random the random stream of the jar.
+     * @return the number of generated instructions.
+     */
+    private int arithmeticBlock(MethodVisitor mv, Random random) {
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitLdcInsn(random.nextInt());
+        switch (random.nextInt(4)) {
+            case 0:
+                mv.visitInsn(Opcodes.IADD);
+                break;
+            case 1:
+                mv.visitInsn(Opcodes.IMUL);
+                break;
+            case 2:
+                mv.visitInsn(Opcodes.IXOR);
+                break;
+            default:
+                mv.visitInsn(Opcodes.ISUB);
+                break;
+        }
+        mv.visitVarInsn(Opcodes.ISTORE, 1);
+        return 4;
+    }
+
+    /**
+     * Adds the hash of a random string to the result.
+     *
+     * @param mv     the method to generate into.
+     * @param random the random stream of the jar.
+     * @return the number of generated instructions.
+     */
+    private int stringBlock(MethodVisitor mv, Random random) {
+        char[] chars = new char[8 + random.nextInt(24)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        mv.visitLdcInsn(new String(chars));
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitVarInsn(Opcodes.ISTORE, 1);
+        return 5;
+    }
+
+    /**
+     * Combines the result and the argument through a runtime library
+     * method.
+     *
+     * @param mv     the method to generate into.
+     * @param random the random stream of the jar.
+     * @return the number of generated instructions.
+     */
+    private int libraryBlock(MethodVisitor mv, Random random) {
+        String[] target = LIBRARY_METHODS[random.nextInt(LIBRARY_METHODS.length)];
+        if (target[2] == null) {
+            // Objects.hash(Object[]) boxes both ints into a new array
+            mv.visitInsn(Opcodes.ICONST_2);
+            mv.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
+            for (int i = 0; i < 2; i++) {
+                mv.visitInsn(Opcodes.DUP);
+                mv.visitInsn(Opcodes.ICONST_0 + i);
+                mv.visitVarInsn(Opcodes.ILOAD, i);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Integer", "valueOf",
+                        "(I)Ljava/lang/Integer;", false);
+                mv.visitInsn(Opcodes.AASTORE);
+            }
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, target[0], target[1], "([Ljava/lang/Object;)I", false);
+            mv.visitVarInsn(Opcodes.ISTORE, 1);
+            return 14;
+        }
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitVarInsn(Opcodes.ILOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, target[0], target[1], target[2], false);
+        mv.visitVarInsn(Opcodes.ISTORE, 1);
+        return 4;
+    }
+
+    /**
+     * Adds a random constant to the result a few times in a loop.
+     *
+     * @param mv     the method to generate into.
+     * @param random the random stream of the jar.
+     * @return the number of generated instructions.
+     */
+    private int loopBlock(MethodVisitor mv, Random random) {
+        Label loop = new Label();
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitVarInsn(Opcodes.ISTORE, 2);
+        mv.visitLabel(loop);
+        mv.visitIincInsn(1, 1 + random.nextInt(127));
+        mv.visitIincInsn(2, 1);
+        mv.visitVarInsn(Opcodes.ILOAD, 2);
+        mv.visitIntInsn(Opcodes.BIPUSH, 2 + random.nextInt(14));
+        mv.visitJumpInsn(Opcodes.IF_ICMPLT, loop);
+        return 7;
+    }
+
+    /**
+     * Passes the result to a later method of the same class or to a method
+     * of an earlier class. Calls never go back to a method which already
+     * is on the stack, so the generated code always terminates.
+     *
+     * @param mv     the method to generate into.
+     * @param index  the index of the class.
+     * @param method the index of the method.
+     * @param random the random stream of the jar.
+     * @return the number of generated instructions.
+     */
+    private int callBlock(MethodVisitor mv, int index, int method, Random random) {
+        boolean local = (method + 1 < this.methodsPerClass) && (index == 0 || random.nextBoolean());
+        if (!local && index == 0)
+            return this.arithmeticBlock(mv, random);
+
+        String owner;
+        int target;
+        if (local) {
+            owner = className(index);
+            target = method + 1 + random.nextInt(this.methodsPerClass - method - 1);
+        } else {
+            owner = className(Math.max(0, index - 1 - random.nextInt(CALL_WINDOW)));
+            target = random.nextInt(this.methodsPerClass);
+        }
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "m" + target, "(I)I", false);
+        mv.visitVarInsn(Opcodes.ISTORE, 1);
+        return 3;
+    }
+}
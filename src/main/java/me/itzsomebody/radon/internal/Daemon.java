@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import me.itzsomebody.radon.config.Config;
+import me.itzsomebody.radon.utils.LoggerUtils;
+
+/**
+ * Long-lived obfuscation server. Configs are submitted by the
+ * {@link DaemonClient} over a socket bound to the loopback address, the log
+ * of the run is streamed back while it runs and the result is sent last.
+ * <p>
+ * Runs are executed one after another, every run uses all of its worker
+ * threads anyway. Library classpaths stay open between runs in
+ * {@link ResidentLibraries}, so runs with the same libraries only parse the
+ * library classes nobody looked up before, on an already warmed up JVM.
+ * Paths in submitted configs are resolved against the working directory
+ * of the daemon.
+ * </p>
+ * <p>
+ * Every request starts with a random token the daemon writes to a file
+ * only its owner can read, see {@link Daemon#tokenFile(int)}, so other
+ * users can't submit configs or stop the daemon.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class Daemon {
+    /**
+     * Port used if none is given.
+     */
+    public static final int DEFAULT_PORT = 9725;
+
+    /**
+     * Request to obfuscate, followed by the config.
+     */
+    static final byte RUN = 1;
+
+    /**
+     * Request to shut the daemon down.
+     */
+    static final byte STOP = 2;
+
+    /**
+     * Response with a line of the log.
+     */
+    static final byte LOG = 3;
+
+    /**
+     * Last response, followed by true if the request succeeded and a
+     * message.
+     */
+    static final byte RESULT = 4;
+
+    /**
+     * Largest config or message accepted, in bytes.
+     */
+    static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Time a client has to send its request, in milliseconds.
+     */
+    private static final int REQUEST_TIMEOUT = 10000;
+
+    /**
+     * Port to listen on.
+     */
+    private int port;
+
+    /**
+     * Library classpaths kept open between runs.
+     */
+    private ResidentLibraries libraries = new ResidentLibraries();
+
+    /**
+     * Indication to keep accepting requests.
+     */
+    private boolean running = true;
+
+    /**
+     * Token clients have to send with every request.
+     */
+    private byte[] token;
+
+    /**
+     * Creates a new {@link Daemon}.
+     *
+     * @param port the port to listen on.
+     */
+    public Daemon(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Accepts and runs requests until a stop request arrives.
+     *
+     * @throws IOException if the port cannot be bound.
+     */
+    public void run() throws IOException {
+        File tokenFile = tokenFile(this.port);
+        try (ServerSocket server = new ServerSocket(this.port, 50, InetAddress.getLoopbackAddress())) {
+            this.writeToken(tokenFile);
+            LoggerUtils.stdOut("Daemon listening on " + server.getLocalSocketAddress());
+            while (this.running) {
+                try (Socket socket = server.accept()) {
+                    this.handle(socket);
+                } catch (IOException ioe) {
+                    LoggerUtils.stdOut("Lost connection to client: " + ioe.getMessage());
+                } catch (RuntimeException re) {
+                    LoggerUtils.error("Error while handling request: " + re.getMessage());
+                }
+            }
+        } finally {
+            this.libraries.close();
+            if (this.token != null) {
+                Files.deleteIfExists(tokenFile.toPath());
+            }
+        }
+        LoggerUtils.stdOut("Daemon stopped.");
+    }
+
+    /**
+     * Handles a single request.
+     *
+     * @param socket the connection to the client.
+     * @throws IOException if the connection fails.
+     */
+    private void handle(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        byte request;
+        byte[] config = null;
+        try {
+            // Don't let a client which never finishes its request block everyone else
+            socket.setSoTimeout(REQUEST_TIMEOUT);
+            if (!MessageDigest.isEqual(readBytes(in, 0), this.token)) {
+                this.respond(out, false, "Invalid daemon token.");
+                return;
+            }
+            request = in.readByte();
+            if (request == RUN) {
+                config = readBytes(in, 1);
+            }
+            socket.setSoTimeout(0);
+        } catch (IOException | RuntimeException e) {
+            this.respond(out, false, "Invalid request: " + e.getMessage());
+            return;
+        }
+
+        switch (request) {
+            case RUN:
+                this.runConfig(config, out);
+                break;
+            case STOP:
+                this.running = false;
+                this.respond(out, true, "Daemon stopping.");
+                break;
+            default:
+                this.respond(out, false, "Unknown request " + request);
+                break;
+        }
+    }
+
+    /**
+     * Obfuscates with the given config while streaming the log to the
+     * client. The run continues if the client goes away.
+     *
+     * @param config the bytes of the config.
+     * @param out    the stream to the client.
+     * @throws IOException if the result cannot be sent.
+     */
+    private void runConfig(byte[] config, DataOutputStream out) throws IOException {
+        boolean[] connected = {true};
+        LoggerUtils.setListener(line -> {
+            synchronized (out) {
+                if (!connected[0])
+                    return;
+                try {
+                    out.writeByte(LOG);
+                    writeString(out, line);
+                    out.flush();
+                } catch (IOException ioe) {
+                    connected[0] = false;
+                }
+            }
+        });
+
+        boolean success;
+        String message;
+        long current = System.currentTimeMillis();
+        try {
+            new Bootstrap(new Config(new ByteArrayInputStream(config)), this.libraries).startTheParty(true);
+            success = true;
+            message = "Finished. [" + (System.currentTimeMillis() - current) + "ms]";
+        } catch (Throwable t) {
+            success = false;
+            message = "Failed: " + t.getMessage();
+        } finally {
+            LoggerUtils.flush();
+            LoggerUtils.setListener(null);
+        }
+        synchronized (out) {
+            this.respond(out, success, message);
+        }
+    }
+
+    /**
+     * Sends the result of a request.
+     *
+     * @param out     the stream to the client.
+     * @param success true if the request succeeded.
+     * @param message the message to show.
+     * @throws IOException if the result cannot be sent.
+     */
+    private void respond(DataOutputStream out, boolean success, String message) throws IOException {
+        LoggerUtils.stdOut(message);
+        out.writeByte(RESULT);
+        out.writeBoolean(success);
+        writeString(out, message);
+        out.flush();
+    }
+
+    /**
+     * Writes a new random token to the given file, which only the owner of
+     * the daemon may read.
+     *
+     * @param file the token file.
+     * @throws IOException if the token cannot be written.
+     */
+    private void writeToken(File file) throws IOException {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : random) {
+            sb.append(String.format("%02x", b));
+        }
+        byte[] token = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        Path path = file.toPath();
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+            if (!file.setReadable(false, false) || !file.setReadable(true, true))
+                throw new IOException("Could not restrict access to " + file.getAbsolutePath());
+        }
+        Files.write(path, token);
+        this.token = token;
+    }
+
+    /**
+     * Returns the file the daemon on the given port keeps its token in.
+     *
+     * @param port the port of the daemon.
+     * @return the token file.
+     */
+    static File tokenFile(int port) {
+        return new File(System.getProperty("user.home"), ".radon-daemon-" + port + ".token");
+    }
+
+    /**
+     * Reads a length-prefixed array of bytes.
+     *
+     * @param in        the stream to read from.
+     * @param minLength smallest length accepted.
+     * @return the read bytes.
+     * @throws IOException if the bytes cannot be read or the length is not
+     *                     between minLength and {@link Daemon#MAX_LENGTH}.
+     */
+    static byte[] readBytes(DataInputStream in, int minLength) throws IOException {
+        int length = in.readInt();
+        if (length < minLength || length > MAX_LENGTH)
+            throw new IOException("Invalid length " + length);
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 {@link String}.
+     *
+     * @param out    the stream to write to.
+     * @param string the {@link String} to write.
+     * @throws IOException if the string cannot be written.
+     */
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a {@link String} written by
+     * {@link Daemon#writeString(DataOutputStream, String)}.
+     *
+     * @param in the stream to read from.
+     * @return the read {@link String}.
+     * @throws IOException if the string cannot be read.
+     */
+    static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in, 0), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+
+/**
+ * Thin client which submits requests to a running {@link Daemon} and
+ * prints the log it streams back. Requests are sent with the token the
+ * daemon wrote to {@link Daemon#tokenFile(int)}.
+ *
+ * @author ItzSomebody
+ */
+public class DaemonClient {
+    /**
+     * Port the daemon listens on.
+     */
+    private int port;
+
+    /**
+     * Creates a new {@link DaemonClient}.
+     *
+     * @param port the port the daemon listens on.
+     */
+    public DaemonClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Submits a config to the daemon and prints the log of the run.
+     *
+     * @param config the config {@link File}.
+     * @return true if the run succeeded.
+     * @throws IOException if the config cannot be read or the daemon cannot
+     *                     be reached.
+     */
+    public boolean submit(File config) throws IOException {
+        byte[] bytes = Files.readAllBytes(config.toPath());
+        return this.request(out -> {
+            out.writeByte(Daemon.RUN);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        });
+    }
+
+    /**
+     * Asks the daemon to shut down.
+     *
+     * @return true if the daemon is stopping.
+     * @throws IOException if the daemon cannot be reached.
+     */
+    public boolean stop() throws IOException {
+        return this.request(out -> out.writeByte(Daemon.STOP));
+    }
+
+    /**
+     * Sends a request and prints the responses until the result arrives.
+     *
+     * @param request writes the request.
+     * @return true if the request succeeded.
+     * @throws IOException if the daemon cannot be reached.
+     */
+    private boolean request(Request request) throws IOException {
+        File tokenFile = Daemon.tokenFile(this.port);
+        if (!tokenFile.isFile())
+            throw new IOException("No daemon token at " + tokenFile.getAbsolutePath());
+        byte[] token = Files.readAllBytes(tokenFile.toPath());
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out.writeInt(token.length);
+            out.write(token);
+            request.write(out);
+            out.flush();
+
+            while (true) {
+                byte response = in.readByte();
+                if (response == Daemon.LOG) {
+                    System.out.println(Daemon.readString(in));
+                } else if (response == Daemon.RESULT) {
+                    boolean success = in.readBoolean();
+                    System.out.println(Daemon.readString(in));
+                    return success;
+                } else {
+                    throw new IOException("Unknown response " + response);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a request to the daemon.
+     */
+    private interface Request {
+        /**
+         * Writes the request.
+         *
+         * @param out the stream to the daemon.
+         * @throws IOException if the request cannot be written.
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import me.itzsomebody.radon.transformers.renamer.ClassTree;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Content-addressed on-disk cache of obfuscated classes, used by the
+ * incremental mode.
+ * <p>
+ * The output of a class is stored under a key which covers the bytes of the
+ * input class, the hierarchy slice the class depends on (the super classes,
+ * interfaces and access flags of every class it references, which decide
+ * the computed stack frames) and the fingerprint of the run (Radon version,
+ * transformers and their settings, exempts, dictionary and watermark). A
+ * class is transformed again as soon as any of them changes, every other
+ * class is copied from the cache.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+class IncrementalCache {
+    /**
+     * Directory the classes are stored in.
+     */
+    private File directory;
+
+    /**
+     * SHA-1 hash of the fingerprint of the run.
+     */
+    private byte[] fingerprint;
+
+    /**
+     * Class name -> SHA-1 hash of the input class.
+     */
+    private Map<String, byte[]> digests = new ConcurrentHashMap<>();
+
+    /**
+     * Class name -> names of the classes it references.
+     */
+    private Map<String, Set<String>> references = new ConcurrentHashMap<>();
+
+    /**
+     * Class name -> key of the class in this run.
+     */
+    private Map<String, String> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new {@link IncrementalCache}.
+     *
+     * @param directory   the cache directory, classes are stored in its
+     *                    classes subdirectory.
+     * @param fingerprint the fingerprint of the run.
+     */
+    IncrementalCache(File directory, String fingerprint) {
+        this.directory = new File(directory, "classes");
+        this.fingerprint = sha1(fingerprint.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records the hash and references of an input class as it is loaded.
+     * Safe to call on multiple threads at once.
+     *
+     * @param classNode the loaded class.
+     * @param reader    the {@link ClassReader} the class was read with.
+     */
+    void record(ClassNode classNode, ClassReader reader) {
+        this.digests.put(classNode.name, sha1(reader.b));
+
+        Set<String> names = new HashSet<>();
+        char[] buffer = new char[reader.getMaxStringLength()];
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            if (offset == 0)
+                continue; // Second slot of a long or double.
+
+            switch (reader.b[offset - 1]) {
+                case 7: // Class
+                    addTypes(names, reader.readUTF8(offset, buffer));
+                    break;
+                case 12: // NameAndType
+                    addTypes(names, reader.readUTF8(offset + 2, buffer));
+                    break;
+                case 16: // MethodType
+                    addTypes(names, reader.readUTF8(offset, buffer));
+                    break;
+                default:
+                    break;
+            }
+        }
+        for (FieldNode fieldNode : classNode.fields) {
+            addTypes(names, fieldNode.desc);
+        }
+        for (MethodNode methodNode : classNode.methods) {
+            addTypes(names, methodNode.desc);
+        }
+        this.references.put(classNode.name, names);
+    }
+
+    /**
+     * Computes the key of a class and returns its cached output.
+     *
+     * @param name     the name of the class.
+     * @param resolver looks up the {@link ClassTree} of a class.
+     * @return the cached output or null if the class has to be transformed.
+     */
+    byte[] load(String name, Function<String, ClassTree> resolver) {
+        byte[] digest = this.digests.get(name);
+        if (digest == null)
+            return null;
+
+        String key = this.key(name, digest, resolver);
+        this.keys.put(name, key);
+        File file = this.file(key);
+        if (!file.isFile())
+            return null;
+
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the output of a class. Classes which weren't looked up with
+     * {@link IncrementalCache#load(String, Function)} are ignored. The
+     * output is written to a temporary file first and then moved in place.
+     *
+     * @param name  the name of the class.
+     * @param bytes the output of the class.
+     * @throws RuntimeException if the output can't be stored.
+     */
+    void store(String name, byte[] bytes) throws RuntimeException {
+        String key = this.keys.get(name);
+        if (key == null)
+            return;
+
+        File file = this.file(key);
+        File temp = new File(file.getAbsolutePath() + "." + Thread.currentThread().getId() + ".tmp");
+        file.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(bytes);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not write " + temp.getAbsolutePath() + ": " + ioe.getMessage());
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            if (!file.isFile())
+                throw new RuntimeException("Could not move " + temp.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Computes the key of a class.
+     *
+     * @param name     the name of the class.
+     * @param digest   the SHA-1 hash of the input class.
+     * @param resolver looks up the {@link ClassTree} of a class.
+     * @return the key of the class.
+     */
+    private String key(String name, byte[] digest, Function<String, ClassTree> resolver) {
+        Set<String> slice = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>(this.references.getOrDefault(name, Collections.emptySet()));
+        queue.add(name);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (!visited.add(current))
+                continue;
+
+            ClassTree tree = resolver.apply(current);
+            if (tree == null) {
+                slice.add(current + " ?");
+                continue;
+            }
+
+            int access;
+            String superName;
+            List<String> interfaces;
+            if (tree.classNode != null) {
+                access = tree.classNode.access;
+                superName = tree.classNode.superName;
+                interfaces = tree.classNode.interfaces;
+            } else {
+                access = tree.libraryStub.getAccess();
+                superName = tree.libraryStub.getSuperName();
+                interfaces = tree.libraryStub.getInterfaces();
+            }
+            slice.add(current + " " + access + " " + superName + " " + interfaces);
+            if (superName != null) {
+                queue.add(superName);
+            }
+            queue.addAll(interfaces);
+        }
+
+        List<String> sorted = new ArrayList<>(slice);
+        Collections.sort(sorted);
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            md.update(this.fingerprint);
+            md.update(digest);
+            for (String line : sorted) {
+                md.update(line.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) '\n');
+            }
+            return hex(md.digest());
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    /**
+     * Returns the file the output with the given key is stored in.
+     *
+     * @param key the key.
+     * @return the file of the key.
+     */
+    private File file(String key) {
+        return new File(new File(this.directory, key.substring(0, 2)), key.substring(2));
+    }
+
+    /**
+     * Adds every class named by an internal name or descriptor.
+     *
+     * @param names the set to add the names to.
+     * @param type  an internal name, array descriptor or method descriptor.
+     */
+    private static void addTypes(Set<String> names, String type) {
+        if (type.isEmpty())
+            return;
+        char first = type.charAt(0);
+        if (first != '(' && first != '[' && first != 'L') {
+            names.add(type);
+            return;
+        }
+        if (first == 'L' && type.charAt(type.length() - 1) != ';') {
+            names.add(type); // Internal name starting with L.
+            return;
+        }
+
+        int index = 0;
+        while (index < type.length()) {
+            if (type.charAt(index) == 'L') {
+                int end = type.indexOf(';', index);
+                if (end < 0)
+                    break;
+                names.add(type.substring(index + 1, end));
+                index = end + 1;
+            } else {
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Returns the SHA-1 hash of the given bytes.
+     *
+     * @param bytes the bytes to hash.
+     * @return the SHA-1 hash of the given bytes.
+     */
+    private static byte[] sha1(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(bytes);
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+    }
+
+    /**
+     * Returns the given bytes as lowercase hexadecimal {@link String}.
+     *
+     * @param bytes the bytes to convert.
+     * @return the hexadecimal {@link String}.
+     */
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.zip.ZipException;
+import me.itzsomebody.radon.io.JarReader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Inflates and parses the entries of the input jar on a
+ * {@link ForkJoinPool}. Jars are read through {@link JarReader}, inputs
+ * held in memory are parsed as they are.
+ * <p>
+ * Entries are parsed concurrently but merged into the destination maps in
+ * archive order, so the loaded result is exactly the same as reading every
+ * entry one after another on a single thread.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+class ParallelLoader {
+    /**
+     * Pool the entries are parsed on.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Constructor to create a {@link ParallelLoader} object.
+     *
+     * @param pool {@link ForkJoinPool} the entries will be parsed on.
+     */
+    ParallelLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Parses every class of the input into the classes map and lists every
+     * other entry in the resource list. Only the resources which might be
+     * rewritten are read into the resource map, the others are left in the
+     * jar so they can be copied without being inflated.
+     *
+     * @param jar         the opened input jar.
+     * @param classes     the map the parsed input classes are put into.
+     * @param passThru    the map the read resources are put into.
+     * @param resources   the list every resource is added to.
+     * @param materialize names of the resources to read.
+     * @param listener    called with every parsed class and its
+     *                    {@link ClassReader} on the thread which parsed it,
+     *                    may be null.
+     * @throws RuntimeException if some IOE happens.
+     */
+    void loadInput(JarReader jar, Map<String, ClassNode> classes, Map<String, byte[]> passThru,
+                   List<JarReader.Entry> resources, Set<String> materialize,
+                   BiConsumer<ClassNode, ClassReader> listener) throws RuntimeException {
+        List<JarReader.Entry> zipEntries = new ArrayList<>();
+        for (JarReader.Entry zipEntry : jar.getEntries()) {
+            if (zipEntry.isDirectory())
+                continue;
+
+            if (zipEntry.getName().endsWith(".class") || materialize.contains(zipEntry.getName())) {
+                zipEntries.add(zipEntry);
+            }
+            if (!zipEntry.getName().endsWith(".class")) {
+                resources.add(zipEntry);
+            }
+        }
+
+        Object[] parsed = new Object[zipEntries.size()];
+        this.runParallel(parsed.length, i -> {
+            JarReader.Entry zipEntry = zipEntries.get(i);
+            if (zipEntry.getName().endsWith(".class")) {
+                ClassNode classNode = new ClassNode();
+                classNode.libraryNode = false;
+
+                // We will manually compute stack frames later
+                ClassReader cr = readClass(jar, zipEntry);
+                cr.accept(classNode, ClassReader.SKIP_FRAMES);
+                if (listener != null) {
+                    listener.accept(classNode, cr);
+                }
+                parsed[i] = classNode;
+            } else {
+                parsed[i] = readEntry(jar, zipEntry);
+            }
+        });
+
+        for (int i = 0; i < parsed.length; i++) {
+            if (parsed[i] instanceof ClassNode) {
+                ClassNode classNode = (ClassNode) parsed[i];
+                classes.put(classNode.name, classNode);
+            } else {
+                passThru.put(zipEntries.get(i).getName(), (byte[]) parsed[i]);
+            }
+        }
+    }
+
+    /**
+     * Parses every class of an input held in memory into the classes map
+     * and puts every other entry into the resource map. The resource names
+     * are added to the resource list in the order of the entries.
+     *
+     * @param entries   entry name -> data of the input.
+     * @param classes   the map the parsed input classes are put into.
+     * @param passThru  the map the resources are put into.
+     * @param resources the list the name of every resource is added to.
+     * @throws RuntimeException if a class cannot be parsed.
+     */
+    void loadInput(Map<String, byte[]> entries, Map<String, ClassNode> classes, Map<String, byte[]> passThru,
+                   List<String> resources) throws RuntimeException {
+        List<byte[]> classFiles = new ArrayList<>();
+        entries.forEach((name, data) -> {
+            if (name.endsWith("/"))
+                return;
+
+            if (name.endsWith(".class")) {
+                classFiles.add(data);
+            } else {
+                passThru.put(name, data);
+                resources.add(name);
+            }
+        });
+
+        ClassNode[] parsed = new ClassNode[classFiles.size()];
+        this.runParallel(parsed.length, i -> {
+            ClassNode classNode = new ClassNode();
+            classNode.libraryNode = false;
+
+            // We will manually compute stack frames later
+            new ClassReader(classFiles.get(i)).accept(classNode, ClassReader.SKIP_FRAMES);
+            parsed[i] = classNode;
+        });
+
+        for (ClassNode classNode : parsed) {
+            classes.put(classNode.name, classNode);
+        }
+    }
+
+    /**
+     * Runs the task for every index in [0, count) on {@link ParallelLoader#pool}
+     * and waits for all of them to finish.
+     *
+     * @param count number of indexes.
+     * @param task  the task to run for each index.
+     * @throws RuntimeException if any of the tasks failed.
+     */
+    private void runParallel(int count, IntConsumer task) throws RuntimeException {
+        try {
+            this.pool.submit(() -> IntStream.range(0, count).parallel().forEach(task)).get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading classes");
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw new RuntimeException("Error while reading entry -> "
+                        + cause.getCause().getMessage());
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Opens and maps a jar with a {@link JarReader}.
+     *
+     * @param file the {@link File} to open.
+     * @param kind "Input " or "Library " for error messages.
+     * @return the opened {@link JarReader}.
+     * @throws RuntimeException if file cannot be be opened as Zip or does
+     *                          not exist.
+     */
+    static JarReader openJar(File file, String kind) throws RuntimeException {
+        try {
+            return new JarReader(file);
+        } catch (ZipException ze) {
+            throw new RuntimeException("There was an error opening "
+                    + file.getAbsolutePath() + " as a zip!");
+        } catch (IOException ioe) {
+            throw new RuntimeException(kind + file.getAbsolutePath()
+                    + " does not exist!");
+        }
+    }
+
+    /**
+     * Reads the data of the given entry.
+     *
+     * @param jar      the {@link JarReader} the entry belongs to.
+     * @param zipEntry the entry to read.
+     * @return the uncompressed data of the entry.
+     */
+    private static byte[] readEntry(JarReader jar, JarReader.Entry zipEntry) {
+        try {
+            return jar.read(zipEntry);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Creates a {@link ClassReader} for the given entry.
+     *
+     * @param jar      the {@link JarReader} the entry belongs to.
+     * @param zipEntry the entry to read.
+     * @return a {@link ClassReader} for the given entry.
+     */
+    private static ClassReader readClass(JarReader jar, JarReader.Entry zipEntry) {
+        return new ClassReader(readEntry(jar, zipEntry));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import me.itzsomebody.radon.classpath.LibraryCache;
+import me.itzsomebody.radon.classpath.LibraryClassPath;
+import me.itzsomebody.radon.utils.LoggerUtils;
+
+/**
+ * Library classpaths kept open between runs of the {@link Daemon}. A run
+ * with the same libraries as an earlier one reuses its index and every
+ * library class that was already parsed. A classpath is opened again as
+ * soon as one of its libraries changed on disk. Classpaths which are
+ * dropped are closed, which unmaps their libraries right away, so the old
+ * version of a changed jar isn't kept mapped until a garbage collection.
+ *
+ * @author ItzSomebody
+ */
+class ResidentLibraries {
+    /**
+     * Maximum number of different library lists kept open.
+     */
+    private static final int MAX_RESIDENTS = 8;
+
+    /**
+     * Library paths and cache directory -> {@link Resident}, least recently
+     * used first.
+     */
+    private Map<List<String>, Resident> residents = new LinkedHashMap<List<String>, Resident>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, Resident> eldest) {
+            if (this.size() > MAX_RESIDENTS) {
+                eldest.getValue().classPath.close();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Returns the classpath of the given libraries, opening it if it isn't
+     * resident yet or a library changed since it was opened. The returned
+     * classpath must not be closed by the caller.
+     *
+     * @param libs           the library {@link File}s.
+     * @param cacheDirectory directory library metadata is cached in, null
+     *                       if caching is disabled.
+     * @param pool           pool used to parse the libraries.
+     * @return the classpath of the given libraries.
+     * @throws RuntimeException if a library cannot be opened.
+     */
+    synchronized LibraryClassPath acquire(List<File> libs, File cacheDirectory, ForkJoinPool pool)
+            throws RuntimeException {
+        List<String> key = new ArrayList<>();
+        for (File lib : libs) {
+            key.add(lib.getAbsolutePath());
+        }
+        key.add((cacheDirectory != null) ? cacheDirectory.getAbsolutePath() : "");
+
+        List<Long> stamps = stamps(libs);
+        Resident resident = this.residents.get(key);
+        if (resident != null) {
+            if (resident.stamps.equals(stamps))
+                return resident.classPath;
+
+            LoggerUtils.stdOut("Libraries changed, opening them again.");
+            this.residents.remove(key);
+            resident.classPath.close();
+        }
+
+        LibraryCache cache = (cacheDirectory != null) ? new LibraryCache(cacheDirectory) : null;
+        resident = new Resident(new LibraryClassPath(libs, cache, pool), stamps);
+        this.residents.put(key, resident);
+        return resident.classPath;
+    }
+
+    /**
+     * Closes every resident classpath.
+     */
+    synchronized void close() {
+        this.residents.values().forEach(resident -> resident.classPath.close());
+        this.residents.clear();
+    }
+
+    /**
+     * Returns the size and modification time of every library.
+     *
+     * @param libs the library {@link File}s.
+     * @return the size and modification time of every library.
+     */
+    private static List<Long> stamps(List<File> libs) {
+        List<Long> stamps = new ArrayList<>(libs.size() * 2);
+        for (File lib : libs) {
+            stamps.add(lib.length());
+            stamps.add(lib.lastModified());
+        }
+        return stamps;
+    }
+
+    /**
+     * Open classpath and the state of its libraries when it was opened.
+     */
+    private static class Resident {
+        /**
+         * The open classpath.
+         */
+        private LibraryClassPath classPath;
+
+        /**
+         * Size and modification time of every library.
+         */
+        private List<Long> stamps;
+
+        /**
+         * Creates a new {@link Resident}.
+         *
+         * @param classPath the open classpath.
+         * @param stamps    size and modification time of every library.
+         */
+        private Resident(LibraryClassPath classPath, List<Long> stamps) {
+            this.classPath = classPath;
+            this.stamps = stamps;
+        }
+    }
+}
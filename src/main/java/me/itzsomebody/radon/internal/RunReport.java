@@ -0,0 +1,697 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import me.itzsomebody.radon.Radon;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Machine-readable performance report of a run, written as JSON.
+ * <p>
+ * Every phase records its wall time and the CPU time and allocated bytes of
+ * the threads of the run while it ran, which are the thread which started
+ * the run and its worker threads. Other runs in the same process, such as
+ * the other jobs of a batch, aren't counted. Transformers and the writer also
+ * record the classes and methods they visited, the number of instructions
+ * they inserted (net growth of the instructions), the classes they took the
+ * longest on and the methods they grew the most. Per-class CPU time and
+ * allocations are measured on the thread which handled the class, so they
+ * stay correct when classes are handled concurrently.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class RunReport {
+    /**
+     * Number of slowest classes and most grown methods kept.
+     */
+    private static final int TOP = 10;
+
+    /**
+     * Thread bean used for CPU time and allocations.
+     */
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Thread bean used for allocations, null if the JVM doesn't support it.
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS;
+
+    static {
+        com.sun.management.ThreadMXBean allocations = null;
+        try {
+            if (THREADS instanceof com.sun.management.ThreadMXBean) {
+                allocations = (com.sun.management.ThreadMXBean) THREADS;
+                if (!allocations.isThreadAllocatedMemorySupported()) {
+                    allocations = null;
+                } else {
+                    allocations.setThreadAllocatedMemoryEnabled(true);
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            allocations = null;
+        }
+        ALLOCATIONS = allocations;
+        if (THREADS.isThreadCpuTimeSupported() && !THREADS.isThreadCpuTimeEnabled()) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    /**
+     * Finished phases in the order they ended.
+     */
+    private final List<Phase> phases = new ArrayList<>();
+
+    /**
+     * Name -> statistics of a transformer or the writer.
+     */
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+
+    /**
+     * Time the run started in nanoseconds.
+     */
+    private final long started = System.nanoTime();
+
+    /**
+     * Live threads of the run.
+     */
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * CPU time in nanoseconds and allocated bytes of threads of the run
+     * which ended, so they still count for the phase they ended in.
+     */
+    private long endedCpuNanos;
+    private long endedAllocatedBytes;
+
+    /**
+     * Counts the CPU time and allocations of the current thread for this
+     * run from now on.
+     */
+    public void attach() {
+        this.threads.add(Thread.currentThread());
+    }
+
+    /**
+     * Stops following the current thread, which is about to end. What it
+     * used so far still counts for the run.
+     */
+    public synchronized void detach() {
+        if (this.threads.remove(Thread.currentThread())) {
+            this.endedCpuNanos += threadCpuTime();
+            this.endedAllocatedBytes += threadAllocatedBytes();
+        }
+    }
+
+    /**
+     * Begins a phase.
+     *
+     * @param name the name of the phase.
+     * @return the phase to pass to {@link RunReport#end(Phase)}.
+     */
+    public synchronized Phase begin(String name) {
+        return new Phase(name, this.totalCpuTime(), this.totalAllocatedBytes());
+    }
+
+    /**
+     * Ends a phase and adds it to the report.
+     *
+     * @param phase the phase returned by {@link RunReport#begin(String)}.
+     */
+    public synchronized void end(Phase phase) {
+        phase.wallNanos = System.nanoTime() - phase.wallNanos;
+        phase.cpuNanos = this.totalCpuTime() - phase.cpuNanos;
+        phase.allocatedBytes = (phase.allocatedBytes < 0) ? -1 : this.totalAllocatedBytes() - phase.allocatedBytes;
+        this.phases.add(phase);
+    }
+
+    /**
+     * Returns the statistics with the given name, creating them if needed.
+     *
+     * @param name the name of the transformer.
+     * @return the statistics of the transformer.
+     */
+    public synchronized Stats stats(String name) {
+        return this.stats.computeIfAbsent(name, Stats::new);
+    }
+
+    /**
+     * Returns the phases which ended so far, in the order they ended.
+     *
+     * @return a copy of the ended phases.
+     */
+    public synchronized List<Phase> getPhases() {
+        return new ArrayList<>(this.phases);
+    }
+
+    /**
+     * Writes the report as JSON.
+     *
+     * @param file    the file to write to.
+     * @param input   the input of the run.
+     * @param output  the output of the run.
+     * @param threads number of worker threads of the run.
+     * @param success true if the run succeeded.
+     * @throws IOException if the report cannot be written.
+     */
+    public synchronized void write(File file, File input, File output, int threads, boolean success)
+            throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"radon\": ").append(quote(Radon.VERSION)).append(",\n");
+        sb.append("  \"input\": ").append(quote(input.getAbsolutePath())).append(",\n");
+        sb.append("  \"output\": ").append(quote(output.getAbsolutePath())).append(",\n");
+        sb.append("  \"threads\": ").append(threads).append(",\n");
+        sb.append("  \"success\": ").append(success).append(",\n");
+        sb.append("  \"wallMs\": ").append(millis(System.nanoTime() - this.started)).append(",\n");
+        sb.append("  \"phases\": [");
+        for (int i = 0; i < this.phases.size(); i++) {
+            Phase phase = this.phases.get(i);
+            sb.append((i == 0) ? "\n" : ",\n");
+            sb.append("    {\"name\": ").append(quote(phase.name))
+                    .append(", \"wallMs\": ").append(millis(phase.wallNanos))
+                    .append(", \"cpuMs\": ").append(millis(phase.cpuNanos))
+                    .append(", \"allocatedBytes\": ").append(phase.allocatedBytes).append('}');
+        }
+        sb.append("\n  ],\n");
+        sb.append("  \"transformers\": [");
+        int index = 0;
+        for (Stats stats : this.stats.values()) {
+            sb.append((index++ == 0) ? "\n" : ",\n");
+            stats.append(sb);
+        }
+        sb.append("\n  ]\n");
+        sb.append("}\n");
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(sb.toString());
+        }
+    }
+
+    /**
+     * Returns the CPU time of every thread of the run, including the ones
+     * which ended.
+     *
+     * @return the CPU time of the threads of the run in nanoseconds.
+     */
+    private long totalCpuTime() {
+        if (!THREADS.isThreadCpuTimeSupported())
+            return 0;
+
+        long total = this.endedCpuNanos;
+        for (Thread thread : this.threads) {
+            long time = THREADS.getThreadCpuTime(thread.getId());
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the bytes allocated by every thread of the run, including the
+     * ones which ended.
+     *
+     * @return the bytes allocated by the threads of the run or -1 if not
+     * supported.
+     */
+    private long totalAllocatedBytes() {
+        if (ALLOCATIONS == null)
+            return -1;
+
+        long[] ids = this.threads.stream().mapToLong(Thread::getId).toArray();
+        long total = this.endedAllocatedBytes;
+        for (long bytes : ALLOCATIONS.getThreadAllocatedBytes(ids)) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the CPU time of the current thread.
+     *
+     * @return the CPU time of the current thread in nanoseconds.
+     */
+    private static long threadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread.
+     *
+     * @return the bytes allocated by the current thread or 0 if not
+     * supported.
+     */
+    private static long threadAllocatedBytes() {
+        return (ALLOCATIONS != null) ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * Returns the number of instructions of every method of a class.
+     *
+     * @param classNode the class.
+     * @return method -> number of instructions.
+     */
+    private static Map<MethodNode, Integer> instructionCounts(ClassNode classNode) {
+        Map<MethodNode, Integer> counts = new IdentityHashMap<>();
+        for (MethodNode methodNode : classNode.methods) {
+            counts.put(methodNode, methodNode.instructions.size());
+        }
+        return counts;
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds with microsecond precision.
+     *
+     * @param nanos the nanoseconds.
+     * @return the milliseconds as JSON number.
+     */
+    static String millis(long nanos) {
+        return String.valueOf(nanos / 1000 / 1000.0);
+    }
+
+    /**
+     * Quotes and escapes a {@link String} for JSON.
+     *
+     * @param string the {@link String} to quote.
+     * @return the quoted {@link String}.
+     */
+    static String quote(String string) {
+        StringBuilder sb = new StringBuilder(string.length() + 2).append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * A phase of the run. Holds the values at the start of the phase until
+     * it ends.
+     */
+    public static class Phase {
+        /**
+         * Name of the phase.
+         */
+        private final String name;
+
+        /**
+         * Wall time of the phase in nanoseconds.
+         */
+        private long wallNanos;
+
+        /**
+         * CPU time of the threads of the run during the phase in
+         * nanoseconds.
+         */
+        private long cpuNanos;
+
+        /**
+         * Bytes allocated by the threads of the run during the phase, -1 if
+         * not supported.
+         */
+        private long allocatedBytes;
+
+        /**
+         * Begins a phase.
+         *
+         * @param name           the name of the phase.
+         * @param cpuNanos       CPU time of the run so far in nanoseconds.
+         * @param allocatedBytes bytes allocated by the run so far, -1 if not
+         *                       supported.
+         */
+        private Phase(String name, long cpuNanos, long allocatedBytes) {
+            this.name = name;
+            this.allocatedBytes = allocatedBytes;
+            this.cpuNanos = cpuNanos;
+            this.wallNanos = System.nanoTime();
+        }
+
+        /**
+         * Returns the name of the phase.
+         *
+         * @return the name of the phase.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the wall time of the phase, only valid once it ended.
+         *
+         * @return the wall time of the phase in nanoseconds.
+         */
+        public long getWallNanos() {
+            return this.wallNanos;
+        }
+    }
+
+    /**
+     * Statistics of a transformer or the writer. Safe to update on multiple
+     * threads at once.
+     */
+    public static class Stats {
+        /**
+         * Name of the transformer.
+         */
+        private final String name;
+
+        /**
+         * Number of classes visited.
+         */
+        private final LongAdder classes = new LongAdder();
+
+        /**
+         * Number of methods visited.
+         */
+        private final LongAdder methods = new LongAdder();
+
+        /**
+         * Net number of instructions inserted.
+         */
+        private final LongAdder instructions = new LongAdder();
+
+        /**
+         * Wall time spent on single classes in nanoseconds.
+         */
+        private final LongAdder wallNanos = new LongAdder();
+
+        /**
+         * CPU time spent on single classes in nanoseconds.
+         */
+        private final LongAdder cpuNanos = new LongAdder();
+
+        /**
+         * Bytes allocated while handling single classes.
+         */
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        /**
+         * Slowest classes, fastest first.
+         */
+        private final PriorityQueue<Entry> slowestClasses = new PriorityQueue<>();
+
+        /**
+         * Most grown methods, least grown first.
+         */
+        private final PriorityQueue<Entry> grownMethods = new PriorityQueue<>();
+
+        /**
+         * Creates new {@link Stats}.
+         *
+         * @param name the name of the transformer.
+         */
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Begins handling a single class.
+         *
+         * @param classNode the class.
+         * @return the measurement to pass to
+         * {@link Stats#endClass(ClassMeasurement)}.
+         */
+        public ClassMeasurement beginClass(ClassNode classNode) {
+            return new ClassMeasurement(classNode);
+        }
+
+        /**
+         * Ends handling a single class and records it.
+         *
+         * @param measurement the measurement returned by
+         *                    {@link Stats#beginClass(ClassNode)}.
+         */
+        public void endClass(ClassMeasurement measurement) {
+            long wall = System.nanoTime() - measurement.wallNanos;
+            this.wallNanos.add(wall);
+            this.cpuNanos.add(threadCpuTime() - measurement.cpuNanos);
+            this.allocatedBytes.add(threadAllocatedBytes() - measurement.allocatedBytes);
+            this.offer(this.slowestClasses, new Entry(measurement.classNode.name, wall));
+            this.recordGrowth(measurement.classNode, measurement.counts);
+        }
+
+        /**
+         * Returns the number of instructions of every method of the given
+         * classes, to pass to {@link Stats#recordGrowth(Iterable, Map)}
+         * afterwards.
+         *
+         * @param classNodes the classes.
+         * @return method -> number of instructions.
+         */
+        public Map<MethodNode, Integer> snapshot(Iterable<ClassNode> classNodes) {
+            Map<MethodNode, Integer> counts = new IdentityHashMap<>();
+            classNodes.forEach(classNode -> counts.putAll(instructionCounts(classNode)));
+            return counts;
+        }
+
+        /**
+         * Records the classes and methods visited and the instructions
+         * inserted since the snapshot. Transformers which replace classes,
+         * such as the renamer, create new methods, so the net number of
+         * inserted instructions is taken from the totals and only methods
+         * which existed before can be ranked.
+         *
+         * @param classNodes the classes.
+         * @param counts     the snapshot from
+         *                   {@link Stats#snapshot(Iterable)}.
+         */
+        public void recordGrowth(Iterable<ClassNode> classNodes, Map<MethodNode, Integer> counts) {
+            long before = 0;
+            for (int count : counts.values()) {
+                before += count;
+            }
+            long after = 0;
+            for (ClassNode classNode : classNodes) {
+                this.classes.increment();
+                this.methods.add(classNode.methods.size());
+                for (MethodNode methodNode : classNode.methods) {
+                    after += methodNode.instructions.size();
+                    Integer count = counts.get(methodNode);
+                    if (count != null && methodNode.instructions.size() > count) {
+                        this.offer(this.grownMethods, new Entry(classNode.name + '.' + methodNode.name
+                                + methodNode.desc, methodNode.instructions.size() - count));
+                    }
+                }
+            }
+            this.instructions.add(after - before);
+        }
+
+        /**
+         * Records a class and the instructions inserted into its methods.
+         * Methods added to the class count as grown from zero.
+         *
+         * @param classNode the class.
+         * @param counts    method -> number of instructions before.
+         */
+        private void recordGrowth(ClassNode classNode, Map<MethodNode, Integer> counts) {
+            this.classes.increment();
+            this.methods.add(classNode.methods.size());
+            for (MethodNode methodNode : classNode.methods) {
+                int growth = methodNode.instructions.size() - counts.getOrDefault(methodNode, 0);
+                this.instructions.add(growth);
+                if (growth > 0) {
+                    this.offer(this.grownMethods,
+                            new Entry(classNode.name + '.' + methodNode.name + methodNode.desc, growth));
+                }
+            }
+        }
+
+        /**
+         * Adds an entry to a bounded queue of the largest entries.
+         *
+         * @param queue the queue.
+         * @param entry the entry.
+         */
+        private void offer(PriorityQueue<Entry> queue, Entry entry) {
+            synchronized (queue) {
+                if (queue.size() < TOP) {
+                    queue.add(entry);
+                } else if (queue.peek().value < entry.value) {
+                    queue.poll();
+                    queue.add(entry);
+                }
+            }
+        }
+
+        /**
+         * Appends these statistics as JSON.
+         *
+         * @param sb the {@link StringBuilder} to append to.
+         */
+        private void append(StringBuilder sb) {
+            sb.append("    {\"name\": ").append(quote(this.name))
+                    .append(", \"classes\": ").append(this.classes.sum())
+                    .append(", \"methods\": ").append(this.methods.sum())
+                    .append(", \"instructionsInserted\": ").append(this.instructions.sum());
+            if (!this.slowestClasses.isEmpty()) {
+                sb.append(", \"classWallMs\": ").append(millis(this.wallNanos.sum()))
+                        .append(", \"classCpuMs\": ").append(millis(this.cpuNanos.sum()))
+                        .append(", \"classAllocatedBytes\": ").append(this.allocatedBytes.sum())
+                        .append(", \"slowestClasses\": [");
+                appendEntries(sb, this.slowestClasses, true);
+                sb.append(']');
+            }
+            sb.append(", \"mostGrownMethods\": [");
+            appendEntries(sb, this.grownMethods, false);
+            sb.append("]}");
+        }
+
+        /**
+         * Appends the entries of a queue as JSON, largest first.
+         *
+         * @param sb    the {@link StringBuilder} to append to.
+         * @param queue the queue.
+         * @param time  true if the values are nanoseconds.
+         */
+        private static void appendEntries(StringBuilder sb, PriorityQueue<Entry> queue, boolean time) {
+            List<Entry> entries = new ArrayList<>(queue);
+            entries.sort((a, b) -> Long.compare(b.value, a.value));
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append("{\"name\": ").append(quote(entry.name));
+                if (time) {
+                    sb.append(", \"wallMs\": ").append(millis(entry.value)).append('}');
+                } else {
+                    sb.append(", \"instructionsInserted\": ").append(entry.value).append('}');
+                }
+            }
+        }
+    }
+
+    /**
+     * Values at the start of handling a single class.
+     */
+    public static class ClassMeasurement {
+        /**
+         * The class.
+         */
+        private final ClassNode classNode;
+
+        /**
+         * Number of instructions of the methods before.
+         */
+        private final Map<MethodNode, Integer> counts;
+
+        /**
+         * Wall time at the start in nanoseconds.
+         */
+        private final long wallNanos;
+
+        /**
+         * CPU time of the thread at the start in nanoseconds.
+         */
+        private final long cpuNanos;
+
+        /**
+         * Bytes allocated by the thread at the start.
+         */
+        private final long allocatedBytes;
+
+        /**
+         * Begins handling a single class.
+         *
+         * @param classNode the class.
+         */
+        private ClassMeasurement(ClassNode classNode) {
+            this.classNode = classNode;
+            this.counts = instructionCounts(classNode);
+            this.allocatedBytes = threadAllocatedBytes();
+            this.cpuNanos = threadCpuTime();
+            this.wallNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Named value in a top list.
+     */
+    private static class Entry implements Comparable<Entry> {
+        /**
+         * Name of the class or method.
+         */
+        private final String name;
+
+        /**
+         * Time or number of instructions.
+         */
+        private final long value;
+
+        /**
+         * Creates a new {@link Entry}.
+         *
+         * @param name  name of the class or method.
+         * @param value time or number of instructions.
+         */
+        private Entry(String name, long value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(this.value, other.value);
+        }
+    }
+}
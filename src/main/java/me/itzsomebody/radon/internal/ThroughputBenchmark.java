@@ -0,0 +1,697 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import me.itzsomebody.radon.Radon;
+import me.itzsomebody.radon.classpath.LibraryClassPath;
+import me.itzsomebody.radon.config.Config;
+import me.itzsomebody.radon.utils.LoggerUtils;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Measures the throughput of the whole pipeline on synthetic inputs.
+ * <p>
+ * For each configured class count a jar is generated with the
+ * {@link CorpusGenerator}, then every transformer combination runs through
+ * {@link Bootstrap} a number of times after some warm-up runs. The
+ * libraries are opened once and shared by every run. Each measured run
+ * reports its wall time, classes per second, peak heap usage and the wall
+ * time of every phase.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class ThroughputBenchmark {
+    /**
+     * Keys a benchmark spec may contain.
+     */
+    private static final Set<String> VALID_KEYS = new HashSet<>(Arrays.asList(
+            "Classes",
+            "MethodsPerClass",
+            "MethodSize",
+            "StringDensity",
+            "HierarchyDepth",
+            "LibraryReferences",
+            "Seed",
+            "Warmup",
+            "Iterations",
+            "Threads",
+            "Libraries",
+            "WorkDirectory",
+            "Report",
+            "Combinations"
+    ));
+
+    /**
+     * Config keys which are set by the benchmark for every run.
+     */
+    private static final Set<String> RESERVED_KEYS = new HashSet<>(Arrays.asList(
+            "Input",
+            "Output",
+            "Libraries",
+            "Report",
+            "Incremental",
+            "CacheDirectory"
+    ));
+
+    /**
+     * The parsed spec.
+     */
+    private Map<String, Object> spec;
+
+    /**
+     * Class counts of the generated inputs.
+     */
+    private List<Integer> classCounts;
+
+    /**
+     * Transformer combinations by name, each a map of config keys.
+     */
+    private Map<String, Map<String, Object>> combinations;
+
+    /**
+     * Libraries shared by every run.
+     */
+    private List<File> libraries;
+
+    /**
+     * Number of warm-up runs of each combination.
+     */
+    private int warmup;
+
+    /**
+     * Number of measured runs of each combination.
+     */
+    private int iterations;
+
+    /**
+     * Creates a new {@link ThroughputBenchmark}.
+     *
+     * @param specFile the benchmark spec.
+     * @throws IllegalArgumentException if the spec cannot be read or is
+     *                                  invalid.
+     */
+    public ThroughputBenchmark(File specFile) throws IllegalArgumentException {
+        try (InputStream in = new FileInputStream(specFile)) {
+            Object loaded = new Yaml().load(in);
+            if (loaded != null && !(loaded instanceof Map))
+                throw new IllegalArgumentException("Benchmark spec must be a map");
+            this.spec = (loaded != null) ? castMap(loaded) : new LinkedHashMap<>();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException("Error while reading " + specFile.getAbsolutePath() + ": "
+                    + ioe.getMessage());
+        }
+        for (String key : this.spec.keySet()) {
+            if (!VALID_KEYS.contains(key))
+                throw new IllegalArgumentException("Invalid key: " + key);
+        }
+
+        this.classCounts = this.getClassCounts();
+        this.combinations = this.getCombinations();
+        this.libraries = this.getLibraries();
+        this.warmup = this.getInt("Warmup", 1, 0);
+        this.iterations = this.getInt("Iterations", 3, 1);
+        // Fail before generating anything
+        this.getInt("MethodsPerClass", 8, 1);
+        this.getInt("MethodSize", 50, 2);
+        this.getInt("HierarchyDepth", 3, 1);
+        if (this.getChance("StringDensity", 0.2) + this.getChance("LibraryReferences", 0.1) > 1)
+            throw new IllegalArgumentException("StringDensity and LibraryReferences must not add up to more than 1");
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @throws RuntimeException if a run fails or an input or the report
+     *                          cannot be written.
+     */
+    public void run() throws RuntimeException {
+        File workDirectory = this.getWorkDirectory();
+        boolean temporary = !this.spec.containsKey("WorkDirectory");
+        File input = new File(workDirectory, "input.jar");
+        File output = new File(workDirectory, "output.jar");
+        File runReport = new File(workDirectory, "run.json");
+        File runLog = new File(workDirectory, "run.log");
+
+        LoggerUtils.stdOut("Loading " + this.libraries.size() + " libraries");
+        LibraryClassPath classPath = new LibraryClassPath(this.libraries);
+        List<Result> results = new ArrayList<>();
+        try {
+            for (int classCount : this.classCounts) {
+                long current = System.currentTimeMillis();
+                try {
+                    new CorpusGenerator(
+                            classCount,
+                            this.getInt("MethodsPerClass", 8, 1),
+                            this.getInt("MethodSize", 50, 2),
+                            this.getChance("StringDensity", 0.2),
+                            this.getInt("HierarchyDepth", 3, 1),
+                            this.getChance("LibraryReferences", 0.1),
+                            this.getSeed()
+                    ).write(input);
+                } catch (IOException ioe) {
+                    throw new RuntimeException("Error while generating " + input.getAbsolutePath() + ": "
+                            + ioe.getMessage());
+                }
+                LoggerUtils.stdOut("Generated " + classCount + " classes (" + input.length() / 1024 + "KB). ["
+                        + (System.currentTimeMillis() - current) + "ms]");
+
+                for (Map.Entry<String, Map<String, Object>> combination : this.combinations.entrySet()) {
+                    byte[] config = this.config(combination.getValue(), input, output, runReport);
+                    Result result = new Result(classCount, combination.getKey());
+                    for (int i = 0; i < this.warmup + this.iterations; i++) {
+                        Measurement measurement = this.measure(config, classPath, runLog, output);
+                        if (i >= this.warmup) {
+                            result.add(measurement);
+                        }
+                    }
+                    results.add(result);
+                    result.log();
+                }
+            }
+        } finally {
+            classPath.close();
+            input.delete();
+            output.delete();
+            runReport.delete();
+            runLog.delete();
+            if (temporary) {
+                workDirectory.delete();
+            }
+        }
+
+        File report = this.getReport();
+        if (report != null) {
+            try {
+                writeReport(report, results);
+            } catch (IOException ioe) {
+                throw new RuntimeException("Error while writing " + report.getAbsolutePath() + ": "
+                        + ioe.getMessage());
+            }
+            LoggerUtils.stdOut("Wrote benchmark report to " + report.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Runs a config once and measures it.
+     *
+     * @param config    the config of the run.
+     * @param classPath the shared libraries.
+     * @param log       the file to write the log of the run to.
+     * @param output    the output of the run, deleted afterwards.
+     * @return the measurement of the run.
+     * @throws RuntimeException if the run fails.
+     */
+    private Measurement measure(byte[] config, LibraryClassPath classPath, File log, File output)
+            throws RuntimeException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        Bootstrap bootstrap = new Bootstrap(new Config(new ByteArrayInputStream(config)), classPath, log);
+        long started = System.nanoTime();
+        try {
+            bootstrap.startTheParty(true);
+        } catch (Throwable t) {
+            throw new RuntimeException("Benchmark run failed: " + t.getMessage());
+        } finally {
+            output.delete();
+        }
+
+        Measurement measurement = new Measurement();
+        measurement.wallNanos = System.nanoTime() - started;
+        // The pools peak at different times, their sum is an upper bound
+        for (MemoryPoolMXBean pool : heapPools) {
+            measurement.peakHeap += pool.getPeakUsage().getUsed();
+        }
+        for (RunReport.Phase phase : bootstrap.getReport().getPhases()) {
+            measurement.phases.merge(phase.getName(), phase.getWallNanos(), Long::sum);
+        }
+        return measurement;
+    }
+
+    /**
+     * Writes the config of a combination.
+     *
+     * @param combination the config keys of the combination.
+     * @param input       the generated input.
+     * @param output      the output of the runs.
+     * @param report      the run report, needed for the phases.
+     * @return the config as YAML.
+     */
+    private byte[] config(Map<String, Object> combination, File input, File output, File report) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("Input", input.getAbsolutePath());
+        config.put("Output", output.getAbsolutePath());
+        List<String> libs = new ArrayList<>();
+        for (File lib : this.libraries) {
+            libs.add(lib.getAbsolutePath());
+        }
+        config.put("Libraries", libs);
+        config.put("Report", report.getAbsolutePath());
+        config.put("LogLevel", "WARN");
+        if (this.spec.containsKey("Threads")) {
+            config.put("Threads", this.getInt("Threads", 1, 1));
+        }
+        config.put("Seed", this.getSeed());
+        config.putAll(combination);
+        return new Yaml().dump(config).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the class counts from the spec. Defaults to 1000, 10000 and
+     * 100000.
+     *
+     * @return the class counts.
+     * @throws IllegalArgumentException if a class count isn't a positive
+     *                                  integer.
+     */
+    private List<Integer> getClassCounts() throws IllegalArgumentException {
+        Object value = this.spec.get("Classes");
+        if (value == null)
+            return Arrays.asList(1000, 10000, 100000);
+
+        List<?> list = (value instanceof List) ? (List<?>) value : Collections.singletonList(value);
+        List<Integer> counts = new ArrayList<>();
+        for (Object element : list) {
+            if (!(element instanceof Integer) || (Integer) element < 1)
+                throw new IllegalArgumentException("Classes must be positive integer(s)");
+            counts.add((Integer) element);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the transformer combinations from the spec. Each combination
+     * is a map of config keys with an optional Name. Defaults to a single
+     * combination without transformers.
+     *
+     * @return the combinations by name.
+     * @throws IllegalArgumentException if a combination isn't a map, sets a
+     *                                  key the benchmark sets itself or two
+     *                                  combinations share a name.
+     */
+    private Map<String, Map<String, Object>> getCombinations() throws IllegalArgumentException {
+        Map<String, Map<String, Object>> combinations = new LinkedHashMap<>();
+        Object value = this.spec.get("Combinations");
+        if (value == null) {
+            combinations.put("None", Collections.emptyMap());
+            return combinations;
+        }
+        if (!(value instanceof List))
+            throw new IllegalArgumentException("Combinations must be represented as list");
+
+        for (Object element : (List<?>) value) {
+            if (!(element instanceof Map))
+                throw new IllegalArgumentException("Each combination must be a map of config keys");
+            Map<String, Object> combination = new LinkedHashMap<>(castMap(element));
+            Object name = combination.remove("Name");
+            if (name != null && !(name instanceof String))
+                throw new IllegalArgumentException("Combination Name must be a string");
+            for (String key : combination.keySet()) {
+                if (RESERVED_KEYS.contains(key))
+                    throw new IllegalArgumentException(key + " is set by the benchmark");
+            }
+
+            String combinationName = (name != null) ? (String) name
+                    : combination.isEmpty() ? "None" : String.join("+", combination.keySet());
+            if (combinations.put(combinationName, combination) != null)
+                throw new IllegalArgumentException("Duplicate combination " + combinationName);
+        }
+        if (combinations.isEmpty())
+            throw new IllegalArgumentException("Combinations must not be empty");
+        return combinations;
+    }
+
+    /**
+     * Returns the libraries from the spec. Defaults to the rt.jar of the
+     * running JVM.
+     *
+     * @return the libraries.
+     * @throws IllegalArgumentException if a library isn't a string or
+     *                                  doesn't exist.
+     */
+    private List<File> getLibraries() throws IllegalArgumentException {
+        List<File> libs = new ArrayList<>();
+        Object value = this.spec.get("Libraries");
+        if (value == null) {
+            File runtime = new File(System.getProperty("java.home") + File.separator + "lib"
+                    + File.separator + "rt.jar");
+            if (runtime.isFile()) {
+                libs.add(runtime);
+            }
+            return libs;
+        }
+        if (!(value instanceof List))
+            throw new IllegalArgumentException("Libraries must be represented as list");
+
+        for (Object element : (List<?>) value) {
+            if (!(element instanceof String))
+                throw new IllegalArgumentException("Library args must be string(s)");
+            File lib = new File((String) element);
+            if (!lib.exists())
+                throw new IllegalArgumentException("Library " + lib.getAbsolutePath() + " does not exist");
+            libs.add(lib);
+        }
+        return libs;
+    }
+
+    /**
+     * Returns the directory the inputs and outputs are written to, creating
+     * a temporary one if the spec doesn't name one.
+     *
+     * @return the work directory.
+     * @throws RuntimeException if the directory cannot be created.
+     */
+    private File getWorkDirectory() throws RuntimeException {
+        Object value = this.spec.get("WorkDirectory");
+        try {
+            if (value == null)
+                return Files.createTempDirectory("radon-benchmark").toFile();
+            if (!(value instanceof String))
+                throw new IllegalArgumentException("WorkDirectory arg must be a string");
+            File directory = new File((String) value);
+            Files.createDirectories(directory.toPath());
+            return directory;
+        } catch (IOException ioe) {
+            throw new RuntimeException("Could not create work directory: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Returns the file to write the benchmark report to.
+     *
+     * @return the report file, null if no report is written.
+     * @throws IllegalArgumentException if the value isn't a string.
+     */
+    private File getReport() throws IllegalArgumentException {
+        Object value = this.spec.get("Report");
+        if (value == null)
+            return null;
+        if (!(value instanceof String))
+            throw new IllegalArgumentException("Report arg must be a string");
+        return new File((String) value);
+    }
+
+    /**
+     * Returns the seed of the generated inputs and the runs. Defaults to 0.
+     *
+     * @return the seed.
+     * @throws IllegalArgumentException if the value isn't an integer.
+     */
+    private long getSeed() throws IllegalArgumentException {
+        Object value = this.spec.get("Seed");
+        if (value == null)
+            return 0L;
+        if (!(value instanceof Integer) && !(value instanceof Long))
+            throw new IllegalArgumentException("Seed arg must be an integer");
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * Returns an integer from the spec.
+     *
+     * @param key          the key.
+     * @param defaultValue the value if the key isn't present.
+     * @param min          the smallest allowed value.
+     * @return the value.
+     * @throws IllegalArgumentException if the value isn't an integer of at
+     *                                  least min.
+     */
+    private int getInt(String key, int defaultValue, int min) throws IllegalArgumentException {
+        Object value = this.spec.get(key);
+        if (value == null)
+            return defaultValue;
+        if (!(value instanceof Integer) || (Integer) value < min)
+            throw new IllegalArgumentException(key + " arg must be an integer of at least " + min);
+        return (Integer) value;
+    }
+
+    /**
+     * Returns a chance between 0 and 1 from the spec.
+     *
+     * @param key          the key.
+     * @param defaultValue the value if the key isn't present.
+     * @return the value.
+     * @throws IllegalArgumentException if the value isn't a number between
+     *                                  0 and 1.
+     */
+    private double getChance(String key, double defaultValue) throws IllegalArgumentException {
+        Object value = this.spec.get(key);
+        if (value == null)
+            return defaultValue;
+        if (!(value instanceof Number))
+            throw new IllegalArgumentException(key + " arg must be a number");
+        double chance = ((Number) value).doubleValue();
+        if (chance < 0 || chance > 1)
+            throw new IllegalArgumentException(key + " arg must be between 0 and 1");
+        return chance;
+    }
+
+    /**
+     * Casts a map loaded from YAML.
+     *
+     * @param map the loaded map.
+     * @return the map with string keys.
+     * @throws IllegalArgumentException if a key isn't a string.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object map) throws IllegalArgumentException {
+        for (Object key : ((Map<?, ?>) map).keySet()) {
+            if (!(key instanceof String))
+                throw new IllegalArgumentException("Invalid key: " + key);
+        }
+        return (Map<String, Object>) map;
+    }
+
+    /**
+     * Writes the results as JSON.
+     *
+     * @param file    the file to write to.
+     * @param results the results.
+     * @throws IOException if the report cannot be written.
+     */
+    private static void writeReport(File file, List<Result> results) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"radon\": ").append(RunReport.quote(Radon.VERSION)).append(",\n");
+        sb.append("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append((i == 0) ? "\n" : ",\n");
+            results.get(i).appendJson(sb);
+        }
+        sb.append("\n  ]\n");
+        sb.append("}\n");
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(sb.toString());
+        }
+    }
+
+    /**
+     * A single measured run.
+     */
+    private static class Measurement {
+        /**
+         * Wall time of the run in nanoseconds.
+         */
+        private long wallNanos;
+
+        /**
+         * Summed peak usage of the heap pools in bytes.
+         */
+        private long peakHeap;
+
+        /**
+         * Wall time of each phase in nanoseconds.
+         */
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+    }
+
+    /**
+     * The measured runs of one combination on one input.
+     */
+    private static class Result {
+        /**
+         * Number of classes of the input.
+         */
+        private final int classes;
+
+        /**
+         * Name of the combination.
+         */
+        private final String combination;
+
+        /**
+         * The measured runs.
+         */
+        private final List<Measurement> measurements = new ArrayList<>();
+
+        /**
+         * Creates a new {@link Result}.
+         *
+         * @param classes     number of classes of the input.
+         * @param combination name of the combination.
+         */
+        private Result(int classes, String combination) {
+            this.classes = classes;
+            this.combination = combination;
+        }
+
+        /**
+         * Adds a measured run.
+         *
+         * @param measurement the measured run.
+         */
+        private void add(Measurement measurement) {
+            this.measurements.add(measurement);
+        }
+
+        /**
+         * Returns the mean wall time of the runs.
+         *
+         * @return the mean wall time in nanoseconds.
+         */
+        private long meanNanos() {
+            long total = 0;
+            for (Measurement measurement : this.measurements) {
+                total += measurement.wallNanos;
+            }
+            return total / this.measurements.size();
+        }
+
+        /**
+         * Returns the shortest wall time of the runs.
+         *
+         * @return the shortest wall time in nanoseconds.
+         */
+        private long minNanos() {
+            long min = Long.MAX_VALUE;
+            for (Measurement measurement : this.measurements) {
+                min = Math.min(min, measurement.wallNanos);
+            }
+            return min;
+        }
+
+        /**
+         * Returns the highest peak heap usage of the runs.
+         *
+         * @return the peak heap usage in bytes.
+         */
+        private long peakHeap() {
+            long peak = 0;
+            for (Measurement measurement : this.measurements) {
+                peak = Math.max(peak, measurement.peakHeap);
+            }
+            return peak;
+        }
+
+        /**
+         * Returns the number of classes processed per second by the mean
+         * run.
+         *
+         * @return the classes per second.
+         */
+        private long classesPerSecond() {
+            return Math.round(this.classes / (this.meanNanos() / 1e9));
+        }
+
+        /**
+         * Returns the mean wall time of each phase.
+         *
+         * @return phase name -> mean wall time in nanoseconds.
+         */
+        private Map<String, Long> meanPhases() {
+            Map<String, Long> phases = new LinkedHashMap<>();
+            for (Measurement measurement : this.measurements) {
+                measurement.phases.forEach((name, nanos) -> phases.merge(name, nanos, Long::sum));
+            }
+            phases.replaceAll((name, nanos) -> nanos / this.measurements.size());
+            return phases;
+        }
+
+        /**
+         * Logs the result.
+         */
+        private void log() {
+            LoggerUtils.stdOut(this.classes + " classes, " + this.combination + ": "
+                    + RunReport.millis(this.meanNanos()) + "ms mean, "
+                    + RunReport.millis(this.minNanos()) + "ms min, "
+                    + this.classesPerSecond() + " classes/s, peak heap "
+                    + (this.peakHeap() / 1024 / 1024) + "MB");
+            this.meanPhases().forEach((name, nanos) ->
+                    LoggerUtils.stdOut("    " + name + ": " + RunReport.millis(nanos) + "ms"));
+        }
+
+        /**
+         * Appends the result as JSON object.
+         *
+         * @param sb the builder to append to.
+         */
+        private void appendJson(StringBuilder sb) {
+            sb.append("    {\n");
+            sb.append("      \"classes\": ").append(this.classes).append(",\n");
+            sb.append("      \"combination\": ").append(RunReport.quote(this.combination)).append(",\n");
+            sb.append("      \"iterations\": ").append(this.measurements.size()).append(",\n");
+            sb.append("      \"meanMillis\": ").append(RunReport.millis(this.meanNanos())).append(",\n");
+            sb.append("      \"minMillis\": ").append(RunReport.millis(this.minNanos())).append(",\n");
+            sb.append("      \"classesPerSecond\": ").append(this.classesPerSecond()).append(",\n");
+            sb.append("      \"peakHeapBytes\": ").append(this.peakHeap()).append(",\n");
+            sb.append("      \"phases\": {");
+            boolean first = true;
+            for (Map.Entry<String, Long> phase : this.meanPhases().entrySet()) {
+                sb.append(first ? "\n" : ",\n");
+                sb.append("        ").append(RunReport.quote(phase.getKey())).append(": ")
+                        .append(RunReport.millis(phase.getValue()));
+                first = false;
+            }
+            sb.append("\n      }\n");
+            sb.append("    }");
+        }
+    }
+}
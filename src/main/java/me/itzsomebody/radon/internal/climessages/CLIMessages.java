@@ -45,6 +45,14 @@ public class CLIMessages {
         LoggerUtils.stdOut("Help Menu:\t\tjava -jar Radon.jar --help");
         LoggerUtils.stdOut("Watermark Extraction:\tjava -jar Radon.jar " +
                 "--extract Input.jar exampleKey");
+        LoggerUtils.stdOut("Batch Usage:\t\tjava -jar Radon.jar --batch " +
+                "[--jobs 4] example.config configDirectory ...");
+        LoggerUtils.stdOut("Daemon:\t\t\tjava -jar Radon.jar --daemon [port]");
+        LoggerUtils.stdOut("Submit to Daemon:\tjava -jar Radon.jar --submit " +
+                "example.config [port]");
+        LoggerUtils.stdOut("Stop Daemon:\t\tjava -jar Radon.jar --stop [port]");
+        LoggerUtils.stdOut("Benchmark:\t\tjava -jar Radon.jar --benchmark " +
+                "benchmark.yml");
         LoggerUtils.stdOut("MainGUI Usage:\t\tjava -jar Radon.jar");
     }
 }
@@ -0,0 +1,706 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import me.itzsomebody.radon.utils.FileUtils;
+
+/**
+ * Reads jars by memory-mapping them and parsing the central directory once.
+ * Entry data is read straight out of the mapping: stored entries are copied
+ * once into their result array and deflated entries are inflated directly
+ * into an array of their exact uncompressed size, so there are no
+ * intermediate stream buffers involved.
+ * <p>
+ * Jars larger than {@link Integer#MAX_VALUE} bytes can't be mapped whole,
+ * only their central directory is mapped and entry data is read from the
+ * file when it is needed.
+ * </p>
+ * <p>
+ * A {@link JarReader} is safe to read from on multiple threads at once.
+ * Closing it unmaps the jar right away instead of leaving that to the
+ * garbage collector, so the jar can be replaced or deleted afterwards.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class JarReader implements Closeable {
+    /**
+     * Signatures of the zip records we read.
+     */
+    static final int LOCAL_HEADER = 0x04034b50;
+    static final int CENTRAL_HEADER = 0x02014b50;
+    static final int END_HEADER = 0x06054b50;
+    static final int ZIP64_END_HEADER = 0x06064b50;
+    static final int ZIP64_LOCATOR = 0x07064b50;
+
+    /**
+     * Compression method of stored (uncompressed) entries.
+     */
+    public static final int STORED = 0;
+
+    /**
+     * Compression method of deflated entries.
+     */
+    public static final int DEFLATED = 8;
+
+    /**
+     * Number of bytes at the end of a jar which may hold the end of central
+     * directory record and the zip64 locator.
+     */
+    private static final int END_SEARCH = 22 + 0xFFFF + 20;
+
+    /**
+     * The jar being read.
+     */
+    private File file;
+
+    /**
+     * Length of the jar in bytes.
+     */
+    private long length;
+
+    /**
+     * Read-only mapping of the jar from {@link JarReader#base} to its end,
+     * null once closed.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Offset of the mapping in the jar. Zero unless the jar is too large to
+     * be mapped whole.
+     */
+    private long base;
+
+    /**
+     * Channel entry data outside of the mapping is read from, null if the
+     * jar is mapped whole.
+     */
+    private FileChannel channel;
+
+    /**
+     * Keeps the mapping from being unmapped while an entry is read.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Number of entries in the central directory.
+     */
+    private long entryCount;
+
+    /**
+     * Offset of the central directory in the jar.
+     */
+    private long centralDirectoryOffset;
+
+    /**
+     * Size of the central directory in bytes.
+     */
+    private int centralDirectorySize;
+
+    /**
+     * Entries in central directory order.
+     */
+    private List<Entry> entries;
+
+    /**
+     * Entries by name.
+     */
+    private Map<String, Entry> entryMap;
+
+    /**
+     * Opens and maps a jar, then parses its central directory.
+     *
+     * @param file the jar to open.
+     * @throws ZipException if the file is not a valid zip.
+     * @throws IOException  if the file does not exist or cannot be mapped.
+     */
+    public JarReader(File file) throws IOException {
+        this.file = file;
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            this.length = channel.size();
+            if (this.length <= Integer.MAX_VALUE) {
+                this.map(channel, 0);
+                this.readEndRecord();
+            } else {
+                // Map the end first, then back to wherever the central directory starts
+                this.map(channel, this.length - END_SEARCH);
+                long start;
+                while ((start = this.readEndRecord()) < this.base) {
+                    if (this.length - start > Integer.MAX_VALUE)
+                        throw new ZipException("Central directory of " + file.getAbsolutePath()
+                                + " is too large to be mapped");
+                    FileUtils.unmap(this.buffer);
+                    this.map(channel, start);
+                }
+                this.channel = channel;
+            }
+            this.readCentralDirectory();
+        } catch (IOException | RuntimeException e) {
+            this.close();
+            throw e;
+        } finally {
+            if (this.channel == null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Maps the jar from the given offset to its end.
+     *
+     * @param channel channel of the jar.
+     * @param offset  start of the mapping.
+     * @throws IOException if the jar cannot be mapped.
+     */
+    private void map(FileChannel channel, long offset) throws IOException {
+        this.buffer = null;
+        this.base = offset;
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, this.length - offset)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the jar being read.
+     *
+     * @return the jar being read.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns all entries in central directory order.
+     *
+     * @return all entries in central directory order.
+     */
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Returns the entry with the given name, or null if there is none.
+     *
+     * @param name name of the entry.
+     * @return the entry with the given name, or null if there is none.
+     */
+    public Entry getEntry(String name) {
+        return this.entryMap.get(name);
+    }
+
+    /**
+     * Updates the given digest with the raw central directory bytes.
+     *
+     * @param digest the digest to update.
+     * @throws ZipException if this reader is closed.
+     */
+    public void digestCentralDirectory(MessageDigest digest) throws ZipException {
+        this.lock.readLock().lock();
+        try {
+            if (this.buffer == null)
+                throw new ZipException(this.file.getAbsolutePath() + " is closed");
+
+            digest.update(this.slice((int) (this.centralDirectoryOffset - this.base), this.centralDirectorySize));
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the entry's data as it is stored in the jar (compressed if the
+     * entry is deflated) to the given stream.
+     *
+     * @param entry the entry to copy.
+     * @param out   the stream to write to.
+     * @throws ZipException if the local header of the entry is corrupt.
+     * @throws IOException  if the data cannot be read or written.
+     */
+    public void transferTo(Entry entry, OutputStream out) throws IOException {
+        this.lock.readLock().lock();
+        try {
+            ByteBuffer raw = this.rawData(entry);
+            byte[] chunk = new byte[Math.min(raw.remaining(), 64 * 1024)];
+            while (raw.hasRemaining()) {
+                int length = Math.min(chunk.length, raw.remaining());
+                raw.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a read-only view of the entry's data as it is stored in the
+     * jar (compressed if the entry is deflated). The view must only be used
+     * while the read lock is held.
+     *
+     * @param entry the entry to get the data of.
+     * @return a read-only view of the entry's raw data.
+     * @throws ZipException if the local header of the entry is corrupt.
+     * @throws IOException  if the data cannot be read.
+     */
+    private ByteBuffer rawData(Entry entry) throws IOException {
+        if (entry.compressedSize > Integer.MAX_VALUE)
+            throw new ZipException(entry.name + " is too large to be read");
+        if (this.buffer == null)
+            throw new ZipException(this.file.getAbsolutePath() + " is closed");
+
+        return this.view(this.dataOffset(entry), (int) entry.compressedSize);
+    }
+
+    /**
+     * Reads and if needed inflates the data of an entry.
+     *
+     * @param entry the entry to read.
+     * @return the uncompressed data of the entry.
+     * @throws ZipException if the entry is corrupt or uses an unsupported
+     *                      compression method.
+     * @throws IOException  if the data cannot be read.
+     */
+    public byte[] read(Entry entry) throws IOException {
+        if (entry.size > Integer.MAX_VALUE)
+            throw new ZipException(entry.name + " is too large to be read");
+
+        this.lock.readLock().lock();
+        try {
+            return this.inflate(entry, this.rawData(entry));
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies or inflates the raw data of an entry.
+     *
+     * @param entry the entry.
+     * @param raw   the raw data of the entry.
+     * @return the uncompressed data of the entry.
+     * @throws ZipException if the entry is corrupt or uses an unsupported
+     *                      compression method.
+     */
+    private byte[] inflate(Entry entry, ByteBuffer raw) throws ZipException {
+        byte[] data = new byte[(int) entry.size];
+        if (entry.method == STORED) {
+            raw.get(data);
+            return data;
+        }
+        if (entry.method != DEFLATED)
+            throw new ZipException("Unsupported compression method "
+                    + entry.method + " for " + entry.name);
+
+        Inflater inflater = new Inflater(true);
+        try {
+            byte[] chunk = new byte[Math.min(raw.remaining() + 1, 64 * 1024)];
+            boolean padded = false;
+            int written = 0;
+            while (written < data.length) {
+                if (inflater.needsInput()) {
+                    int length = Math.min(chunk.length, raw.remaining());
+                    if (length == 0) {
+                        if (padded)
+                            break;
+                        // Raw deflate streams may need one extra dummy byte
+                        padded = true;
+                        chunk[0] = 0;
+                        length = 1;
+                    } else {
+                        raw.get(chunk, 0, length);
+                    }
+                    inflater.setInput(chunk, 0, length);
+                }
+                int inflated = inflater.inflate(data, written, data.length - written);
+                if (inflated == 0 && (inflater.finished() || inflater.needsDictionary()))
+                    break;
+                written += inflated;
+            }
+            if (written != data.length)
+                throw new ZipException("Unexpected end of data in " + entry.name);
+            return data;
+        } catch (DataFormatException dfe) {
+            throw new ZipException("Corrupt data in " + entry.name + ": " + dfe.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Unmaps the jar once no entry is being read or copied anymore. Entries
+     * can't be read afterwards.
+     */
+    @Override
+    public void close() {
+        this.lock.writeLock().lock();
+        try {
+            if (this.buffer != null) {
+                FileUtils.unmap(this.buffer);
+                this.buffer = null;
+            }
+            if (this.channel != null) {
+                try {
+                    this.channel.close();
+                } catch (IOException ignored) {
+                    // Nothing was written
+                }
+                this.channel = null;
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Parses the end of central directory record and the zip64 record if
+     * present.
+     *
+     * @return the offset of the first byte of the zip64 record or central
+     * directory which isn't mapped yet, or the offset of the central
+     * directory if everything is mapped.
+     * @throws ZipException if the file is not a valid zip.
+     */
+    private long readEndRecord() throws ZipException {
+        int end = this.findEndRecord();
+        long count = u16(end + 10);
+        long size = u32(end + 12);
+        long offset = u32(end + 16);
+
+        int locator = end - 20;
+        if (locator >= 0 && this.buffer.getInt(locator) == ZIP64_LOCATOR) {
+            long zip64End = this.buffer.getLong(locator + 8);
+            if (zip64End < 0 || zip64End > this.base + locator)
+                throw new ZipException("Invalid zip64 end record in " + this.file.getAbsolutePath());
+            if (zip64End < this.base)
+                return zip64End;
+
+            int record = (int) (zip64End - this.base);
+            if (this.buffer.getInt(record) != ZIP64_END_HEADER)
+                throw new ZipException("Invalid zip64 end record in " + this.file.getAbsolutePath());
+            count = this.buffer.getLong(record + 32);
+            size = this.buffer.getLong(record + 40);
+            offset = this.buffer.getLong(record + 48);
+        }
+        if (offset < 0 || size < 0 || size > Integer.MAX_VALUE || offset + size > this.length
+                || count > Integer.MAX_VALUE)
+            throw new ZipException("Invalid central directory in " + this.file.getAbsolutePath());
+
+        this.entryCount = count;
+        this.centralDirectoryOffset = offset;
+        this.centralDirectorySize = (int) size;
+        return offset;
+    }
+
+    /**
+     * Parses every central directory file header.
+     *
+     * @throws ZipException if the file is not a valid zip.
+     */
+    private void readCentralDirectory() throws ZipException {
+        long count = this.entryCount;
+        List<Entry> list = new ArrayList<>((int) count);
+        Map<String, Entry> map = new HashMap<>((int) (count * 4 / 3) + 1);
+        int position = (int) (this.centralDirectoryOffset - this.base);
+        int limit = position + this.centralDirectorySize;
+        for (int i = 0; i < count; i++) {
+            if (position + 46 > limit || this.buffer.getInt(position) != CENTRAL_HEADER)
+                throw new ZipException("Invalid central directory header in " + this.file.getAbsolutePath());
+
+            int flags = u16(position + 8);
+            if ((flags & 1) != 0)
+                throw new ZipException("Encrypted entries are not supported");
+            int nameLength = u16(position + 28);
+            int extraLength = u16(position + 30);
+            int commentLength = u16(position + 32);
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer view = this.buffer.duplicate();
+            view.position(position + 46);
+            view.get(nameBytes);
+
+            Entry entry = new Entry();
+            entry.name = new String(nameBytes, StandardCharsets.UTF_8);
+            entry.method = u16(position + 10);
+            entry.dosTime = u32(position + 12);
+            entry.crc = u32(position + 16);
+            entry.compressedSize = u32(position + 20);
+            entry.size = u32(position + 24);
+            entry.localHeaderOffset = u32(position + 42);
+            this.readZip64Extra(entry, position + 46 + nameLength, extraLength);
+
+            list.add(entry);
+            map.putIfAbsent(entry.name, entry);
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        this.entries = Collections.unmodifiableList(list);
+        this.entryMap = map;
+    }
+
+    /**
+     * Replaces the sizes and local header offset of the entry with the
+     * values from the zip64 extra field if they overflowed.
+     *
+     * @param entry  the entry the extra field belongs to.
+     * @param start  offset of the extra field data.
+     * @param length length of the extra field data.
+     */
+    private void readZip64Extra(Entry entry, int start, int length) {
+        int position = start;
+        while (position + 4 <= start + length) {
+            int id = u16(position);
+            int dataSize = u16(position + 2);
+            if (id == 0x0001) {
+                int field = position + 4;
+                if (entry.size == 0xFFFFFFFFL) {
+                    entry.size = this.buffer.getLong(field);
+                    field += 8;
+                }
+                if (entry.compressedSize == 0xFFFFFFFFL) {
+                    entry.compressedSize = this.buffer.getLong(field);
+                    field += 8;
+                }
+                if (entry.localHeaderOffset == 0xFFFFFFFFL) {
+                    entry.localHeaderOffset = this.buffer.getLong(field);
+                }
+                return;
+            }
+            position += 4 + dataSize;
+        }
+    }
+
+    /**
+     * Searches backwards for the end of central directory record.
+     *
+     * @return the offset of the end of central directory record.
+     * @throws ZipException if there is none.
+     */
+    private int findEndRecord() throws ZipException {
+        int lowest = Math.max(0, this.buffer.capacity() - 22 - 0xFFFF);
+        for (int position = this.buffer.capacity() - 22; position >= lowest; position--) {
+            if (this.buffer.getInt(position) == END_HEADER)
+                return position;
+        }
+        throw new ZipException(this.file.getAbsolutePath() + " is not a zip file");
+    }
+
+    /**
+     * Returns the offset of the entry data by skipping its local header.
+     *
+     * @param entry the entry.
+     * @return the offset of the entry data.
+     * @throws ZipException if the local header is corrupt.
+     * @throws IOException  if the local header cannot be read.
+     */
+    private long dataOffset(Entry entry) throws IOException {
+        long dataOffset = entry.dataOffset;
+        if (dataOffset < 0) {
+            long header = entry.localHeaderOffset;
+            if (header < 0 || header + 30 > this.length)
+                throw new ZipException("Invalid local header for " + entry.name);
+            ByteBuffer local = this.view(header, 30);
+            if (local.getInt(0) != LOCAL_HEADER)
+                throw new ZipException("Invalid local header for " + entry.name);
+            dataOffset = header + 30 + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+            if (dataOffset + entry.compressedSize > this.length)
+                throw new ZipException("Truncated data for " + entry.name);
+            entry.dataOffset = dataOffset;
+        }
+        return dataOffset;
+    }
+
+    /**
+     * Returns a little-endian read-only view of part of the jar. Parts
+     * before the mapping are read from the jar into a new buffer.
+     *
+     * @param offset offset of the part in the jar.
+     * @param length length of the part.
+     * @return the view.
+     * @throws IOException if the part cannot be read.
+     */
+    private ByteBuffer view(long offset, int length) throws IOException {
+        if (offset >= this.base)
+            return this.slice((int) (offset - this.base), length);
+
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        while (copy.hasRemaining()) {
+            if (this.channel.read(copy, offset + copy.position()) < 0)
+                throw new ZipException("Unexpected end of " + this.file.getAbsolutePath());
+        }
+        copy.flip();
+        return copy.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns a little-endian read-only view of part of the mapping.
+     *
+     * @param offset start of the view.
+     * @param length length of the view.
+     * @return the view.
+     */
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads an unsigned little-endian short.
+     *
+     * @param position absolute position in the mapping.
+     * @return the unsigned value.
+     */
+    private int u16(int position) {
+        return this.buffer.getShort(position) & 0xFFFF;
+    }
+
+    /**
+     * Reads an unsigned little-endian int.
+     *
+     * @param position absolute position in the mapping.
+     * @return the unsigned value.
+     */
+    private long u32(int position) {
+        return this.buffer.getInt(position) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * An entry of the central directory.
+     */
+    public static class Entry {
+        /**
+         * Name of the entry.
+         */
+        String name;
+
+        /**
+         * Compression method of the entry.
+         */
+        int method;
+
+        /**
+         * MS-DOS date and time of the entry.
+         */
+        long dosTime;
+
+        /**
+         * CRC-32 of the uncompressed data.
+         */
+        long crc;
+
+        /**
+         * Size of the data as stored in the jar.
+         */
+        long compressedSize;
+
+        /**
+         * Size of the uncompressed data.
+         */
+        long size;
+
+        /**
+         * Offset of the local file header.
+         */
+        long localHeaderOffset;
+
+        /**
+         * Offset of the entry data, or -1 if not resolved yet.
+         */
+        volatile long dataOffset = -1;
+
+        /**
+         * Returns the name of the entry.
+         *
+         * @return the name of the entry.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the compression method of the entry.
+         *
+         * @return the compression method of the entry.
+         */
+        public int getMethod() {
+            return this.method;
+        }
+
+        /**
+         * Returns the MS-DOS date and time of the entry.
+         *
+         * @return the MS-DOS date and time of the entry.
+         */
+        public long getDosTime() {
+            return this.dosTime;
+        }
+
+        /**
+         * Returns the CRC-32 of the uncompressed data.
+         *
+         * @return the CRC-32 of the uncompressed data.
+         */
+        public long getCrc() {
+            return this.crc;
+        }
+
+        /**
+         * Returns the size of the data as stored in the jar.
+         *
+         * @return the size of the data as stored in the jar.
+         */
+        public long getCompressedSize() {
+            return this.compressedSize;
+        }
+
+        /**
+         * Returns the size of the uncompressed data.
+         *
+         * @return the size of the uncompressed data.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * Returns true if this entry is a directory.
+         *
+         * @return true if this entry is a directory.
+         */
+        public boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+    }
+}
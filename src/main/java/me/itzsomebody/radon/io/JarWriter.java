@@ -0,0 +1,595 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Writes jars. Besides writing entries from uncompressed data, entries of a
+ * {@link JarReader} can be copied as they are stored in the source jar, so
+ * their data is never inflated, held on the heap or deflated again.
+ * <p>
+ * New entries are compressed concurrently on an {@link ExecutorService} if
+ * one is given, while the archive itself is assembled in the order the
+ * entries were added. At most {@link JarWriter#WINDOW} entries are in
+ * flight at once, which bounds the memory held by compressed entries that
+ * are waiting to be written.
+ * </p>
+ * <p>
+ * Sizes and CRC-32 of every entry are known before it is written, so no
+ * data descriptors are used. A {@link JarWriter} must only be used by one
+ * thread at a time.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class JarWriter implements Closeable {
+    /**
+     * General purpose flag indicating that names are UTF-8 encoded.
+     */
+    private static final int UTF8_FLAG = 0x800;
+
+    /**
+     * Compression level which stores entries without compressing them.
+     */
+    public static final int STORED_LEVEL = 0;
+
+    /**
+     * Maximum number of entries which are compressed or waiting to be
+     * written at once.
+     */
+    private static final int WINDOW = 64;
+
+    /**
+     * Deflaters of every thread compressing entries, indexed by compression
+     * level + 1.
+     */
+    private static final ThreadLocal<Deflater[]> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater[Deflater.BEST_COMPRESSION + 2]);
+
+    /**
+     * Largest value which fits into the 32-bit fields of the zip format.
+     */
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    /**
+     * Largest entry count which fits into the end of central directory
+     * record.
+     */
+    private static final int MAX_16 = 0xFFFF;
+
+    /**
+     * Stream the jar is written to.
+     */
+    private OutputStream out;
+
+    /**
+     * The file stream below {@link JarWriter#out}, closed without flushing
+     * by {@link JarWriter#abort()}.
+     */
+    private FileOutputStream file;
+
+    /**
+     * Number of bytes written so far.
+     */
+    private long written;
+
+    /**
+     * Written entries, in order.
+     */
+    private List<Record> records = new ArrayList<>();
+
+    /**
+     * Names of the written entries.
+     */
+    private Set<String> names = new HashSet<>();
+
+    /**
+     * Comment of the jar.
+     */
+    private byte[] comment = new byte[0];
+
+    /**
+     * Executor entries are compressed on, null to compress them on the
+     * calling thread.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Entries which are added but not written yet, in order.
+     */
+    private Deque<Future<Pending>> pending = new ArrayDeque<>();
+
+    /**
+     * Scratch buffer headers are assembled in.
+     */
+    private ByteBuffer header = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Creates the given file and opens it for writing. Entries are
+     * compressed on the calling thread.
+     *
+     * @param file the jar to write.
+     * @throws IOException if the file can't be created.
+     */
+    public JarWriter(File file) throws IOException {
+        this(file, null);
+    }
+
+    /**
+     * Creates the given file and opens it for writing.
+     *
+     * @param file     the jar to write.
+     * @param executor {@link ExecutorService} entries are compressed on, null
+     *                 to compress them on the calling thread.
+     * @throws IOException if the file can't be created.
+     */
+    public JarWriter(File file, ExecutorService executor) throws IOException {
+        this.file = new FileOutputStream(file);
+        this.out = new BufferedOutputStream(this.file, 64 * 1024);
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the comment of the jar.
+     *
+     * @param comment the comment of the jar.
+     */
+    public void setComment(String comment) {
+        this.comment = comment.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compresses and writes an entry.
+     *
+     * @param name  name of the entry.
+     * @param data  uncompressed data of the entry.
+     * @param time  modification time of the entry in milliseconds.
+     * @param level compression level from {@link Deflater#DEFAULT_COMPRESSION}
+     *              to {@link Deflater#BEST_COMPRESSION}, or
+     *              {@link JarWriter#STORED_LEVEL} to store the entry.
+     * @throws IOException if an earlier entry can't be written.
+     */
+    public void writeEntry(String name, byte[] data, long time, int level) throws IOException {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        this.checkName(name);
+        Callable<Pending> task = () -> compress(name, data, time, level);
+        if (this.executor != null) {
+            this.add(this.executor.submit(task));
+        } else {
+            this.add(completed(task));
+        }
+    }
+
+    /**
+     * Copies an entry of a {@link JarReader} without inflating it. The
+     * {@link JarReader} must not be closed before this writer is.
+     *
+     * @param jar   the {@link JarReader} the entry belongs to.
+     * @param entry the entry to copy.
+     * @param time  modification time of the entry in milliseconds.
+     * @throws IOException if an earlier entry can't be written.
+     */
+    public void copyEntry(JarReader jar, JarReader.Entry entry, long time) throws IOException {
+        this.checkName(entry.getName());
+        Pending raw = new Pending();
+        raw.name = entry.getName();
+        raw.method = entry.getMethod();
+        raw.time = time;
+        raw.crc = entry.getCrc();
+        raw.compressedSize = entry.getCompressedSize();
+        raw.size = entry.getSize();
+        raw.jar = jar;
+        raw.entry = entry;
+        this.add(CompletableFuture.completedFuture(raw));
+    }
+
+    /**
+     * Writes the remaining entries and the central directory and closes the
+     * jar.
+     *
+     * @throws IOException if an entry or the central directory can't be
+     *                     written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.out == null)
+            return;
+
+        try {
+            while (!this.pending.isEmpty()) {
+                this.writePending();
+            }
+
+            long offset = this.written;
+            for (Record record : this.records) {
+                this.header.clear();
+                this.header.putInt(JarReader.CENTRAL_HEADER);
+                this.header.putShort((short) 20);
+                this.putCommon(record);
+                this.header.putShort((short) 0); // Comment length
+                this.header.putShort((short) 0); // Disk number
+                this.header.putShort((short) 0); // Internal attributes
+                this.header.putInt(0); // External attributes
+                this.header.putInt((int) record.offset);
+                this.writeHeader(record.name);
+            }
+            long size = this.written - offset;
+
+            int count = this.records.size();
+            if (count > MAX_16 || offset > MAX_32 || size > MAX_32) {
+                long end = this.written;
+                this.header.clear();
+                this.header.putInt(JarReader.ZIP64_END_HEADER);
+                this.header.putLong(44); // Size of the rest of the record
+                this.header.putShort((short) 45);
+                this.header.putShort((short) 45);
+                this.header.putInt(0); // Disk number
+                this.header.putInt(0); // Disk with the central directory
+                this.header.putLong(count);
+                this.header.putLong(count);
+                this.header.putLong(size);
+                this.header.putLong(offset);
+                this.writeHeader(null);
+
+                this.header.clear();
+                this.header.putInt(JarReader.ZIP64_LOCATOR);
+                this.header.putInt(0); // Disk with the zip64 end record
+                this.header.putLong(end);
+                this.header.putInt(1); // Number of disks
+                this.writeHeader(null);
+            }
+
+            this.header.clear();
+            this.header.putInt(JarReader.END_HEADER);
+            this.header.putShort((short) 0); // Disk number
+            this.header.putShort((short) 0); // Disk with the central directory
+            this.header.putShort((short) Math.min(count, MAX_16));
+            this.header.putShort((short) Math.min(count, MAX_16));
+            this.header.putInt((int) Math.min(size, MAX_32));
+            this.header.putInt((int) Math.min(offset, MAX_32));
+            this.header.putShort((short) this.comment.length);
+            this.writeHeader(null);
+            this.out.write(this.comment);
+        } finally {
+            this.pending.forEach(future -> future.cancel(false));
+            this.pending.clear();
+            this.out.close();
+            this.out = null;
+        }
+    }
+
+    /**
+     * Gives up writing the jar after a failure. Entries still being
+     * compressed are dropped, nothing buffered is flushed and no central
+     * directory is written, so the file is never mistaken for a complete
+     * jar. Does nothing if the jar was already closed.
+     *
+     * @throws IOException if the file can't be closed.
+     */
+    public void abort() throws IOException {
+        if (this.out == null)
+            return;
+
+        try {
+            this.pending.forEach(future -> future.cancel(false));
+            this.pending.clear();
+        } finally {
+            this.out = null;
+            this.file.close();
+        }
+    }
+
+    /**
+     * Throws if an entry with the given name was already added.
+     *
+     * @param name name of the entry.
+     * @throws ZipException if an entry with the given name was already
+     *                      added.
+     */
+    private void checkName(String name) throws ZipException {
+        if (!this.names.add(name))
+            throw new ZipException("duplicate entry: " + name);
+    }
+
+    /**
+     * Queues an entry, writing the oldest entries first if too many are in
+     * flight.
+     *
+     * @param future the entry.
+     * @throws IOException if an earlier entry can't be written.
+     */
+    private void add(Future<Pending> future) throws IOException {
+        this.pending.add(future);
+        while (this.pending.size() > WINDOW) {
+            this.writePending();
+        }
+    }
+
+    /**
+     * Waits for the oldest queued entry and writes it.
+     *
+     * @throws IOException if the entry can't be compressed or written.
+     */
+    private void writePending() throws IOException {
+        Pending entry;
+        try {
+            entry = this.pending.poll().get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing entries");
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException("Error while compressing entry: " + cause.getMessage(), cause);
+        }
+
+        if (entry.compressedSize >= MAX_32 || entry.size >= MAX_32 || this.written >= MAX_32)
+            throw new ZipException(entry.name + " is too large to be written");
+
+        Record record = new Record();
+        record.name = entry.name.getBytes(StandardCharsets.UTF_8);
+        record.method = entry.method;
+        record.dosTime = dosTime(entry.time);
+        record.crc = entry.crc;
+        record.compressedSize = entry.compressedSize;
+        record.size = entry.size;
+        record.offset = this.written;
+
+        this.header.clear();
+        this.header.putInt(JarReader.LOCAL_HEADER);
+        this.putCommon(record);
+        this.writeHeader(record.name);
+
+        if (entry.jar != null) {
+            entry.jar.transferTo(entry.entry, this.out);
+        } else {
+            this.out.write(entry.data, 0, (int) entry.compressedSize);
+        }
+        this.written += entry.compressedSize;
+        this.records.add(record);
+    }
+
+    /**
+     * Compresses an entry. Safe to call on multiple threads at once.
+     *
+     * @param name  name of the entry.
+     * @param data  uncompressed data of the entry.
+     * @param time  modification time of the entry in milliseconds.
+     * @param level compression level or {@link JarWriter#STORED_LEVEL}.
+     * @return the compressed entry.
+     */
+    private static Pending compress(String name, byte[] data, long time, int level) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        Pending entry = new Pending();
+        entry.name = name;
+        entry.time = time;
+        entry.crc = crc.getValue();
+        entry.size = data.length;
+        if (level == STORED_LEVEL) {
+            entry.method = JarReader.STORED;
+            entry.data = data;
+            entry.compressedSize = data.length;
+            return entry;
+        }
+
+        Deflater[] deflaters = DEFLATERS.get();
+        Deflater deflater = deflaters[level + 1];
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            deflaters[level + 1] = deflater;
+        }
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] deflated = new byte[Math.max(64, data.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == deflated.length) {
+                deflated = Arrays.copyOf(deflated, deflated.length * 2);
+            }
+            length += deflater.deflate(deflated, length, deflated.length - length);
+        }
+        entry.method = JarReader.DEFLATED;
+        entry.data = deflated;
+        entry.compressedSize = length;
+        return entry;
+    }
+
+    /**
+     * Runs a task on the calling thread.
+     *
+     * @param task the task to run.
+     * @return a completed {@link Future} of the result.
+     */
+    private static Future<Pending> completed(Callable<Pending> task) {
+        CompletableFuture<Pending> future = new CompletableFuture<>();
+        try {
+            future.complete(task.call());
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    /**
+     * Puts the fields shared by the local and central headers, from the
+     * version needed to extract up to the extra field length.
+     *
+     * @param record the entry.
+     */
+    private void putCommon(Record record) {
+        this.header.putShort((short) (record.method == JarReader.STORED ? 10 : 20));
+        this.header.putShort((short) UTF8_FLAG);
+        this.header.putShort((short) record.method);
+        this.header.putInt((int) record.dosTime);
+        this.header.putInt((int) record.crc);
+        this.header.putInt((int) record.compressedSize);
+        this.header.putInt((int) record.size);
+        this.header.putShort((short) record.name.length);
+        this.header.putShort((short) 0); // Extra field length
+    }
+
+    /**
+     * Writes the assembled header followed by the name.
+     *
+     * @param name the encoded name, null if the header has none.
+     * @throws IOException if the header can't be written.
+     */
+    private void writeHeader(byte[] name) throws IOException {
+        this.out.write(this.header.array(), 0, this.header.position());
+        this.written += this.header.position();
+        if (name != null) {
+            this.out.write(name);
+            this.written += name.length;
+        }
+    }
+
+    /**
+     * Converts milliseconds to MS-DOS date and time.
+     *
+     * @param time the time in milliseconds.
+     * @return the MS-DOS date and time.
+     */
+    private static long dosTime(long time) {
+        LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        if (date.getYear() < 1980)
+            return (1 << 21) | (1 << 16);
+
+        return ((date.getYear() - 1980) << 25 | date.getMonthValue() << 21 | date.getDayOfMonth() << 16
+                | date.getHour() << 11 | date.getMinute() << 5 | date.getSecond() >> 1) & MAX_32;
+    }
+
+    /**
+     * An added entry which isn't written yet.
+     */
+    private static class Pending {
+        /**
+         * Name of the entry.
+         */
+        private String name;
+
+        /**
+         * Compression method of the entry.
+         */
+        private int method;
+
+        /**
+         * Modification time of the entry in milliseconds.
+         */
+        private long time;
+
+        /**
+         * CRC-32 of the uncompressed data.
+         */
+        private long crc;
+
+        /**
+         * Size of the data as stored.
+         */
+        private long compressedSize;
+
+        /**
+         * Size of the uncompressed data.
+         */
+        private long size;
+
+        /**
+         * Data as stored, null if the entry is copied from a jar.
+         */
+        private byte[] data;
+
+        /**
+         * The jar and entry the data is copied from, null if the entry is
+         * written from {@link Pending#data}.
+         */
+        private JarReader jar;
+        private JarReader.Entry entry;
+    }
+
+    /**
+     * A written entry.
+     */
+    private static class Record {
+        /**
+         * UTF-8 encoded name of the entry.
+         */
+        private byte[] name;
+
+        /**
+         * Compression method of the entry.
+         */
+        private int method;
+
+        /**
+         * MS-DOS date and time of the entry.
+         */
+        private long dosTime;
+
+        /**
+         * CRC-32 of the uncompressed data.
+         */
+        private long crc;
+
+        /**
+         * Size of the data as stored.
+         */
+        private long compressedSize;
+
+        /**
+         * Size of the uncompressed data.
+         */
+        private long size;
+
+        /**
+         * Offset of the local header.
+         */
+        private long offset;
+    }
+}
@@ -20,10 +20,16 @@ package me.itzsomebody.radon.transformers;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import me.itzsomebody.radon.classpath.ClassHierarchy;
+import me.itzsomebody.radon.classpath.LibraryStub;
+import me.itzsomebody.radon.classpath.SubtypeIndex;
 import me.itzsomebody.radon.internal.Bootstrap;
-import me.itzsomebody.radon.utils.CustomRegexUtils;
+import me.itzsomebody.radon.internal.RunReport;
+import me.itzsomebody.radon.utils.ExemptMatcher;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.CodeSizeEvaluator;
 import org.objectweb.asm.tree.ClassNode;
@@ -45,16 +51,28 @@ public abstract class AbstractTransformer implements Opcodes {
      */
     private List<String> exempts;
 
+    /**
+     * Compiled exempts of the current run, exempt identifier -> matcher.
+     */
+    private Map<String, ExemptMatcher> exemptMatchers;
+
     /**
      * Dictionary for naming.
      */
     protected int dictionary;
 
     /**
-     * Logged strings from transformer console output.
+     * Logged strings from transformer console output. Synchronized, since
+     * class-local transformers may log from several worker threads.
      */
     protected List<String> logStrings;
 
+    /**
+     * Statistics of this transformer in the run report, null if no report
+     * is made.
+     */
+    private RunReport.Stats reportStats;
+
     /**
      * Dependency injection method.
      *
@@ -65,8 +83,21 @@ public abstract class AbstractTransformer implements Opcodes {
                      List<String> exempts, int dictionary) {
         this.bootstrap = bootstrap;
         this.exempts = exempts;
+        this.exemptMatchers = new ConcurrentHashMap<>();
         this.dictionary = dictionary;
-        this.logStrings = new ArrayList<>();
+        this.logStrings = Collections.synchronizedList(new ArrayList<>());
+        this.reportStats = (bootstrap.getReport() != null)
+                ? bootstrap.getReport().stats(this.getClass().getSimpleName()) : null;
+    }
+
+    /**
+     * Returns the statistics of this transformer in the run report.
+     *
+     * @return the statistics of this transformer or null if no report is
+     * made.
+     */
+    public RunReport.Stats getReportStats() {
+        return this.reportStats;
     }
 
     /**
@@ -96,6 +127,42 @@ public abstract class AbstractTransformer implements Opcodes {
         return this.bootstrap.getClassPath();
     }
 
+    /**
+     * Returns the library classes the input depends on.
+     *
+     * @return the library classes the input depends on.
+     */
+    protected Map<String, LibraryStub> getLibraryClassMap() {
+        return this.bootstrap.getLibraryClasses();
+    }
+
+    /**
+     * Returns the class hierarchy.
+     *
+     * @return the class hierarchy.
+     */
+    protected ClassHierarchy getHierarchy() {
+        return this.bootstrap.getHierarchy();
+    }
+
+    /**
+     * Returns the {@link SubtypeIndex} of the class hierarchy.
+     *
+     * @return the {@link SubtypeIndex} of the class hierarchy.
+     */
+    protected SubtypeIndex getSubtypeIndex() {
+        return this.bootstrap.getSubtypeIndex();
+    }
+
+    /**
+     * Returns the seed of the run.
+     *
+     * @return the seed of the run, null if the run isn't seeded.
+     */
+    protected Long getSeed() {
+        return this.bootstrap.getSeed();
+    }
+
     /**
      * Returns the loaded resources.
      *
@@ -136,35 +203,24 @@ public abstract class AbstractTransformer implements Opcodes {
     }
 
     /**
-     * Returns true if member is exempted from obfuscation.
+     * Returns true if member is exempted from obfuscation. The exempts are
+     * compiled into an {@link ExemptMatcher} the first time an exempt
+     * identifier is used in a run.
      *
      * @param checkThis string to check for exempt.
      * @param exemptId  per-transformer exempt identifier.
      * @return true if member is exempted from obfuscation.
      */
     protected boolean exempted(String checkThis, String exemptId) {
-        String exemptKey = exemptId + ": ";
-        for (String exempt : this.exempts) {
-            if (exempt.startsWith(exemptKey)) {
-                if (CustomRegexUtils.isMatched(exempt.replace(exemptKey, ""), checkThis)) {
-                    return true;
-                }
-            } else if (exempt.startsWith("Class: ")) {
-                if (CustomRegexUtils.isMatched(exempt.replace("Class: ", ""), checkThis)) {
-                    return true;
-                }
-            } else if (exempt.startsWith("Method: ")) {
-                if (CustomRegexUtils.isMatched(exempt.replace("Method: ", ""), checkThis)) {
-                    return true;
-                }
-            } else if (exempt.startsWith("Field: ")) {
-                if (CustomRegexUtils.isMatched(exempt.replace("Field: ", ""), checkThis)) {
-                    return true;
-                }
+        ExemptMatcher matcher = this.exemptMatchers.get(exemptId);
+        if (matcher == null) {
+            matcher = ExemptMatcher.compile(this.exempts, exemptId);
+            ExemptMatcher previous = this.exemptMatchers.putIfAbsent(exemptId, matcher);
+            if (previous != null) {
+                matcher = previous;
             }
         }
-
-        return false;
+        return matcher.matches(checkThis);
     }
 
     /**
@@ -200,6 +256,17 @@ public abstract class AbstractTransformer implements Opcodes {
         return this.logStrings;
     }
 
+    /**
+     * Returns a description of this transformer and its settings. Cached
+     * output of a previous run is only reused if the fingerprints of all
+     * transformers are the same.
+     *
+     * @return a description of this transformer and its settings.
+     */
+    public String fingerprint() {
+        return this.getClass().getName();
+    }
+
     /**
      * Obfuscation time.
      */
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.transformers;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.itzsomebody.radon.internal.RunReport;
+import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.utils.NumberUtils;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Abstract class used to make transformers which only need the class they
+ * are currently transforming (and the class hierarchy). Such transformers
+ * don't have to see every class at once, which allows them to run on one
+ * class at a time in streaming mode.
+ * <p>
+ * The lifecycle is {@link ClassLocalTransformer#begin()}, then
+ * {@link ClassLocalTransformer#transform(ClassNode)} for every class and
+ * finally {@link ClassLocalTransformer#finish()}. In seeded runs every class
+ * gets its own random stream, so the output doesn't depend on the order
+ * classes are transformed in.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public abstract class ClassLocalTransformer extends AbstractTransformer {
+    /**
+     * Number of changes made by this transformer.
+     */
+    protected AtomicInteger counter;
+
+    /**
+     * Time this transformer began.
+     */
+    private long current;
+
+    /**
+     * Applies obfuscation to every loaded class.
+     */
+    @Override
+    public void obfuscate() {
+        this.begin();
+        this.classNodes().forEach(this::transform);
+        this.finish();
+    }
+
+    /**
+     * Called once before the first class is transformed.
+     */
+    public void begin() {
+        this.counter = new AtomicInteger();
+        this.current = System.currentTimeMillis();
+        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
+        this.logStrings.add(LoggerUtils.stdOut(this.startMessage()));
+    }
+
+    /**
+     * Returns true if {@link ClassLocalTransformer#begin()} picks random
+     * values which every class shares. Such values are only the same in
+     * every run if they are drawn from a seeded stream, so incremental runs
+     * which reuse classes of an earlier run need a seed for them.
+     *
+     * @return true if this transformer picks random values shared by every
+     * class.
+     */
+    public boolean sharesRandomValues() {
+        return false;
+    }
+
+    /**
+     * Applies obfuscation to a single class while drawing random numbers
+     * from the stream of this transformer and the class. The class is
+     * measured for the run report if one is made.
+     *
+     * @param classNode the class to transform.
+     */
+    public final void transform(ClassNode classNode) {
+        RunReport.Stats stats = this.getReportStats();
+        RunReport.ClassMeasurement measurement = (stats != null) ? stats.beginClass(classNode) : null;
+        Random previous = NumberUtils.enterStream(this.getSeed(), this.getClass().getName(), classNode.name);
+        try {
+            this.transformClass(classNode);
+        } finally {
+            NumberUtils.exitStream(previous);
+        }
+        if (measurement != null) {
+            stats.endClass(measurement);
+        }
+    }
+
+    /**
+     * Applies obfuscation to a single class. Exempted classes are skipped by
+     * the implementation.
+     *
+     * @param classNode the class to transform.
+     */
+    public abstract void transformClass(ClassNode classNode);
+
+    /**
+     * Called once after the last class was transformed.
+     */
+    public void finish() {
+        this.logStrings.add(LoggerUtils.stdOut(this.finishMessage(this.counter.get())));
+        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(this.current) + "ms]"));
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    protected abstract String startMessage();
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    protected abstract String finishMessage(int count);
+}
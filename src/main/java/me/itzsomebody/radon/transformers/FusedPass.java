@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.transformers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import me.itzsomebody.radon.utils.NumberUtils;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Runs consecutive {@link ClassLocalTransformer}s in a single pass over the
+ * classes instead of one pass per transformer. Every class is handed to the
+ * transformers in their configured order before the next class is
+ * transformed, and consecutive {@link MethodLocalTransformer}s share a
+ * single walk over the methods of the class.
+ *
+ * @author ItzSomebody
+ */
+public class FusedPass {
+    /**
+     * The transformers of this pass, in order.
+     */
+    private final List<ClassLocalTransformer> transformers;
+
+    /**
+     * Steps a class goes through, in order. A step is either a single
+     * {@link ClassLocalTransformer} or consecutive
+     * {@link MethodLocalTransformer}s which walk the methods together.
+     */
+    private final List<ClassLocalTransformer[]> steps = new ArrayList<>();
+
+    /**
+     * Creates a pass over the given transformers.
+     *
+     * @param transformers the transformers, in order.
+     * @param fuseMethods  should consecutive {@link MethodLocalTransformer}s
+     *                     walk the methods together? Transformers which
+     *                     walk together can't be measured one by one for the
+     *                     run report.
+     */
+    public FusedPass(List<ClassLocalTransformer> transformers, boolean fuseMethods) {
+        this.transformers = transformers;
+        List<MethodLocalTransformer> run = new ArrayList<>();
+        for (ClassLocalTransformer transformer : transformers) {
+            if (fuseMethods && transformer instanceof MethodLocalTransformer) {
+                run.add((MethodLocalTransformer) transformer);
+            } else {
+                this.addRun(run);
+                this.steps.add(new ClassLocalTransformer[]{transformer});
+            }
+        }
+        this.addRun(run);
+    }
+
+    /**
+     * Adds the collected {@link MethodLocalTransformer}s as one step and
+     * clears them.
+     *
+     * @param run the collected {@link MethodLocalTransformer}s.
+     */
+    private void addRun(List<MethodLocalTransformer> run) {
+        if (run.size() == 1) {
+            this.steps.add(new ClassLocalTransformer[]{run.get(0)});
+        } else if (run.size() > 1) {
+            this.steps.add(run.toArray(new MethodLocalTransformer[0]));
+        }
+        run.clear();
+    }
+
+    /**
+     * Calls {@link ClassLocalTransformer#begin()} of every transformer while
+     * drawing random numbers from the stream of the transformer.
+     */
+    public void begin() {
+        for (ClassLocalTransformer transformer : this.transformers) {
+            Random previous = NumberUtils.enterStream(transformer.getSeed(), transformer.getClass().getName());
+            try {
+                transformer.begin();
+            } finally {
+                NumberUtils.exitStream(previous);
+            }
+        }
+    }
+
+    /**
+     * Applies every transformer to a single class.
+     *
+     * @param classNode the class to transform.
+     */
+    public void transform(ClassNode classNode) {
+        for (ClassLocalTransformer[] step : this.steps) {
+            if (step.length == 1) {
+                step[0].transform(classNode);
+            } else {
+                MethodLocalTransformer.transformFused((MethodLocalTransformer[]) step, classNode);
+            }
+        }
+    }
+
+    /**
+     * Calls {@link ClassLocalTransformer#finish()} of every transformer.
+     */
+    public void finish() {
+        this.transformers.forEach(ClassLocalTransformer::finish);
+    }
+
+    /**
+     * Returns the transformers of this pass.
+     *
+     * @return the transformers of this pass, in order.
+     */
+    public List<ClassLocalTransformer> getTransformers() {
+        return this.transformers;
+    }
+
+    /**
+     * Returns the name of this pass, the simple names of its transformers
+     * joined by '+'.
+     *
+     * @return the name of this pass.
+     */
+    public String getName() {
+        StringBuilder sb = new StringBuilder();
+        for (ClassLocalTransformer transformer : this.transformers) {
+            if (sb.length() > 0) {
+                sb.append('+');
+            }
+            sb.append(transformer.getClass().getSimpleName());
+        }
+        return sb.toString();
+    }
+}
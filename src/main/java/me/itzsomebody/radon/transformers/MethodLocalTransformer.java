@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.transformers;
+
+import java.util.List;
+import java.util.Random;
+import me.itzsomebody.radon.utils.NumberUtils;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Abstract class used to make {@link ClassLocalTransformer}s which transform
+ * every method of a class on its own. Such transformers don't have to walk
+ * the methods themselves, which lets a {@link FusedPass} hand every method
+ * to several of them in a single walk over the class.
+ * <p>
+ * A class is transformed by {@link MethodLocalTransformer#beginClass},
+ * then {@link MethodLocalTransformer#transformMethod} for every accepted
+ * method and finally {@link MethodLocalTransformer#endClass}. When fused,
+ * other transformers may change a method between these calls, so
+ * {@link MethodLocalTransformer#beginClass} should only look at the class
+ * itself and no callback may add or remove methods.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public abstract class MethodLocalTransformer extends ClassLocalTransformer {
+    /**
+     * Applies obfuscation to a single class by walking its methods.
+     *
+     * @param classNode the class to transform.
+     */
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (!this.beginClass(classNode))
+            return;
+
+        List<MethodNode> methods = classNode.methods;
+        for (int i = 0; i < methods.size(); i++) {
+            MethodNode methodNode = methods.get(i);
+            if (this.acceptsMethod(classNode, methodNode)) {
+                this.transformMethod(classNode, methodNode);
+            }
+        }
+        this.endClass(classNode);
+    }
+
+    /**
+     * Returns the per-transformer exempt identifier, such as "Flow".
+     *
+     * @return the per-transformer exempt identifier.
+     */
+    protected abstract String exemptId();
+
+    /**
+     * Called before the methods of a class are transformed.
+     *
+     * @param classNode the class about to be transformed.
+     * @return false if the class is skipped.
+     */
+    protected boolean beginClass(ClassNode classNode) {
+        return !this.exempted(classNode.name, this.exemptId());
+    }
+
+    /**
+     * Returns true if the given method should be transformed.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to check.
+     * @return true if the given method should be transformed.
+     */
+    protected boolean acceptsMethod(ClassNode classNode, MethodNode methodNode) {
+        return !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, this.exemptId());
+    }
+
+    /**
+     * Applies obfuscation to a single method.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to transform.
+     */
+    protected abstract void transformMethod(ClassNode classNode, MethodNode methodNode);
+
+    /**
+     * Called after the methods of a class were transformed, unless
+     * {@link MethodLocalTransformer#beginClass} skipped the class.
+     *
+     * @param classNode the transformed class.
+     */
+    protected void endClass(ClassNode classNode) {
+    }
+
+    /**
+     * Applies the given transformers to a class in a single walk over its
+     * methods. Every method is handed to the transformers in the given
+     * order, each drawing random numbers from its own stream for the class,
+     * so the result is the same as transforming the class with one
+     * transformer after another.
+     *
+     * @param transformers the transformers, in order.
+     * @param classNode    the class to transform.
+     */
+    static void transformFused(MethodLocalTransformer[] transformers, ClassNode classNode) {
+        Random[] streams = new Random[transformers.length];
+        boolean[] active = new boolean[transformers.length];
+        boolean any = false;
+        for (int t = 0; t < transformers.length; t++) {
+            MethodLocalTransformer transformer = transformers[t];
+            streams[t] = NumberUtils.newStream(transformer.getSeed(), transformer.getClass().getName(),
+                    classNode.name);
+            Random previous = NumberUtils.useStream(streams[t]);
+            try {
+                active[t] = transformer.beginClass(classNode);
+            } finally {
+                NumberUtils.exitStream(previous);
+            }
+            any |= active[t];
+        }
+        if (!any)
+            return;
+
+        List<MethodNode> methods = classNode.methods;
+        for (int i = 0; i < methods.size(); i++) {
+            MethodNode methodNode = methods.get(i);
+            for (int t = 0; t < transformers.length; t++) {
+                if (!active[t])
+                    continue;
+
+                MethodLocalTransformer transformer = transformers[t];
+                Random previous = NumberUtils.useStream(streams[t]);
+                try {
+                    if (transformer.acceptsMethod(classNode, methodNode)) {
+                        transformer.transformMethod(classNode, methodNode);
+                    }
+                } finally {
+                    NumberUtils.exitStream(previous);
+                }
+            }
+        }
+
+        for (int t = 0; t < transformers.length; t++) {
+            if (!active[t])
+                continue;
+
+            Random previous = NumberUtils.useStream(streams[t]);
+            try {
+                transformers[t].endClass(classNode);
+            } finally {
+                NumberUtils.exitStream(previous);
+            }
+        }
+    }
+}
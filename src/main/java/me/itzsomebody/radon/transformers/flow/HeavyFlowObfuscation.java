@@ -19,13 +19,12 @@ package me.itzsomebody.radon.transformers.flow;
 
 import java.lang.reflect.Modifier;
 import java.util.Stack;
-import java.util.concurrent.atomic.AtomicInteger;
 import me.itzsomebody.radon.analyzer.StackAnalyzer;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
 import me.itzsomebody.radon.utils.StringUtils;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.InsnNode;
@@ -42,83 +41,102 @@ import org.objectweb.asm.tree.VarInsnNode;
  *
  * @author ItzSomebody
  */
-public class HeavyFlowObfuscation extends AbstractTransformer {
+public class HeavyFlowObfuscation extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started heavy flow obfuscation transformer"));
-        classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "Flow")).forEach(classNode -> {
-            FieldNode field = new FieldNode(ACC_PUBLIC + ACC_STATIC +
-                    ACC_FINAL, StringUtils.randomString(this.dictionary), "Z", null, null);
-            classNode.fields.add(field);
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "Flow")
-                            && hasInstructions(methodNode)).forEach(methodNode -> {
-                int varIndex = methodNode.maxLocals;
-                methodNode.maxLocals++;
-                methodNode.owner = classNode.name;
-                AbstractInsnNode[] untouchedList = methodNode.instructions.toArray();
-                LabelNode labelNode = exitLabel(methodNode);
-                boolean calledSuper = false;
-                for (AbstractInsnNode insn : untouchedList) {
-                    if (this.methodSize(methodNode) > 60000) break;
-                    if (methodNode.name.equals("<init>")) {
-                        if (insn instanceof MethodInsnNode) {
-                            if (insn.getOpcode() == INVOKESPECIAL
-                                    && insn.getPrevious() instanceof VarInsnNode
-                                    && ((VarInsnNode) insn.getPrevious()).var == 0) {
-                                calledSuper = true;
-                            }
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "Flow"))
+            return;
+
+        FieldNode field = new FieldNode(ACC_PUBLIC + ACC_STATIC +
+                ACC_FINAL, StringUtils.randomString(this.dictionary), "Z", null, null);
+        classNode.fields.add(field);
+        classNode.methods.stream().filter(methodNode ->
+                !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "Flow")
+                        && hasInstructions(methodNode)).forEach(methodNode -> {
+            int varIndex = methodNode.maxLocals;
+            methodNode.maxLocals++;
+            methodNode.owner = classNode.name;
+            AbstractInsnNode[] untouchedList = methodNode.instructions.toArray();
+            LabelNode labelNode = exitLabel(methodNode);
+            boolean calledSuper = false;
+            for (AbstractInsnNode insn : untouchedList) {
+                if (this.methodSize(methodNode) > 60000) break;
+                if (methodNode.name.equals("<init>")) {
+                    if (insn instanceof MethodInsnNode) {
+                        if (insn.getOpcode() == INVOKESPECIAL
+                                && insn.getPrevious() instanceof VarInsnNode
+                                && ((VarInsnNode) insn.getPrevious()).var == 0) {
+                            calledSuper = true;
                         }
                     }
-                    if (insn != methodNode.instructions.getFirst()
-                            && !(insn instanceof LineNumberNode)) {
-                        if (methodNode.name.equals("<init>") && !calledSuper)
-                            continue;
-                        StackAnalyzer sa = new StackAnalyzer(methodNode, insn);
-                        Stack<Object> stack = sa.returnStackAtBreak();
-                        if (stack.isEmpty()) { // We need to make sure stack is empty before making jumps
-                            methodNode.instructions.insertBefore(insn, new VarInsnNode(ILOAD, varIndex));
-                            methodNode.instructions.insertBefore(insn,
-                                    new JumpInsnNode(IFNE, labelNode));
-                            counter.incrementAndGet();
-                        }
+                }
+                if (insn != methodNode.instructions.getFirst()
+                        && !(insn instanceof LineNumberNode)) {
+                    if (methodNode.name.equals("<init>") && !calledSuper)
+                        continue;
+                    StackAnalyzer sa = new StackAnalyzer(methodNode, insn);
+                    Stack<Object> stack = sa.returnStackAtBreak();
+                    if (stack.isEmpty()) { // We need to make sure stack is empty before making jumps
+                        methodNode.instructions.insertBefore(insn, new VarInsnNode(ILOAD, varIndex));
+                        methodNode.instructions.insertBefore(insn,
+                                new JumpInsnNode(IFNE, labelNode));
+                        this.counter.incrementAndGet();
                     }
-                    if (insn instanceof JumpInsnNode) {
-                        if (insn.getOpcode() == GOTO) {
-                            methodNode.instructions.insertBefore(insn,
-                                    new VarInsnNode(ILOAD, varIndex));
-                            methodNode.instructions.insertBefore(insn,
-                                    new InsnNode(ICONST_0));
-                            methodNode.instructions.insert(insn,
-                                    new InsnNode(ATHROW));
-                            methodNode.instructions.insert(insn,
-                                    new InsnNode(ACONST_NULL));
-                            methodNode.instructions.set(insn,
-                                    new JumpInsnNode(IF_ICMPEQ,
-                                            ((JumpInsnNode) insn).label));
-                            counter.incrementAndGet();
-                        } else if (insn.getOpcode() >= IFEQ
-                                || insn.getOpcode() <= IF_ICMPLE) {
-                            methodNode.instructions.insert(insn, new JumpInsnNode(IFNE, ((JumpInsnNode) insn).label));
-                            methodNode.instructions.insert(insn, new VarInsnNode(ILOAD, varIndex));
-                            counter.incrementAndGet();
-                        }
+                }
+                if (insn instanceof JumpInsnNode) {
+                    if (insn.getOpcode() == GOTO) {
+                        methodNode.instructions.insertBefore(insn,
+                                new VarInsnNode(ILOAD, varIndex));
+                        methodNode.instructions.insertBefore(insn,
+                                new InsnNode(ICONST_0));
+                        methodNode.instructions.insert(insn,
+                                new InsnNode(ATHROW));
+                        methodNode.instructions.insert(insn,
+                                new InsnNode(ACONST_NULL));
+                        methodNode.instructions.set(insn,
+                                new JumpInsnNode(IF_ICMPEQ,
+                                        ((JumpInsnNode) insn).label));
+                        this.counter.incrementAndGet();
+                    } else if (insn.getOpcode() >= IFEQ
+                            || insn.getOpcode() <= IF_ICMPLE) {
+                        methodNode.instructions.insert(insn, new JumpInsnNode(IFNE, ((JumpInsnNode) insn).label));
+                        methodNode.instructions.insert(insn, new VarInsnNode(ILOAD, varIndex));
+                        this.counter.incrementAndGet();
                     }
                 }
-                methodNode.instructions.insertBefore(methodNode.instructions
-                        .getFirst(), new VarInsnNode(ISTORE, varIndex));
-                methodNode.instructions.insertBefore(methodNode.instructions
-                        .getFirst(), new FieldInsnNode(GETSTATIC,
-                        classNode.name, field.name, "Z"));
-            });
+            }
+            methodNode.instructions.insertBefore(methodNode.instructions
+                    .getFirst(), new VarInsnNode(ISTORE, varIndex));
+            methodNode.instructions.insertBefore(methodNode.instructions
+                    .getFirst(), new FieldInsnNode(GETSTATIC,
+                    classNode.name, field.name, "Z"));
         });
-        this.logStrings.add(LoggerUtils.stdOut("Added " + counter + " instruction sets."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started heavy flow obfuscation transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Added " + count + " instruction sets.";
     }
 
     /**
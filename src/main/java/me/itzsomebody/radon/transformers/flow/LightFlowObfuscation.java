@@ -17,12 +17,11 @@
 
 package me.itzsomebody.radon.transformers.flow;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
 import me.itzsomebody.radon.utils.BytecodeUtils;
-import me.itzsomebody.radon.utils.LoggerUtils;
 import me.itzsomebody.radon.utils.StringUtils;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.InsnNode;
@@ -39,36 +38,55 @@ import org.objectweb.asm.tree.JumpInsnNode;
  *
  * @author ItzSomebody
  */
-public class LightFlowObfuscation extends AbstractTransformer {
+public class LightFlowObfuscation extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started light flow obfuscation transformer."));
-        classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "Flow")).forEach(classNode -> {
-            String fieldName = StringUtils.randomString(this.dictionary);
-            classNode.methods.stream().filter(methodNode -> hasInstructions(methodNode)
-                    && !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "Flow")
-                    && BytecodeUtils.containsGoto(methodNode)).forEach(methodNode -> {
-                for (AbstractInsnNode ain : methodNode.instructions.toArray()) {
-                    if (this.methodSize(methodNode) > 60000) break;
-                    if (ain.getOpcode() == GOTO) {
-                        methodNode.instructions.insertBefore(ain, new FieldInsnNode(GETSTATIC, classNode.name, fieldName, "Z"));
-                        methodNode.instructions.insertBefore(ain, new InsnNode(ICONST_1));
-                        methodNode.instructions.insert(ain, new InsnNode(ATHROW));
-                        methodNode.instructions.insert(ain, new InsnNode(ACONST_NULL));
-                        methodNode.instructions.set(ain, new JumpInsnNode(IF_ICMPEQ, ((JumpInsnNode) ain).label));
-                        counter.incrementAndGet();
-                    }
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "Flow"))
+            return;
+
+        String fieldName = StringUtils.randomString(this.dictionary);
+        classNode.methods.stream().filter(methodNode -> hasInstructions(methodNode)
+                && !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "Flow")
+                && BytecodeUtils.containsGoto(methodNode)).forEach(methodNode -> {
+            for (AbstractInsnNode ain : methodNode.instructions.toArray()) {
+                if (this.methodSize(methodNode) > 60000) break;
+                if (ain.getOpcode() == GOTO) {
+                    methodNode.instructions.insertBefore(ain, new FieldInsnNode(GETSTATIC, classNode.name, fieldName, "Z"));
+                    methodNode.instructions.insertBefore(ain, new InsnNode(ICONST_1));
+                    methodNode.instructions.insert(ain, new InsnNode(ATHROW));
+                    methodNode.instructions.insert(ain, new InsnNode(ACONST_NULL));
+                    methodNode.instructions.set(ain, new JumpInsnNode(IF_ICMPEQ, ((JumpInsnNode) ain).label));
+                    this.counter.incrementAndGet();
                 }
-            });
-            classNode.fields.add(new FieldNode(ACC_PUBLIC + ACC_STATIC +
-                    ACC_FINAL, fieldName, "Z", null, true));
+            }
         });
-        this.logStrings.add(LoggerUtils.stdOut("Added " + counter + " instruction sets."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+        classNode.fields.add(new FieldNode(ACC_PUBLIC + ACC_STATIC +
+                ACC_FINAL, fieldName, "Z", null, true));
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started light flow obfuscation transformer.";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Added " + count + " instruction sets.";
     }
 }
@@ -18,12 +18,12 @@
 package me.itzsomebody.radon.transformers.linenumbers;
 
 import java.lang.reflect.Modifier;
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.MethodLocalTransformer;
 import me.itzsomebody.radon.utils.NumberUtils;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Transformer that applies a line number obfuscation by changing the
@@ -32,30 +32,68 @@ import org.objectweb.asm.tree.LineNumberNode;
  *
  * @author ItzSomebody
  */
-public class ObfuscateLineNumbers extends AbstractTransformer {
+public class ObfuscateLineNumbers extends MethodLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Returns the per-transformer exempt identifier.
+     *
+     * @return the per-transformer exempt identifier.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started line obfuscation transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "LineNumbers")).forEach(classNode -> {
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "LineNumbers")
-                            && hasInstructions(methodNode)).forEach(methodNode -> {
-                for (AbstractInsnNode insn : methodNode.instructions.toArray()) {
-                    if (insn instanceof LineNumberNode) {
-                        LineNumberNode lineNumberNode = (LineNumberNode) insn;
-                        methodNode.instructions.set(insn,
-                                new LineNumberNode(NumberUtils.getRandomInt(Integer.MAX_VALUE), lineNumberNode.start));
-                        counter.incrementAndGet();
-                    }
-                }
-            });
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Obfuscated " + counter + " line numbers."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    protected String exemptId() {
+        return "LineNumbers";
+    }
+
+    /**
+     * Returns true if the given method isn't exempted and has instructions.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to check.
+     * @return true if the given method should be transformed.
+     */
+    @Override
+    protected boolean acceptsMethod(ClassNode classNode, MethodNode methodNode) {
+        return super.acceptsMethod(classNode, methodNode) && hasInstructions(methodNode);
+    }
+
+    /**
+     * Applies obfuscation to a single method.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to transform.
+     */
+    @Override
+    protected void transformMethod(ClassNode classNode, MethodNode methodNode) {
+        AbstractInsnNode insn = methodNode.instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn instanceof LineNumberNode) {
+                LineNumberNode lineNumberNode = (LineNumberNode) insn;
+                methodNode.instructions.set(insn,
+                        new LineNumberNode(NumberUtils.getRandomInt(Integer.MAX_VALUE), lineNumberNode.start));
+                this.counter.incrementAndGet();
+            }
+            insn = next;
+        }
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started line obfuscation transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Obfuscated " + count + " line numbers.";
     }
 }
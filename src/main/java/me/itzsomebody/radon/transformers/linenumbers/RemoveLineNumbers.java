@@ -18,41 +18,78 @@
 package me.itzsomebody.radon.transformers.linenumbers;
 
 import java.lang.reflect.Modifier;
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
+import me.itzsomebody.radon.transformers.MethodLocalTransformer;
 import me.itzsomebody.radon.utils.BytecodeUtils;
-import me.itzsomebody.radon.utils.LoggerUtils;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Transformer that applies a line number obfuscation by removing them.
  *
  * @author ItzSomebody
  */
-public class RemoveLineNumbers extends AbstractTransformer {
+public class RemoveLineNumbers extends MethodLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Returns the per-transformer exempt identifier.
+     *
+     * @return the per-transformer exempt identifier.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started line removal transformer"));
-        this.classNodes().stream().filter(classNode ->
-                !this.exempted(classNode.name, "LineNumbers")).forEach(classNode -> {
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "LineNumbers")
-                            && hasInstructions(methodNode)).forEach(methodNode -> {
-                for (AbstractInsnNode insn : methodNode.instructions.toArray()) {
-                    if (insn instanceof LineNumberNode) {
-                        methodNode.instructions.remove(insn);
-                        counter.incrementAndGet();
-                    }
-                }
-            });
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Removed " + counter + " line numbers."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    protected String exemptId() {
+        return "LineNumbers";
+    }
+
+    /**
+     * Returns true if the given method isn't exempted and has instructions.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to check.
+     * @return true if the given method should be transformed.
+     */
+    @Override
+    protected boolean acceptsMethod(ClassNode classNode, MethodNode methodNode) {
+        return super.acceptsMethod(classNode, methodNode) && hasInstructions(methodNode);
+    }
+
+    /**
+     * Applies obfuscation to a single method.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to transform.
+     */
+    @Override
+    protected void transformMethod(ClassNode classNode, MethodNode methodNode) {
+        AbstractInsnNode insn = methodNode.instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn instanceof LineNumberNode) {
+                methodNode.instructions.remove(insn);
+                this.counter.incrementAndGet();
+            }
+            insn = next;
+        }
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started line removal transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Removed " + count + " line numbers.";
     }
 }
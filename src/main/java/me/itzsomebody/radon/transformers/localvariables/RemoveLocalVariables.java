@@ -17,33 +17,69 @@
 
 package me.itzsomebody.radon.transformers.localvariables;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.MethodLocalTransformer;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Transformer that applies a local variable obfuscation by removing t
  *
  * @author ItzSomebody
  */
-public class RemoveLocalVariables extends AbstractTransformer {
+public class RemoveLocalVariables extends MethodLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Returns the per-transformer exempt identifier.
+     *
+     * @return the per-transformer exempt identifier.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started local variable removal transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "LocalVars")).forEach(classNode -> {
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "LocalVars")
-                            && methodNode.localVariables != null).forEach(methodNode -> {
-                counter.addAndGet(methodNode.localVariables.size());
-                methodNode.localVariables = null;
-            });
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Removed " + counter + " local variables."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    protected String exemptId() {
+        return "LocalVars";
+    }
+
+    /**
+     * Returns true if the given method isn't exempted and has local
+     * variables.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to check.
+     * @return true if the given method should be transformed.
+     */
+    @Override
+    protected boolean acceptsMethod(ClassNode classNode, MethodNode methodNode) {
+        return super.acceptsMethod(classNode, methodNode) && methodNode.localVariables != null;
+    }
+
+    /**
+     * Applies obfuscation to a single method.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to transform.
+     */
+    @Override
+    protected void transformMethod(ClassNode classNode, MethodNode methodNode) {
+        this.counter.addAndGet(methodNode.localVariables.size());
+        methodNode.localVariables = null;
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started local variable removal transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Removed " + count + " local variables.";
     }
 }
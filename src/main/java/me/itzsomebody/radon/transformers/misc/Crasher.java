@@ -17,10 +17,9 @@
 
 package me.itzsomebody.radon.transformers.misc;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
 import me.itzsomebody.radon.utils.StringUtils;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer that applies a crashing technique by exploiting class signature parsing.
@@ -33,22 +32,41 @@ import me.itzsomebody.radon.utils.StringUtils;
  *
  * @author ItzSomebody
  */
-public class Crasher extends AbstractTransformer {
+public class Crasher extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started crasher transformer."));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "Crasher")).forEach(classNode -> {
-            if (classNode.signature == null) {
-                classNode.signature = StringUtils.crazyString();
-                counter.incrementAndGet();
-            }
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Added " + counter + " crashers."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "Crasher"))
+            return;
+
+        if (classNode.signature == null) {
+            classNode.signature = StringUtils.crazyString();
+            this.counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started crasher transformer.";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Added " + count + " crashers.";
     }
 }
@@ -17,10 +17,9 @@
 
 package me.itzsomebody.radon.transformers.misc;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
 import me.itzsomebody.radon.utils.BytecodeUtils;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer that adds an expiration block of code to <init> methods.
@@ -29,7 +28,7 @@ import me.itzsomebody.radon.utils.LoggerUtils;
  * @author Allatori Dev Team (transformer based on Allatori's
  * expiration obfuscation)
  */
-public class Expiry extends AbstractTransformer {
+public class Expiry extends ClassLocalTransformer {
     /**
      * The expiry time as a {@link Long}.
      */
@@ -52,25 +51,54 @@ public class Expiry extends AbstractTransformer {
     }
 
     /**
-     * Applies obfuscation.
+     * Returns a description of this transformer and its settings.
+     *
+     * @return a description of this transformer and its settings.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started expiry transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "Expiry")).forEach(classNode -> {
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "Expiry")
-                            && methodNode.name.equals("<init>")
-                            && methodSize(methodNode) < 60000
-                            && hasInstructions(methodNode)).forEach(methodNode -> {
-                methodNode.instructions.insertBefore(methodNode.instructions.getFirst(),
-                        BytecodeUtils.returnExpiry(this.expiryTime, this.expiryMsg));
-                counter.incrementAndGet();
-            });
+    @Override
+    public String fingerprint() {
+        return super.fingerprint() + " " + this.expiryTime + " " + this.expiryMsg;
+    }
+
+    /**
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
+     */
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "Expiry"))
+            return;
+
+        classNode.methods.stream().filter(methodNode ->
+                !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "Expiry")
+                        && methodNode.name.equals("<init>")
+                        && methodSize(methodNode) < 60000
+                        && hasInstructions(methodNode)).forEach(methodNode -> {
+            methodNode.instructions.insertBefore(methodNode.instructions.getFirst(),
+                    BytecodeUtils.returnExpiry(this.expiryTime, this.expiryMsg));
+            this.counter.incrementAndGet();
         });
-        this.logStrings.add(LoggerUtils.stdOut("Added " + counter + " expiration code blocks."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started expiry transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Added " + count + " expiration code blocks.";
     }
 }
@@ -17,61 +17,118 @@
 
 package me.itzsomebody.radon.transformers.misc;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
+import me.itzsomebody.radon.transformers.MethodLocalTransformer;
 import me.itzsomebody.radon.utils.BytecodeUtils;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Transformer that applies a code hiding technique by applying synthetic modifiers to the class, fields, and methods.
  *
  * @author ItzSomebody
  */
-public class HideCode extends AbstractTransformer {
+public class HideCode extends MethodLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Returns the per-transformer exempt identifier.
+     *
+     * @return the per-transformer exempt identifier.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started hide code transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "HideCode")).forEach(classNode -> {
-            if (!BytecodeUtils.isSynthetic(classNode.access)
-                    && !BytecodeUtils.hasAnnotations(classNode)) {
-                classNode.access |= ACC_SYNTHETIC;
-                counter.incrementAndGet();
-            }
+    @Override
+    protected String exemptId() {
+        return "HideCode";
+    }
 
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "HideCode")
-                            && !BytecodeUtils.hasAnnotations(methodNode)).forEach(methodNode -> {
-                boolean hidOnce = false;
-                if (!BytecodeUtils.isSynthetic(methodNode.access)) {
-                    methodNode.access |= ACC_SYNTHETIC;
-                    hidOnce = true;
-                }
+    /**
+     * Hides the class itself unless it is exempted.
+     *
+     * @param classNode the class about to be transformed.
+     * @return false if the class is exempted.
+     */
+    @Override
+    protected boolean beginClass(ClassNode classNode) {
+        if (!super.beginClass(classNode))
+            return false;
 
-                if (!BytecodeUtils.isBridge(methodNode.access)
-                        && !methodNode.name.startsWith("<")) {
-                    methodNode.access |= ACC_BRIDGE;
-                    hidOnce = true;
-                }
+        if (!BytecodeUtils.isSynthetic(classNode.access)
+                && !BytecodeUtils.hasAnnotations(classNode)) {
+            classNode.access |= ACC_SYNTHETIC;
+            this.counter.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the given method isn't exempted and has no
+     * annotations.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to check.
+     * @return true if the given method should be transformed.
+     */
+    @Override
+    protected boolean acceptsMethod(ClassNode classNode, MethodNode methodNode) {
+        return super.acceptsMethod(classNode, methodNode) && !BytecodeUtils.hasAnnotations(methodNode);
+    }
+
+    /**
+     * Hides a single method.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to transform.
+     */
+    @Override
+    protected void transformMethod(ClassNode classNode, MethodNode methodNode) {
+        boolean hidOnce = false;
+        if (!BytecodeUtils.isSynthetic(methodNode.access)) {
+            methodNode.access |= ACC_SYNTHETIC;
+            hidOnce = true;
+        }
 
-                if (hidOnce) counter.incrementAndGet();
+        if (!BytecodeUtils.isBridge(methodNode.access)
+                && !methodNode.name.startsWith("<")) {
+            methodNode.access |= ACC_BRIDGE;
+            hidOnce = true;
+        }
+
+        if (hidOnce) this.counter.incrementAndGet();
+    }
+
+    /**
+     * Hides the fields of the class.
+     *
+     * @param classNode the transformed class.
+     */
+    @Override
+    protected void endClass(ClassNode classNode) {
+        if (classNode.fields != null)
+            classNode.fields.stream().filter(fieldNode ->
+                    !exempted(classNode.name + '.' + fieldNode.name, "HideCode")
+                            && !BytecodeUtils.hasAnnotations(fieldNode)).forEach(fieldNode -> {
+                if (!BytecodeUtils.isSynthetic(fieldNode.access)) {
+                    fieldNode.access |= ACC_SYNTHETIC;
+                    this.counter.incrementAndGet();
+                }
             });
+    }
 
-            if (classNode.fields != null)
-                classNode.fields.stream().filter(fieldNode ->
-                        !exempted(classNode.name + '.' + fieldNode.name, "HideCode")
-                                && !BytecodeUtils.hasAnnotations(fieldNode)).forEach(fieldNode -> {
-                    if (!BytecodeUtils.isSynthetic(fieldNode.access)) {
-                        fieldNode.access |= ACC_SYNTHETIC;
-                        counter.incrementAndGet();
-                    }
-                });
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Hid " + counter + " members."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started hide code transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Hid " + count + " members.";
     }
 }
@@ -17,30 +17,48 @@
 
 package me.itzsomebody.radon.transformers.misc;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer which removes innerclass infomation.
  *
  * @author ItzSomebody
  */
-public class InnerClassRemover extends AbstractTransformer {
+public class InnerClassRemover extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started inner class removal transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "InnerClasses")
-                && classNode.innerClasses != null).forEach(classNode -> {
-            counter.addAndGet(classNode.innerClasses.size());
-            classNode.innerClasses.clear();
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Removed " + counter + " inner class infos."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "InnerClasses")
+                || classNode.innerClasses == null)
+            return;
+
+        this.counter.addAndGet(classNode.innerClasses.size());
+        classNode.innerClasses.clear();
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started inner class removal transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Removed " + count + " inner class infos.";
     }
 }
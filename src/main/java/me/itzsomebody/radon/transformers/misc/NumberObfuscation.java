@@ -17,14 +17,14 @@
 
 package me.itzsomebody.radon.transformers.misc;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
+import me.itzsomebody.radon.transformers.MethodLocalTransformer;
 import me.itzsomebody.radon.utils.BytecodeUtils;
-import me.itzsomebody.radon.utils.LoggerUtils;
 import me.itzsomebody.radon.utils.NumberUtils;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
 
 /**
  * Transformer that splits up integers into simple arithmetic evaluations.
@@ -32,52 +32,90 @@ import org.objectweb.asm.tree.InsnNode;
  * @author ItzSomebody
  * @author VincBreaker (Sorry Vinc, I just had to steal the idea of Smoke's number obfuscation lol)
  */
-public class NumberObfuscation extends AbstractTransformer {
+public class NumberObfuscation extends MethodLocalTransformer {
     /**
-     * Applies obfuscation.}.
+     * Returns the per-transformer exempt identifier.
+     *
+     * @return the per-transformer exempt identifier.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started number obfuscation transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "Numbers")).forEach(classNode -> {
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.desc, "Numbers")
-                            && hasInstructions(methodNode)).forEach(methodNode -> {
-                for (AbstractInsnNode insn : methodNode.instructions.toArray()) {
-                    if (methodSize(methodNode) > 60000) break;
-                    if (BytecodeUtils.isIntInsn(insn)) {
-                        int originalNum = BytecodeUtils.getIntNumber(insn);
-                        int value1 = NumberUtils.getRandomInt();
-                        int value2 = originalNum ^ value1;
+    @Override
+    protected String exemptId() {
+        return "Numbers";
+    }
+
+    /**
+     * Returns true if the given method isn't exempted and has instructions.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to check.
+     * @return true if the given method should be transformed.
+     */
+    @Override
+    protected boolean acceptsMethod(ClassNode classNode, MethodNode methodNode) {
+        return super.acceptsMethod(classNode, methodNode) && hasInstructions(methodNode);
+    }
+
+    /**
+     * Applies obfuscation to a single method.
+     *
+     * @param classNode  the class of the method.
+     * @param methodNode the method to transform.
+     */
+    @Override
+    protected void transformMethod(ClassNode classNode, MethodNode methodNode) {
+        AbstractInsnNode insn = methodNode.instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (methodSize(methodNode) > 60000) break;
+            if (BytecodeUtils.isIntInsn(insn)) {
+                int originalNum = BytecodeUtils.getIntNumber(insn);
+                int value1 = NumberUtils.getRandomInt();
+                int value2 = originalNum ^ value1;
 
-                        InsnList insnList = new InsnList();
-                        insnList.add(BytecodeUtils.getNumberInsn(value1));
-                        insnList.add(BytecodeUtils.getNumberInsn(value2));
-                        insnList.add(new InsnNode(IXOR));
+                InsnList insnList = new InsnList();
+                insnList.add(BytecodeUtils.getNumberInsn(value1));
+                insnList.add(BytecodeUtils.getNumberInsn(value2));
+                insnList.add(new InsnNode(IXOR));
 
-                        methodNode.instructions.insertBefore(insn, insnList);
-                        methodNode.instructions.remove(insn);
-                        counter.incrementAndGet();
-                    } else if (BytecodeUtils.isLongInsn(insn)) {
-                        long originalNum = BytecodeUtils.getLongNumber(insn);
-                        long value1 = NumberUtils.getRandomLong();
-                        long value2 = originalNum ^ value1;
+                methodNode.instructions.insertBefore(insn, insnList);
+                methodNode.instructions.remove(insn);
+                this.counter.incrementAndGet();
+            } else if (BytecodeUtils.isLongInsn(insn)) {
+                long originalNum = BytecodeUtils.getLongNumber(insn);
+                long value1 = NumberUtils.getRandomLong();
+                long value2 = originalNum ^ value1;
 
-                        InsnList insnList = new InsnList();
-                        insnList.add(BytecodeUtils.getNumberInsn(value1));
-                        insnList.add(BytecodeUtils.getNumberInsn(value2));
-                        insnList.add(new InsnNode(LXOR));
+                InsnList insnList = new InsnList();
+                insnList.add(BytecodeUtils.getNumberInsn(value1));
+                insnList.add(BytecodeUtils.getNumberInsn(value2));
+                insnList.add(new InsnNode(LXOR));
 
-                        methodNode.instructions.insertBefore(insn, insnList);
-                        methodNode.instructions.remove(insn);
-                        counter.incrementAndGet();
-                    }
-                }
-            });
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Split " + counter + " numbers into bitwise xor instructions."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+                methodNode.instructions.insertBefore(insn, insnList);
+                methodNode.instructions.remove(insn);
+                this.counter.incrementAndGet();
+            }
+            insn = next;
+        }
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started number obfuscation transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Split " + count + " numbers into bitwise xor instructions.";
     }
 }
@@ -18,33 +18,52 @@
 package me.itzsomebody.radon.transformers.misc;
 
 import java.util.Collections;
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
+import me.itzsomebody.radon.utils.NumberUtils;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer which shuffles class members.
  *
  * @author ItzSomebody
  */
-public class Shuffler extends AbstractTransformer {
+public class Shuffler extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started shuffle transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "Shuffler")).forEach(classNode -> {
-            Collections.shuffle(classNode.methods);
-            counter.addAndGet(classNode.methods.size());
-            if (classNode.fields != null) {
-                Collections.shuffle(classNode.fields);
-                counter.addAndGet(classNode.fields.size());
-            }
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Shuffled " + counter + " members."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "Shuffler"))
+            return;
+
+        Collections.shuffle(classNode.methods, NumberUtils.getRandom());
+        this.counter.addAndGet(classNode.methods.size());
+        if (classNode.fields != null) {
+            Collections.shuffle(classNode.fields, NumberUtils.getRandom());
+            this.counter.addAndGet(classNode.fields.size());
+        }
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started shuffle transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Shuffled " + count + " members.";
     }
 }
@@ -19,13 +19,12 @@ package me.itzsomebody.radon.transformers.misc;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
 import me.itzsomebody.radon.utils.BytecodeUtils;
-import me.itzsomebody.radon.utils.LoggerUtils;
 import me.itzsomebody.radon.utils.StringUtils;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.InsnList;
@@ -41,109 +40,117 @@ import org.objectweb.asm.tree.MethodNode;
  *
  * @author ItzSomebody
  */
-public class StringPool extends AbstractTransformer {
+public class StringPool extends ClassLocalTransformer {
     /**
-     * Path to pool method.
-     */
-    private String randName;
-
-    /**
-     * Array of {@link String}s that will be pooled
+     * Applies obfuscation to a single class. The names of the pool method
+     * and field are kept in locals, so classes can be pooled concurrently.
+     *
+     * @param classNode the class to transform.
      */
-    private String[] strings;
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "StringPool"))
+            return;
+
+        String randName = StringUtils.randomString(this.dictionary);
+        String fieldName = StringUtils.randomString(this.dictionary);
+        List<String> stringslist = new ArrayList<>();
+        classNode.methods.stream().filter(methodNode ->
+                !this.exempted(classNode.name + '.' + methodNode.name + methodNode.name, "StringPool")
+                        && hasInstructions(methodNode)).forEach(methodNode -> {
+            for (AbstractInsnNode insn : methodNode.instructions.toArray()) {
+                if (insn instanceof LdcInsnNode) {
+                    Object cst = ((LdcInsnNode) insn).cst;
+
+                    if (cst instanceof String) {
+                        stringslist.add((String) cst);
+
+                        int indexNumber = stringslist.size() - 1;
+
+                        methodNode.instructions.insertBefore(insn, new FieldInsnNode(GETSTATIC, classNode.name, fieldName, "[Ljava/lang/String;"));
+                        methodNode.instructions.insertBefore(insn, BytecodeUtils.getNumberInsn(indexNumber));
+                        methodNode.instructions.set(insn, new InsnNode(AALOAD));
+                        this.counter.incrementAndGet();
+                    }
+                }
+            }
+        });
+        if (stringslist.size() != 0) {
+            String[] strings = new String[stringslist.size()];
+            for (int i = 0; i < stringslist.size(); i++) {
+                strings[i] = stringslist.get(i);
+            }
+            classNode.methods.add(stringPool(classNode.name, fieldName, randName, strings));
+
+            MethodNode clinit = classNode.methods.stream().filter(methodNode -> methodNode.name.equals("<clinit>")).findFirst().orElse(null);
+            if (clinit == null) {
+                clinit = new MethodNode(ACC_PRIVATE + ACC_STATIC + ACC_SYNTHETIC, "<clinit>", "()V", null, null);
+                InsnList insns = new InsnList();
+                insns.add(new MethodInsnNode(INVOKESTATIC, classNode.name, randName, "()V", false));
+                insns.add(new InsnNode(RETURN));
+                clinit.instructions = insns;
+                classNode.methods.add(clinit);
+            } else {
+                clinit.instructions.insertBefore(clinit.instructions.getFirst(), new MethodInsnNode(INVOKESTATIC, classNode.name, randName, "()V", false));
+            }
+            FieldNode fieldNode = new FieldNode(ACC_PRIVATE + ACC_STATIC + ACC_SYNTHETIC, fieldName, "[Ljava/lang/String;", null, null);
+            if (classNode.fields == null)
+                classNode.fields = new ArrayList<>();
+            classNode.fields.add(fieldNode);
+        }
+    }
 
     /**
-     * Field path.
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
      */
-    private String[] fieldName = new String[2];
+    @Override
+    protected String startMessage() {
+        return "Started string pool transformer.";
+    }
 
     /**
-     * Applies obfuscation.
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started string pool transformer."));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "StringPool")).forEach(classNode -> {
-            this.randName = StringUtils.randomString(this.dictionary);
-            this.fieldName[0] = classNode.name;
-            this.fieldName[1] = StringUtils.randomString(this.dictionary);
-            List<String> stringslist = new ArrayList<>();
-            classNode.methods.stream().filter(methodNode ->
-                    !this.exempted(classNode.name + '.' + methodNode.name + methodNode.name, "StringPool")
-                            && hasInstructions(methodNode)).forEach(methodNode -> {
-                for (AbstractInsnNode insn : methodNode.instructions.toArray()) {
-                    if (insn instanceof LdcInsnNode) {
-                        Object cst = ((LdcInsnNode) insn).cst;
-
-                        if (cst instanceof String) {
-                            stringslist.add((String) cst);
-
-                            int indexNumber = stringslist.size() - 1;
-
-                            methodNode.instructions.insertBefore(insn, new FieldInsnNode(GETSTATIC, classNode.name, this.fieldName[1], "[Ljava/lang/String;"));
-                            methodNode.instructions.insertBefore(insn, BytecodeUtils.getNumberInsn(indexNumber));
-                            methodNode.instructions.set(insn, new InsnNode(AALOAD));
-                            counter.incrementAndGet();
-                        }
-                    }
-                }
-            });
-            if (stringslist.size() != 0) {
-                this.strings = new String[stringslist.size()];
-                for (int i = 0; i < stringslist.size(); i++) {
-                    this.strings[i] = stringslist.get(i);
-                }
-                classNode.methods.add(stringPool());
-
-                MethodNode clinit = classNode.methods.stream().filter(methodNode -> methodNode.name.equals("<clinit>")).findFirst().orElse(null);
-                if (clinit == null) {
-                    clinit = new MethodNode(ACC_PRIVATE + ACC_STATIC + ACC_SYNTHETIC, "<clinit>", "()V", null, null);
-                    InsnList insns = new InsnList();
-                    insns.add(new MethodInsnNode(INVOKESTATIC, classNode.name, randName, "()V", false));
-                    insns.add(new InsnNode(RETURN));
-                    clinit.instructions = insns;
-                    classNode.methods.add(clinit);
-                } else {
-                    clinit.instructions.insertBefore(clinit.instructions.getFirst(), new MethodInsnNode(INVOKESTATIC, classNode.name, randName, "()V", false));
-                }
-                FieldNode fieldNode = new FieldNode(ACC_PRIVATE + ACC_STATIC + ACC_SYNTHETIC, this.fieldName[1], "[Ljava/lang/String;", null, null);
-                if (classNode.fields == null)
-                    classNode.fields = new ArrayList<>();
-                classNode.fields.add(fieldNode);
-            }
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Pooled  " + counter + " strings."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    protected String finishMessage(int count) {
+        return "Pooled  " + count + " strings.";
     }
 
     /**
      * String pool method which contains all the strings.
      *
+     * @param owner      the class of the pool field.
+     * @param fieldName  the name of the pool field.
+     * @param methodName the name of the pool method.
+     * @param strings    the {@link String}s that will be pooled.
      * @return string pool method which contains all the strings.
      */
-    private MethodNode stringPool() {
-        MethodNode method = new MethodNode(ACC_PRIVATE + ACC_STATIC + ACC_SYNTHETIC + ACC_BRIDGE, randName, "()V", null, null);
+    private MethodNode stringPool(String owner, String fieldName, String methodName, String[] strings) {
+        MethodNode method = new MethodNode(ACC_PRIVATE + ACC_STATIC + ACC_SYNTHETIC + ACC_BRIDGE, methodName, "()V", null, null);
 
         method.visitCode();
 
         Label l0 = new Label();
         method.visitLabel(l0);
-        int numberOfStrings = this.strings.length;
+        int numberOfStrings = strings.length;
         if (numberOfStrings <= 5) {
             method.visitInsn(numberOfStrings + 3);
         } else if (numberOfStrings <= 127) {
-            method.visitIntInsn(BIPUSH, this.strings.length);
+            method.visitIntInsn(BIPUSH, strings.length);
         } else if (numberOfStrings <= 32767) {
-            method.visitIntInsn(SIPUSH, this.strings.length);
+            method.visitIntInsn(SIPUSH, strings.length);
         } else {
-            method.visitLdcInsn(this.strings.length);
+            method.visitLdcInsn(strings.length);
         }
 
         method.visitTypeInsn(ANEWARRAY, "java/lang/String");
 
-        for (int i = 0; i < this.strings.length; i++) {
+        for (int i = 0; i < strings.length; i++) {
             method.visitInsn(DUP);
 
             if (i <= 5) {
@@ -156,10 +163,10 @@ public class StringPool extends AbstractTransformer {
                 method.visitLdcInsn(i);
             }
 
-            method.visitLdcInsn(this.strings[i]);
+            method.visitLdcInsn(strings[i]);
             method.visitInsn(AASTORE);
         }
-        method.visitFieldInsn(PUTSTATIC, this.fieldName[0], this.fieldName[1], "[Ljava/lang/String;");
+        method.visitFieldInsn(PUTSTATIC, owner, fieldName, "[Ljava/lang/String;");
         method.visitInsn(RETURN);
 
         method.visitMaxs(3, 0);
@@ -19,6 +19,7 @@ package me.itzsomebody.radon.transformers.renamer;
 
 import java.util.HashSet;
 import java.util.Set;
+import me.itzsomebody.radon.classpath.LibraryStub;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -64,6 +65,11 @@ public class ClassTree {
      */
     public boolean libraryNode;
 
+    /**
+     * Stub of the library class, null if this isn't a library class.
+     */
+    public LibraryStub libraryStub;
+
     /**
      * Constructor to make a {@link ClassTree} object.
      *
@@ -73,4 +79,16 @@ public class ClassTree {
         this.className = className;
         this.libraryNode = libraryNode;
     }
+
+    /**
+     * Constructor to make a {@link ClassTree} object of a library class.
+     *
+     * @param libraryStub the {@link LibraryStub} of the library class.
+     */
+    public ClassTree(LibraryStub libraryStub) {
+        this(libraryStub.getName(), true);
+        this.libraryStub = libraryStub;
+        this.parentClasses.add(libraryStub.getSuperName());
+        this.parentClasses.addAll(libraryStub.getInterfaces());
+    }
 }
@@ -48,11 +48,6 @@ public class Renamer extends AbstractTransformer {
      */
     private Map<String, String> mappings = new HashMap<>();
 
-    /**
-     * Used to determine how the classes interact with each other.
-     */
-    private Map<String, ClassTree> hierarchy = new HashMap<>();
-
     /**
      * Indication to look for Bukkit/Bungee main methods.
      */
@@ -72,7 +67,6 @@ public class Renamer extends AbstractTransformer {
         this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
         this.logStrings.add(LoggerUtils.stdOut("Starting renamer transformer"));
         this.logStrings.add(LoggerUtils.stdOut("Generating mappings."));
-        this.createTrees();
         long current = System.currentTimeMillis();
         AtomicInteger counter = new AtomicInteger();
         this.classNodes().forEach(classNode -> {
@@ -111,7 +105,9 @@ public class Renamer extends AbstractTransformer {
 
         // Apply mapping
         Remapper simpleRemapper = new SimpleRemapper(this.mappings);
-        for (ClassNode classNode : new ArrayList<>(this.classNodes())) {
+        List<ClassNode> originals = new ArrayList<>(this.classNodes());
+        List<ClassNode> copies = new ArrayList<>(originals.size());
+        for (ClassNode classNode : originals) {
             ClassNode copy = new ClassNode();
             classNode.accept(new ClassRemapper(copy, simpleRemapper));
             copy.access = BytecodeUtils.accessFixer(copy.access);
@@ -126,9 +122,12 @@ public class Renamer extends AbstractTransformer {
             }
 
             this.getClassMap().remove(classNode.name);
+            this.getClassPathMap().remove(classNode.name);
             this.getClassPathMap().put(copy.name, copy);
             this.getClassMap().put(copy.name, copy);
+            copies.add(copy);
         }
+        this.getHierarchy().replace(originals, copies);
 
         this.logStrings.add(LoggerUtils.stdOut("Mapped " + counter + " members."));
         current = System.currentTimeMillis();
@@ -160,34 +159,6 @@ public class Renamer extends AbstractTransformer {
                 String.valueOf(System.currentTimeMillis() - current) + "ms]"));
     }
 
-    /**
-     * Creates {@link ClassTree}s needed for renaming.
-     */
-    private void createTrees() {
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("Creating class hierarchy."));
-        this.getClassPathMap().values().forEach(classNode -> {
-            classNode.methods.forEach(methodNode ->
-                methodNode.owner = classNode.name
-            );
-            classNode.fields.forEach(fieldNode ->
-                fieldNode.owner = classNode.name
-            );
-            ClassTree classTree = new ClassTree(classNode.name, classNode.libraryNode);
-            classTree.parentClasses.add(classNode.superName);
-            classTree.parentClasses.addAll(classNode.interfaces);
-            this.classNodes().stream().filter(node -> node.superName.equals(classNode.name)
-                    || node.interfaces.contains(classNode.name)).forEach(node ->
-                classTree.subClasses.add(node.name)
-            );
-
-            classTree.methods.addAll(classNode.methods);
-            classTree.fields.addAll(classNode.fields);
-            this.hierarchy.put(classNode.name, classTree);
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Finished creating class hierarchy. [" + tookThisLong(current) + "ms]"));
-    }
-
     /**
      * Ultimately determines if we can rename a method without running into errors.
      *
@@ -195,13 +166,8 @@ public class Renamer extends AbstractTransformer {
      * @return true if we can rename a method without running into errors.
      */
     private boolean weCanRenameMethod(MethodNode methodNode) {
-        for (ClassTree ct : this.hierarchy.values()) {
-            if (ct.subClasses.contains(methodNode.owner)
-                    && this.isLibInheritedMN(new ArrayList<>(), methodNode, methodNode.owner)) {
-                return false;
-            }
-        }
-        return true;
+        return !this.hasParentInHierarchy(methodNode.owner)
+                || !this.isLibInheritedMN(new ArrayList<>(), methodNode, methodNode.owner);
     }
 
     /**
@@ -213,19 +179,14 @@ public class Renamer extends AbstractTransformer {
      * @return true if the method we input is inherited from a library class.
      */
     private boolean isLibInheritedMN(List<ClassTree> visited, MethodNode methodNode, String className) {
-        ClassTree ct = this.hierarchy.get(className);
+        ClassTree ct = this.getHierarchy().get(className);
         if (ct == null)
             throw new RuntimeException(className + " doesn't exist in classpath.");
         if (!visited.contains(ct)) {
             visited.add(ct);
-            if (!methodNode.owner.equals(className)) {
-                for (MethodNode mn : ct.methods) {
-                    if (mn.name.equals(methodNode.name) && mn.desc.equals(methodNode.desc)) {
-                        if (ct.libraryNode) {
-                            return true;
-                        }
-                    }
-                }
+            if (ct.libraryNode && !methodNode.owner.equals(className)
+                    && ct.libraryStub.hasMethod(methodNode.name, methodNode.desc)) {
+                return true;
             }
             if (exempted(className + '.' + methodNode.name + methodNode.desc, "Renamer")) {
                 return true;
@@ -257,7 +218,7 @@ public class Renamer extends AbstractTransformer {
      * @param newName    the new name of the method.
      */
     private void renameMethodTree(List<ClassTree> visited, MethodNode methodNode, String className, String newName) {
-        ClassTree ct = this.hierarchy.get(className);
+        ClassTree ct = this.getHierarchy().get(className);
         if (ct == null)
             throw new RuntimeException(className + " doesn't exist in classpath.");
         if (!ct.libraryNode && !visited.contains(ct)) {
@@ -279,13 +240,27 @@ public class Renamer extends AbstractTransformer {
      * @return true if we can rename a field without running into errors.
      */
     private boolean weCanRenameField(FieldNode fieldNode) {
-        for (ClassTree ct : this.hierarchy.values()) {
-            if (ct.subClasses.contains(fieldNode.owner)
-                    && this.isLibInheritedFN(new ArrayList<>(), fieldNode, fieldNode.owner)) {
-                return false;
+        return !this.hasParentInHierarchy(fieldNode.owner)
+                || !this.isLibInheritedFN(new ArrayList<>(), fieldNode, fieldNode.owner);
+    }
+
+    /**
+     * Returns true if any class the given class directly inherits is in the
+     * class hierarchy.
+     *
+     * @param className the name of the class.
+     * @return true if any direct parent of the class is in the hierarchy.
+     */
+    private boolean hasParentInHierarchy(String className) {
+        ClassTree ct = this.getHierarchy().get(className);
+        if (ct != null) {
+            for (String parentClass : ct.parentClasses) {
+                if (parentClass != null && this.getHierarchy().contains(parentClass)) {
+                    return true;
+                }
             }
         }
-        return true;
+        return false;
     }
 
     /**
@@ -296,19 +271,14 @@ public class Renamer extends AbstractTransformer {
      * @return true if the method we input is inherited from a library class.
      */
     private boolean isLibInheritedFN(List<ClassTree> visited, FieldNode fieldNode, String className) {
-        ClassTree ct = this.hierarchy.get(className);
+        ClassTree ct = this.getHierarchy().get(className);
         if (ct == null)
             throw new RuntimeException(className + " doesn't exist in classpath.");
         if (!visited.contains(ct)) {
             visited.add(ct);
-            if (!fieldNode.owner.equals(className)) {
-                for (MethodNode mn : ct.methods) {
-                    if (mn.name.equals(fieldNode.name) && mn.desc.equals(fieldNode.desc)) {
-                        if (ct.libraryNode) {
-                            return true;
-                        }
-                    }
-                }
+            if (ct.libraryNode && !fieldNode.owner.equals(className)
+                    && ct.libraryStub.hasField(fieldNode.name, fieldNode.desc)) {
+                return true;
             }
             if (exempted(className + '.' + fieldNode.name, "Renamer")) {
                 return true;
@@ -342,7 +312,7 @@ public class Renamer extends AbstractTransformer {
      */
     private void renameFieldTree(List<ClassTree> visited, FieldNode fieldNode,
                                  String className, String newName) {
-        ClassTree ct = this.hierarchy.get(className);
+        ClassTree ct = this.getHierarchy().get(className);
         if (ct == null)
             throw new RuntimeException(className + " doesn't exist in classpath.");
         if (!ct.libraryNode && !visited.contains(ct)) {
@@ -17,10 +17,9 @@
 
 package me.itzsomebody.radon.transformers.sourcedebug;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
 import me.itzsomebody.radon.utils.StringUtils;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer that obfuscates the source debug attribute by changing the
@@ -28,22 +27,64 @@ import me.itzsomebody.radon.utils.StringUtils;
  *
  * @author ItzSomebody
  */
-public class ObfuscateSourceDebug extends AbstractTransformer {
+public class ObfuscateSourceDebug extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Source debug attribute set on every class.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started source debug obfuscation transformer"));
-        String newDebug = StringUtils.crazyString();
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "SourceDebug")
-                && classNode.sourceDebug != null).forEach(classNode -> {
-            classNode.sourceDebug = newDebug;
-            counter.incrementAndGet();
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Obfuscated " + counter + " source debug attributes."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    private String newDebug;
+
+    /**
+     * Picks the source debug attribute used for every class.
+     */
+    @Override
+    public void begin() {
+        super.begin();
+        this.newDebug = StringUtils.crazyString();
+    }
+
+    /**
+     * Returns true, every class gets the same source debug attribute.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean sharesRandomValues() {
+        return true;
+    }
+
+    /**
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
+     */
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "SourceDebug")
+                || classNode.sourceDebug == null)
+            return;
+
+        classNode.sourceDebug = this.newDebug;
+        this.counter.incrementAndGet();
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started source debug obfuscation transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Obfuscated " + count + " source debug attributes.";
     }
 }
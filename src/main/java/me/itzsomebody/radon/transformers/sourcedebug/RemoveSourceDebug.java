@@ -17,9 +17,8 @@
 
 package me.itzsomebody.radon.transformers.sourcedebug;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer that obfuscates the source debug attribute by changing the
@@ -27,21 +26,40 @@ import me.itzsomebody.radon.utils.LoggerUtils;
  *
  * @author ItzSomebody
  */
-public class RemoveSourceDebug extends AbstractTransformer {
+public class RemoveSourceDebug extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started source debug removal transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "SourceDebug")
-                && classNode.sourceDebug != null).forEach(classNode -> {
-            classNode.sourceDebug = null;
-            counter.incrementAndGet();
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Removed " + counter + " source debug attributes."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "SourceDebug")
+                || classNode.sourceDebug == null)
+            return;
+
+        classNode.sourceDebug = null;
+        this.counter.incrementAndGet();
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started source debug removal transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Removed " + count + " source debug attributes.";
     }
 }
@@ -17,10 +17,9 @@
 
 package me.itzsomebody.radon.transformers.sourcename;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
 import me.itzsomebody.radon.utils.StringUtils;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer that obfuscates the source name attribute by changing the
@@ -28,21 +27,63 @@ import me.itzsomebody.radon.utils.StringUtils;
  *
  * @author ItzSomebody
  */
-public class ObfuscateSourceName extends AbstractTransformer {
+public class ObfuscateSourceName extends ClassLocalTransformer {
     /**
-     * Applies obfuscation.
+     * Source name set on every class.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started source name obfuscation transformer"));
-        String newName = StringUtils.crazyString() + ".java";
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "SourceName")).forEach(classNode -> {
-            classNode.sourceFile = newName;
-            counter.incrementAndGet();
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Obfuscated " + counter + " source name attributes."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    private String newName;
+
+    /**
+     * Picks the source name used for every class.
+     */
+    @Override
+    public void begin() {
+        super.begin();
+        this.newName = StringUtils.crazyString() + ".java";
+    }
+
+    /**
+     * Returns true, every class gets the same source name.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean sharesRandomValues() {
+        return true;
+    }
+
+    /**
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
+     */
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "SourceName"))
+            return;
+
+        classNode.sourceFile = this.newName;
+        this.counter.incrementAndGet();
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started source name obfuscation transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Obfuscated " + count + " source name attributes.";
     }
 }
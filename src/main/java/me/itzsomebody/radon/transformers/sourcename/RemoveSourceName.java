@@ -17,9 +17,8 @@
 
 package me.itzsomebody.radon.transformers.sourcename;
 
-import java.util.concurrent.atomic.AtomicInteger;
-import me.itzsomebody.radon.transformers.AbstractTransformer;
-import me.itzsomebody.radon.utils.LoggerUtils;
+import me.itzsomebody.radon.transformers.ClassLocalTransformer;
+import org.objectweb.asm.tree.ClassNode;
 
 /**
  * Transformer that obfuscates the source name attribute by removing the
@@ -27,21 +26,40 @@ import me.itzsomebody.radon.utils.LoggerUtils;
  *
  * @author ItzSomebody
  */
-public class RemoveSourceName extends AbstractTransformer {
+public class RemoveSourceName extends ClassLocalTransformer {
     /**
-     * Applies obfuscation to.
+     * Applies obfuscation to a single class.
+     *
+     * @param classNode the class to transform.
      */
-    public void obfuscate() {
-        AtomicInteger counter = new AtomicInteger();
-        long current = System.currentTimeMillis();
-        this.logStrings.add(LoggerUtils.stdOut("------------------------------------------------"));
-        this.logStrings.add(LoggerUtils.stdOut("Started source name removal transformer"));
-        this.classNodes().stream().filter(classNode -> !this.exempted(classNode.name, "SourceName")
-                && classNode.sourceFile != null).forEach(classNode -> {
-            classNode.sourceFile = null;
-            counter.incrementAndGet();
-        });
-        this.logStrings.add(LoggerUtils.stdOut("Removed " + counter + " source name attributes."));
-        this.logStrings.add(LoggerUtils.stdOut("Finished. [" + tookThisLong(current) + "ms]"));
+    @Override
+    public void transformClass(ClassNode classNode) {
+        if (this.exempted(classNode.name, "SourceName")
+                || classNode.sourceFile == null)
+            return;
+
+        classNode.sourceFile = null;
+        this.counter.incrementAndGet();
+    }
+
+    /**
+     * Returns the message logged when this transformer begins.
+     *
+     * @return the message logged when this transformer begins.
+     */
+    @Override
+    protected String startMessage() {
+        return "Started source name removal transformer";
+    }
+
+    /**
+     * Returns the message logged when this transformer finishes.
+     *
+     * @param count the number of changes made by this transformer.
+     * @return the message logged when this transformer finishes.
+     */
+    @Override
+    protected String finishMessage(int count) {
+        return "Removed " + count + " source name attributes.";
     }
 }
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.utils;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer behind {@link LoggerUtils} and {@link LogFile}.
+ * <p>
+ * Records are put into a bounded ring buffer by any number of threads and
+ * taken out by a single consumer thread, which prints console lines and
+ * appends lines to log files. Producers claim a slot with a single atomic
+ * increment and only wait if the buffer is full. The consumer flushes the
+ * console and every log file it wrote to as soon as the buffer runs empty,
+ * and pending records are flushed when the JVM shuts down.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+final class AsyncLogger {
+    /**
+     * Number of slots in the ring buffer, a power of two.
+     */
+    private static final int CAPACITY = 1 << 13;
+
+    /**
+     * Mask to turn a sequence into a slot index.
+     */
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * Console output is flushed once this many characters are buffered.
+     */
+    private static final int CONSOLE_BUFFER = 1 << 14;
+
+    /**
+     * The ring buffer, a slot is null while it is free.
+     */
+    private static final AtomicReferenceArray<Object> SLOTS = new AtomicReferenceArray<>(CAPACITY);
+
+    /**
+     * Next sequence to be claimed by a producer.
+     */
+    private static final AtomicLong CLAIMED = new AtomicLong();
+
+    /**
+     * Next sequence to be taken by the consumer.
+     */
+    private static volatile long consumed;
+
+    /**
+     * True while the consumer is about to park.
+     */
+    private static volatile boolean idle;
+
+    /**
+     * The consumer thread.
+     */
+    private static final Thread CONSUMER;
+
+    static {
+        CONSUMER = new Thread(AsyncLogger::consume, "Radon Logger");
+        CONSUMER.setDaemon(true);
+        CONSUMER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncLogger::flush, "Radon Logger Shutdown"));
+    }
+
+    /**
+     * Non-instantiable.
+     */
+    private AsyncLogger() {
+    }
+
+    /**
+     * Prints a line on the console.
+     *
+     * @param line the line to print.
+     */
+    static void console(String line) {
+        publish(line);
+    }
+
+    /**
+     * Appends a line to a log file.
+     *
+     * @param logFile the log file.
+     * @param line    the line to append.
+     */
+    static void append(LogFile logFile, String line) {
+        publish(new FileLine(logFile, line));
+    }
+
+    /**
+     * Waits until every record published before was handled and flushed.
+     */
+    static void flush() {
+        barrier(null);
+    }
+
+    /**
+     * Waits until every record published before was handled, then closes
+     * the given log file.
+     *
+     * @param logFile the log file to close.
+     */
+    static void close(LogFile logFile) {
+        barrier(logFile);
+    }
+
+    /**
+     * Publishes a {@link Barrier} and waits until the consumer reached it.
+     *
+     * @param logFile the log file to close at the barrier, may be null.
+     */
+    private static void barrier(LogFile logFile) {
+        if (Thread.currentThread() == CONSUMER)
+            return;
+
+        Barrier barrier = new Barrier(logFile);
+        publish(barrier);
+        try {
+            barrier.latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Puts a record into the ring buffer, waiting while it is full.
+     *
+     * @param record the record.
+     */
+    private static void publish(Object record) {
+        long sequence = CLAIMED.getAndIncrement();
+        while (sequence - consumed >= CAPACITY) {
+            LockSupport.unpark(CONSUMER);
+            LockSupport.parkNanos(10000L);
+        }
+        SLOTS.set((int) sequence & MASK, record);
+        if (idle) {
+            LockSupport.unpark(CONSUMER);
+        }
+    }
+
+    /**
+     * Body of the consumer thread.
+     */
+    private static void consume() {
+        StringBuilder console = new StringBuilder();
+        Set<LogFile> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+        long sequence = 0;
+        while (true) {
+            int index = (int) sequence & MASK;
+            Object record = SLOTS.get(index);
+            if (record == null) {
+                flushConsole(console);
+                dirty.forEach(LogFile::flushWriter);
+                dirty.clear();
+
+                idle = true;
+                if (SLOTS.get(index) == null) {
+                    LockSupport.parkNanos(1000000L);
+                }
+                idle = false;
+                continue;
+            }
+
+            SLOTS.lazySet(index, null);
+            consumed = ++sequence;
+            try {
+                if (record instanceof String) {
+                    String line = (String) record;
+                    console.append(line).append(System.lineSeparator());
+                    if (console.length() >= CONSOLE_BUFFER) {
+                        flushConsole(console);
+                    }
+                    LoggerUtils.notifyListener(line);
+                } else if (record instanceof FileLine) {
+                    FileLine fileLine = (FileLine) record;
+                    fileLine.logFile.writeLine(fileLine.line);
+                    dirty.add(fileLine.logFile);
+                } else {
+                    Barrier barrier = (Barrier) record;
+                    flushConsole(console);
+                    dirty.forEach(LogFile::flushWriter);
+                    dirty.clear();
+                    if (barrier.logFile != null) {
+                        barrier.logFile.closeWriter();
+                    }
+                    barrier.latch.countDown();
+                }
+            } catch (Throwable t) {
+                System.err.println("Logger error: " + t);
+            }
+        }
+    }
+
+    /**
+     * Prints and clears the buffered console output.
+     *
+     * @param console the buffered console output.
+     */
+    private static void flushConsole(StringBuilder console) {
+        if (console.length() == 0)
+            return;
+
+        System.out.print(console);
+        System.out.flush();
+        console.setLength(0);
+    }
+
+    /**
+     * Line to append to a log file.
+     */
+    private static class FileLine {
+        /**
+         * The log file.
+         */
+        private final LogFile logFile;
+
+        /**
+         * The line.
+         */
+        private final String line;
+
+        /**
+         * Creates a new {@link FileLine}.
+         *
+         * @param logFile the log file.
+         * @param line    the line.
+         */
+        private FileLine(LogFile logFile, String line) {
+            this.logFile = logFile;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Point every earlier record has to be handled before.
+     */
+    private static class Barrier {
+        /**
+         * Counted down once the consumer reached the barrier.
+         */
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /**
+         * Log file to close at the barrier, may be null.
+         */
+        private final LogFile logFile;
+
+        /**
+         * Creates a new {@link Barrier}.
+         *
+         * @param logFile log file to close at the barrier, may be null.
+         */
+        private Barrier(LogFile logFile) {
+            this.logFile = logFile;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The exempts of one transformer compiled into a matcher, which gives the
+ * same verdicts as checking every exempt with
+ * {@link CustomRegexUtils#isMatched(String, String)}.
+ * <p>
+ * A string is exempted if it equals one of the exempts or contains the
+ * part of a wildcard exempt before its first '*'. Equality is looked up in
+ * a {@link Set}, the wildcard parts are searched for all at once by an
+ * Aho-Corasick automaton, so a check doesn't allocate and takes time
+ * proportional to the length of the string no matter how many exempts
+ * there are. Verdicts are cached, checking the same class or member again
+ * is a single lookup.
+ * </p>
+ *
+ * @author ItzSomebody
+ */
+public class ExemptMatcher {
+    /**
+     * Exempts which apply to every transformer.
+     */
+    private static final String[] GLOBAL_KEYS = {"Class: ", "Method: ", "Field: "};
+
+    /**
+     * Exempts which exempt a string equal to them.
+     */
+    private final Set<String> exact = new HashSet<>();
+
+    /**
+     * Is there a wildcard exempt which exempts everything?
+     */
+    private boolean matchesAll;
+
+    /**
+     * Sorted characters of the transitions of every state of the automaton.
+     */
+    private char[][] labels;
+
+    /**
+     * Target states of the transitions of every state, in the order of
+     * {@link ExemptMatcher#labels}.
+     */
+    private int[][] targets;
+
+    /**
+     * State to fall back to when a state has no transition for a character.
+     */
+    private int[] fail;
+
+    /**
+     * Has a wildcard part been found when a state is reached?
+     */
+    private boolean[] found;
+
+    /**
+     * Cached verdicts, checked string -> exempted?
+     */
+    private final Map<String, Boolean> verdicts = new ConcurrentHashMap<>();
+
+    /**
+     * Compiles the exempts which apply to the transformer with the given
+     * per-transformer exempt identifier.
+     *
+     * @param exempts  exempt information, like the Exempts of a config.
+     * @param exemptId per-transformer exempt identifier.
+     * @return the compiled matcher.
+     */
+    public static ExemptMatcher compile(List<String> exempts, String exemptId) {
+        String exemptKey = exemptId + ": ";
+        List<String> patterns = new ArrayList<>();
+        for (String exempt : exempts) {
+            if (exempt.startsWith(exemptKey)) {
+                patterns.add(exempt.replace(exemptKey, ""));
+            } else {
+                for (String key : GLOBAL_KEYS) {
+                    if (exempt.startsWith(key)) {
+                        patterns.add(exempt.replace(key, ""));
+                        break;
+                    }
+                }
+            }
+        }
+
+        return new ExemptMatcher(patterns);
+    }
+
+    /**
+     * Creates a new {@link ExemptMatcher}.
+     *
+     * @param patterns the exempts, without their keys.
+     */
+    private ExemptMatcher(List<String> patterns) {
+        List<String> parts = new ArrayList<>();
+        for (String pattern : patterns) {
+            this.exact.add(pattern);
+            int wildcard = pattern.indexOf('*');
+            if (wildcard == 0) {
+                this.matchesAll = true;
+            } else if (wildcard > 0) {
+                parts.add(pattern.substring(0, wildcard));
+            }
+        }
+        this.buildAutomaton(parts);
+    }
+
+    /**
+     * Builds the automaton which searches for the given wildcard parts.
+     *
+     * @param parts the parts of the wildcard exempts before their first '*'.
+     */
+    private void buildAutomaton(List<String> parts) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(false);
+        for (String part : parts) {
+            int state = 0;
+            for (int i = 0; i < part.length(); i++) {
+                Integer next = trie.get(state).get(part.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(part.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    ends.add(false);
+                }
+                state = next;
+            }
+            ends.set(state, true);
+        }
+
+        int size = trie.size();
+        this.labels = new char[size][];
+        this.targets = new int[size][];
+        this.fail = new int[size];
+        this.found = new boolean[size];
+        for (int state = 0; state < size; state++) {
+            TreeMap<Character, Integer> transitions = trie.get(state);
+            this.labels[state] = new char[transitions.size()];
+            this.targets[state] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                this.labels[state][i] = transition.getKey();
+                this.targets[state][i] = transition.getValue();
+                i++;
+            }
+            this.found[state] = ends.get(state);
+        }
+
+        // Breadth first, so the fallback of a state is done before its children
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : this.targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < this.labels[state].length; i++) {
+                char c = this.labels[state][i];
+                int child = this.targets[state][i];
+                int fallback = this.fail[state];
+                int next;
+                while ((next = this.step(fallback, c)) < 0 && fallback != 0) {
+                    fallback = this.fail[fallback];
+                }
+                this.fail[child] = (next < 0) ? 0 : next;
+                this.found[child] |= this.found[this.fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given string is exempted.
+     *
+     * @param checkThis string to check for exempt.
+     * @return true if the given string is exempted.
+     */
+    public boolean matches(String checkThis) {
+        if (this.matchesAll)
+            return true;
+        if (this.exact.isEmpty())
+            return false;
+
+        Boolean verdict = this.verdicts.get(checkThis);
+        if (verdict == null) {
+            verdict = this.exact.contains(checkThis) || this.search(checkThis);
+            this.verdicts.put(checkThis, verdict);
+        }
+        return verdict;
+    }
+
+    /**
+     * Returns true if the given string contains a wildcard part.
+     *
+     * @param checkThis string to search.
+     * @return true if the given string contains a wildcard part.
+     */
+    private boolean search(String checkThis) {
+        int state = 0;
+        for (int i = 0; i < checkThis.length(); i++) {
+            char c = checkThis.charAt(i);
+            int next;
+            while ((next = this.step(state, c)) < 0 && state != 0) {
+                state = this.fail[state];
+            }
+            state = (next < 0) ? 0 : next;
+            if (this.found[state])
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the state the given state goes to on the given character.
+     *
+     * @param state the current state.
+     * @param c     the character.
+     * @return the next state or -1 if there is no transition.
+     */
+    private int step(int state, char c) {
+        int i = Arrays.binarySearch(this.labels[state], c);
+        return (i >= 0) ? this.targets[state][i] : -1;
+    }
+}
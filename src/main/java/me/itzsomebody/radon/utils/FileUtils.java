@@ -21,6 +21,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.zip.ZipOutputStream;
 
 /**
@@ -61,9 +64,10 @@ public class FileUtils {
     public static byte[] toByteArray(InputStream in) {
         try {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            while (in.available() > 0) {
-                int data = in.read(buffer);
+            byte[] buffer = new byte[8192];
+            int data;
+            // available() is only an estimate, so read until end of stream
+            while ((data = in.read(buffer)) != -1) {
                 out.write(buffer, 0, data);
             }
 
@@ -75,4 +79,32 @@ public class FileUtils {
             throw new RuntimeException(ioe.getMessage());
         }
     }
+
+    /**
+     * Unmaps a mapping right away. If the running JVM doesn't allow that,
+     * the mapping is left to the garbage collector.
+     *
+     * @param mapping the mapping, not a view of it.
+     */
+    public static void unmap(ByteBuffer mapping) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                // Java 9 and later
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), mapping);
+            } catch (NoSuchMethodException java8) {
+                Method cleanerMethod = mapping.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(mapping);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // The garbage collector unmaps it eventually
+        }
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2018 ItzSomebody
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package me.itzsomebody.radon.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+import me.itzsomebody.radon.Radon;
+
+/**
+ * Log file of a run. Lines are appended in the background by the logger
+ * thread as they are added instead of being kept in memory until the run
+ * ends, so the file can be followed while the run is going on.
+ *
+ * @author ItzSomebody
+ */
+public class LogFile {
+    /**
+     * The log file, null if lines are discarded.
+     */
+    private File file;
+
+    /**
+     * Writer to the log file, null if it couldn't be opened or was closed.
+     */
+    private BufferedWriter writer;
+
+    /**
+     * Creates the log file and writes the banner into it.
+     *
+     * @param file the log file, null to discard every line.
+     */
+    LogFile(File file) {
+        this.file = file;
+        if (file == null)
+            return;
+
+        try {
+            this.writer = new BufferedWriter(new FileWriter(file));
+            this.writer.append("##############################################\n");
+            this.writer.append("# +----------------------------------------+ #\n");
+            this.writer.append("# |  _____            _____   ____  _   _  | #\n");
+            this.writer.append("# | |  __ \\     /\\   |  __ \\ / __ \\| \\ | | | #\n");
+            this.writer.append("# | | |__) |   /  \\  | |  | | |  | |  \\| | | #\n");
+            this.writer.append("# | |  _  /   / /\\ \\ | |  | | |  | | . ` | | #\n");
+            this.writer.append("# | | | \\ \\  / ____ \\| |__| | |__| | |\\  | | #\n");
+            this.writer.append("# | |_|  \\_\\/_/    \\_\\_____/ \\____/|_| \\_| | #\n");
+            this.writer.append("# |                                        | #\n");
+            this.writer.append("# +----------------------------------------+ #\n");
+            this.writer.append("##############################################\n");
+            this.writer.append("\n");
+            this.writer.append("\n");
+            this.writer.append("Version: " + Radon.VERSION + "\n");
+            this.writer.append("Author: " + Radon.AUTHORS + "\n");
+        } catch (IOException ioe) {
+            this.writer = null;
+            LoggerUtils.stdOut("Error while opening log " + file.getPath() + ": " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Appends a line to the log file.
+     *
+     * @param line the line, ignored if null.
+     */
+    public void add(String line) {
+        if (line != null && this.file != null) {
+            AsyncLogger.append(this, line);
+        }
+    }
+
+    /**
+     * Appends lines to the log file.
+     *
+     * @param lines the lines, null lines are ignored.
+     */
+    public void addAll(Collection<String> lines) {
+        lines.forEach(this::add);
+    }
+
+    /**
+     * Waits until every added line was written, then closes the log file.
+     */
+    public void close() {
+        if (this.file != null) {
+            AsyncLogger.close(this);
+        }
+    }
+
+    /**
+     * Writes a line, only called by the logger thread.
+     *
+     * @param line the line.
+     */
+    void writeLine(String line) {
+        if (this.writer == null)
+            return;
+
+        try {
+            this.writer.append(line);
+            this.writer.newLine();
+        } catch (IOException ioe) {
+            this.fail(ioe);
+        }
+    }
+
+    /**
+     * Flushes the written lines, only called by the logger thread.
+     */
+    void flushWriter() {
+        if (this.writer == null)
+            return;
+
+        try {
+            this.writer.flush();
+        } catch (IOException ioe) {
+            this.fail(ioe);
+        }
+    }
+
+    /**
+     * Closes the writer, only called by the logger thread.
+     */
+    void closeWriter() {
+        if (this.writer == null)
+            return;
+
+        try {
+            this.writer.close();
+        } catch (IOException ioe) {
+            System.err.println("Error while closing log " + this.file.getPath() + ": " + ioe.getMessage());
+        }
+        this.writer = null;
+    }
+
+    /**
+     * Stops writing after an error.
+     *
+     * @param ioe the error.
+     */
+    private void fail(IOException ioe) {
+        System.err.println("Error while writing log " + this.file.getPath() + ": " + ioe.getMessage());
+        this.closeWriter();
+    }
+}
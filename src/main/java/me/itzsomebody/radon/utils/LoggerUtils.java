@@ -17,76 +17,309 @@
 
 package me.itzsomebody.radon.utils;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
 import me.itzsomebody.radon.Radon;
 
 /**
  * Utils to print fancy stuff in the console and to write log file.
+ * <p>
+ * Messages are formatted on the calling thread and handed to a background
+ * thread which does the actual printing and writing, so logging from
+ * worker threads never blocks on the console or the disk. Messages below
+ * the current {@link Level} are dropped before they are formatted. A thread
+ * can redirect its messages to a sink of its own instead of the console.
+ * </p>
  *
  * @author ItzSomebody
  */
 public class LoggerUtils {
     /**
-     * The {@link SimpleDateFormat} that will be used for logging.
+     * The {@link DateTimeFormatter} that will be used for logging. Unlike a
+     * SimpleDateFormat it can be shared by runs on several threads.
      */
-    private static SimpleDateFormat FORMAT
-            = new SimpleDateFormat("MM/dd/yyyy-HH:mm:ss");
+    private static final DateTimeFormatter FORMAT
+            = DateTimeFormatter.ofPattern("MM/dd/yyyy-HH:mm:ss");
 
     /**
-     * Writes an inputted {@link ArrayList} of {@link String}s to a log file.
+     * The last formatted timestamp, only formatted again once the second
+     * changes.
+     */
+    private static volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, null);
+
+    /**
+     * Messages below this {@link Level} are dropped, unless the logging
+     * thread uses a level of its own.
+     */
+    private static volatile Level level = Level.INFO;
+
+    /**
+     * Level of the run the current thread belongs to, null if the thread
+     * uses {@link LoggerUtils#level}.
+     */
+    private static final ThreadLocal<Level> RUN_LEVEL = new ThreadLocal<>();
+
+    /**
+     * Receives every message printed to the console as well, null if there
+     * is none.
+     */
+    private static volatile Consumer<String> listener;
+
+    /**
+     * Receives the messages of the current thread instead of the console,
+     * null if they are printed.
+     */
+    private static final ThreadLocal<Consumer<String>> REDIRECT = new ThreadLocal<>();
+
+    /**
+     * Sets the listener which receives every message printed to the
+     * console as well. It is called by the logger thread.
+     *
+     * @param listener the listener or null to remove it.
+     */
+    public static void setListener(Consumer<String> listener) {
+        LoggerUtils.listener = listener;
+    }
+
+    /**
+     * Sends the messages logged by the current thread to the given sink
+     * instead of printing them. Messages still have to pass the current
+     * {@link Level}. Undo with {@link LoggerUtils#restore(Consumer)}.
+     *
+     * @param sink receives the formatted messages of the current thread.
+     * @return the sink the current thread used before, null if it printed.
+     */
+    public static Consumer<String> redirect(Consumer<String> sink) {
+        Consumer<String> previous = REDIRECT.get();
+        REDIRECT.set(sink);
+        return previous;
+    }
+
+    /**
+     * Restores the sink the current thread used before
+     * {@link LoggerUtils#redirect(Consumer)}.
      *
-     * @param strings {@link String}s to write to log file.
-     */
-    public static void logWriter(List<String> strings) {
-        BufferedWriter bw;
-        try {
-            File log = new File("Radon.log");
-            if (!log.exists()) {
-                log.createNewFile();
-            }
-            bw = new BufferedWriter(new FileWriter(log));
-            bw.append("##############################################\n");
-            bw.append("# +----------------------------------------+ #\n");
-            bw.append("# |  _____            _____   ____  _   _  | #\n");
-            bw.append("# | |  __ \\     /\\   |  __ \\ / __ \\| \\ | | | #\n");
-            bw.append("# | | |__) |   /  \\  | |  | | |  | |  \\| | | #\n");
-            bw.append("# | |  _  /   / /\\ \\ | |  | | |  | | . ` | | #\n");
-            bw.append("# | | | \\ \\  / ____ \\| |__| | |__| | |\\  | | #\n");
-            bw.append("# | |_|  \\_\\/_/    \\_\\_____/ \\____/|_| \\_| | #\n");
-            bw.append("# |                                        | #\n");
-            bw.append("# +----------------------------------------+ #\n");
-            bw.append("##############################################\n");
-            bw.append("\n");
-            bw.append("\n");
-            bw.append("Version: " + Radon.VERSION + "\n");
-            bw.append("Author: " + Radon.AUTHORS + "\n");
-            for (String msg : strings) {
-                bw.append(msg);
-                bw.newLine();
-            }
-            bw.close();
-        } catch (Throwable t) {
-            stdOut("Error: " + t.getMessage());
+     * @param previous the sink returned by
+     *                 {@link LoggerUtils#redirect(Consumer)}.
+     */
+    public static void restore(Consumer<String> previous) {
+        if (previous != null) {
+            REDIRECT.set(previous);
+        } else {
+            REDIRECT.remove();
         }
     }
 
+    /**
+     * Sets the lowest {@link Level} of messages which are logged by threads
+     * which don't use a level of their own.
+     *
+     * @param level the lowest {@link Level} to log.
+     */
+    public static void setLevel(Level level) {
+        LoggerUtils.level = level;
+    }
+
+    /**
+     * Makes the current thread log with a level of its own, so runs on
+     * other threads can't change it. Undo with
+     * {@link LoggerUtils#restoreLevel(Level)}.
+     *
+     * @param level the lowest {@link Level} the current thread logs, null
+     *              to use the level set with
+     *              {@link LoggerUtils#setLevel(Level)}.
+     * @return the level the current thread used before, null if it had none.
+     */
+    public static Level useLevel(Level level) {
+        Level previous = RUN_LEVEL.get();
+        restoreLevel(level);
+        return previous;
+    }
+
+    /**
+     * Restores the level the current thread used before
+     * {@link LoggerUtils#useLevel(Level)}.
+     *
+     * @param previous the level returned by
+     *                 {@link LoggerUtils#useLevel(Level)}.
+     */
+    public static void restoreLevel(Level previous) {
+        if (previous != null) {
+            RUN_LEVEL.set(previous);
+        } else {
+            RUN_LEVEL.remove();
+        }
+    }
+
+    /**
+     * Returns true if messages of the given {@link Level} are logged. Used
+     * to skip building messages which would be dropped anyway.
+     *
+     * @param level the {@link Level} to check.
+     * @return true if messages of the given {@link Level} are logged.
+     */
+    public static boolean isEnabled(Level level) {
+        Level current = RUN_LEVEL.get();
+        return level.compareTo((current != null) ? current : LoggerUtils.level) >= 0;
+    }
+
+    /**
+     * Creates the given log file and returns a {@link LogFile} to append the
+     * lines of a run to.
+     *
+     * @param log the log file, null for a {@link LogFile} which discards
+     *            every line.
+     * @return a {@link LogFile} appending to the given file.
+     */
+    public static LogFile openLog(File log) {
+        return new LogFile(log);
+    }
+
+    /**
+     * Waits until every message logged so far was printed and written.
+     */
+    public static void flush() {
+        AsyncLogger.flush();
+    }
+
+    /**
+     * Prints a formatted debug message into the console and returns the
+     * result as a {@link String}.
+     *
+     * @param string to write to the console.
+     * @return formatted {@link String} or null if debug messages are not
+     * logged.
+     */
+    public static String debug(String string) {
+        return log(Level.DEBUG, string);
+    }
+
     /**
      * Prints a formatted message into the console and returns the result as
      * a {@link String}.
      *
      * @param string to write to the console.
-     * @return formatted {@link String}.
+     * @return formatted {@link String} or null if info messages are not
+     * logged.
      */
     public static String stdOut(String string) {
-        String date = FORMAT.format(new Date(System.currentTimeMillis()));
-        String formatted = "[" + date + "] " + Radon.PREFIX + " - " + string;
-        System.out.println(formatted);
+        return log(Level.INFO, string);
+    }
+
+    /**
+     * Prints a formatted warning into the console and returns the result as
+     * a {@link String}.
+     *
+     * @param string to write to the console.
+     * @return formatted {@link String} or null if warnings are not logged.
+     */
+    public static String warn(String string) {
+        return log(Level.WARN, string);
+    }
+
+    /**
+     * Prints a formatted error into the console and returns the result as a
+     * {@link String}.
+     *
+     * @param string to write to the console.
+     * @return formatted {@link String}.
+     */
+    public static String error(String string) {
+        return log(Level.ERROR, string);
+    }
+
+    /**
+     * Prints a formatted message of the given {@link Level} into the console
+     * and returns the result as a {@link String}.
+     *
+     * @param level  the {@link Level} of the message.
+     * @param string to write to the console.
+     * @return formatted {@link String} or null if the {@link Level} is not
+     * logged.
+     */
+    private static String log(Level level, String string) {
+        if (!isEnabled(level))
+            return null;
+
+        String formatted;
+        if (level == Level.INFO) {
+            formatted = "[" + timestamp() + "] " + Radon.PREFIX + " - " + string;
+        } else {
+            formatted = "[" + timestamp() + "] " + Radon.PREFIX + " " + level + " - " + string;
+        }
+        Consumer<String> sink = REDIRECT.get();
+        if (sink != null) {
+            sink.accept(formatted);
+        } else {
+            AsyncLogger.console(formatted);
+        }
         return formatted;
     }
+
+    /**
+     * Passes a printed message to the listener, only called by the logger
+     * thread.
+     *
+     * @param line the printed message.
+     */
+    static void notifyListener(String line) {
+        Consumer<String> listener = LoggerUtils.listener;
+        if (listener != null) {
+            listener.accept(line);
+        }
+    }
+
+    /**
+     * Returns the current time formatted by {@link LoggerUtils#FORMAT},
+     * reusing the last result as long as the second didn't change.
+     *
+     * @return the formatted current time.
+     */
+    private static String timestamp() {
+        long second = System.currentTimeMillis() / 1000L;
+        Timestamp current = timestamp;
+        if (current.second != second) {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault());
+            current = new Timestamp(second, FORMAT.format(time));
+            timestamp = current;
+        }
+        return current.text;
+    }
+
+    /**
+     * Severity of a message.
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    /**
+     * A formatted second.
+     */
+    private static class Timestamp {
+        /**
+         * Seconds since the epoch.
+         */
+        private final long second;
+
+        /**
+         * The formatted second.
+         */
+        private final String text;
+
+        /**
+         * Creates a new {@link Timestamp}.
+         *
+         * @param second seconds since the epoch.
+         * @param text   the formatted second.
+         */
+        private Timestamp(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
 }
@@ -17,55 +17,157 @@
 
 package me.itzsomebody.radon.utils;
 
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Number utils.
+ * <p>
+ * Random numbers come from the seeded stream of the current thread if one
+ * was entered with {@link NumberUtils#enterStream(Long, String...)} and from
+ * {@link ThreadLocalRandom} otherwise.
+ * </p>
  *
  * @author ItzSomebody
  */
 public class NumberUtils {
     /**
-     * Gets a random {@link Integer} from {@link ThreadLocalRandom#nextInt()}.
+     * Seeded stream of the current thread, null if there is none.
+     */
+    private static final ThreadLocal<Random> STREAM = new ThreadLocal<>();
+
+    /**
+     * Returns the {@link Random} random numbers are currently drawn from.
+     *
+     * @return the seeded stream of the current thread or
+     * {@link ThreadLocalRandom#current()}.
+     */
+    public static Random getRandom() {
+        Random random = STREAM.get();
+        return (random != null) ? random : ThreadLocalRandom.current();
+    }
+
+    /**
+     * Makes the current thread draw random numbers from the stream derived
+     * from the given seed and scope, such as a transformer and a class. The
+     * same seed and scope always give the same stream, no matter which
+     * thread enters it or what was drawn before. Does nothing if the seed is
+     * null.
+     *
+     * @param seed  the seed of the run, null if the run isn't seeded.
+     * @param scope names which identify the stream.
+     * @return the stream to pass to
+     * {@link NumberUtils#exitStream(Random)} afterwards.
+     */
+    public static Random enterStream(Long seed, String... scope) {
+        return useStream(newStream(seed, scope));
+    }
+
+    /**
+     * Creates the stream derived from the given seed and scope without
+     * entering it. Lets a caller keep the streams of several scopes and
+     * switch between them with {@link NumberUtils#useStream(Random)}.
      *
-     * @return a random {@link Integer} from
-     * {@link ThreadLocalRandom#nextInt()}.
+     * @param seed  the seed of the run, null if the run isn't seeded.
+     * @param scope names which identify the stream.
+     * @return the stream or null if the seed is null.
+     */
+    public static Random newStream(Long seed, String... scope) {
+        if (seed == null)
+            return null;
+
+        long hash = seed;
+        for (String part : scope) {
+            for (int i = 0; i < part.length(); i++) {
+                hash = (hash ^ part.charAt(i)) * 0x100000001B3L;
+            }
+            hash = mix(hash);
+        }
+        return new Random(hash);
+    }
+
+    /**
+     * Makes the current thread draw random numbers from the given stream.
+     * Does nothing if the stream is null.
+     *
+     * @param stream the stream from
+     *               {@link NumberUtils#newStream(Long, String...)}.
+     * @return the stream to pass to
+     * {@link NumberUtils#exitStream(Random)} afterwards.
+     */
+    public static Random useStream(Random stream) {
+        Random previous = STREAM.get();
+        if (stream != null) {
+            STREAM.set(stream);
+        }
+        return previous;
+    }
+
+    /**
+     * Restores the stream the current thread used before
+     * {@link NumberUtils#enterStream(Long, String...)} or
+     * {@link NumberUtils#useStream(Random)}.
+     *
+     * @param previous the stream returned by
+     *                 {@link NumberUtils#enterStream(Long, String...)} or
+     *                 {@link NumberUtils#useStream(Random)}.
+     */
+    public static void exitStream(Random previous) {
+        if (previous != null) {
+            STREAM.set(previous);
+        } else {
+            STREAM.remove();
+        }
+    }
+
+    /**
+     * Scrambles the bits of the given {@link Long} so similar inputs give
+     * unrelated outputs.
+     *
+     * @param value the value to scramble.
+     * @return the scrambled value.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Gets a random {@link Integer} from {@link Random#nextInt()}.
+     *
+     * @return a random {@link Integer} from {@link Random#nextInt()}.
      */
     public static int getRandomInt() {
-        return ThreadLocalRandom.current().nextInt();
+        return getRandom().nextInt();
     }
 
     /**
-     * Gets a random {@link Integer} from
-     * {@link ThreadLocalRandom#nextInt(int)}.
+     * Gets a random {@link Integer} from {@link Random#nextInt(int)}.
      *
      * @param bounds {@link Integer} used to define the bounds of the random.
-     * @return a random {@link Integer} from
-     * {@link ThreadLocalRandom#nextInt(int)}.
+     * @return a random {@link Integer} from {@link Random#nextInt(int)}.
      */
     public static int getRandomInt(int bounds) {
-        return ThreadLocalRandom.current().nextInt(bounds);
+        return getRandom().nextInt(bounds);
     }
 
     /**
-     * Gets a random {@link Long} from {@link ThreadLocalRandom#nextLong()}.
+     * Gets a random {@link Long} from {@link Random#nextLong()}.
      *
-     * @return a random {@link Integer} from
-     * {@link ThreadLocalRandom#nextLong()}.
+     * @return a random {@link Long} from {@link Random#nextLong()}.
      */
     public static long getRandomLong() {
-        return ThreadLocalRandom.current().nextLong();
+        return getRandom().nextLong();
     }
 
     /**
-     * Gets a random {@link Long} from
-     * {@link ThreadLocalRandom#nextLong(long)}.
+     * Gets a random {@link Long} from {@link Random#nextInt(int)}.
      *
-     * @param bounds {@link Long} used to define the bounds of the random.
-     * @return a random {@link Integer} from
-     * {@link ThreadLocalRandom#nextLong(long)}.
+     * @param bounds {@link Integer} used to define the bounds of the random.
+     * @return a random {@link Long} from {@link Random#nextInt(int)}.
      */
     public static long getRandomLong(int bounds) {
-        return ThreadLocalRandom.current().nextLong(bounds);
+        return getRandom().nextInt(bounds);
     }
 }
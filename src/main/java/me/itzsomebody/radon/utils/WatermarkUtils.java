@@ -18,12 +18,9 @@
 package me.itzsomebody.radon.utils;
 
 import java.io.File;
-import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import me.itzsomebody.radon.io.JarReader;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 
@@ -46,50 +43,43 @@ public class WatermarkUtils { // TODO: Add more secure watermark injection
     public static List<String> extractWatermark(File jarFile, String key)
             throws Throwable {
         List<String> foundIds = new ArrayList<>();
-        ZipFile zipFile = new ZipFile(jarFile);
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
-        try {
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
+        try (JarReader jar = new JarReader(jarFile)) {
+            for (JarReader.Entry entry : jar.getEntries()) {
                 if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
-                    try (InputStream in = zipFile.getInputStream(entry)) {
-                        ClassReader cr = new ClassReader(in);
-                        ClassNode classNode = new ClassNode();
-                        cr.accept(classNode, ClassReader.SKIP_FRAMES
-                                | ClassReader.SKIP_DEBUG);
-                        char[] buf = new char[cr.getMaxStringLength()];
+                    ClassReader cr = new ClassReader(jar.read(entry));
+                    ClassNode classNode = new ClassNode();
+                    cr.accept(classNode, ClassReader.SKIP_FRAMES
+                            | ClassReader.SKIP_DEBUG);
+                    char[] buf = new char[cr.getMaxStringLength()];
 
-                        try {
-                            for (int i = 0; i < cr.getItemCount(); i++) {
-                                int getItem = cr.getItem(i);
-                                String UTF = cr.readUTF8(getItem, buf);
-                                if (UTF != null && UTF.startsWith("WMID: ")) {
-                                    if (UTF.length() > 6) {
-                                        String getId = StringUtils.aesDecrypt(UTF.substring(6, UTF.length()), key);
-                                        foundIds.add("Watermarked ID in constant pool of " + entry.getName() + " -> " + getId);
-                                    }
+                    try {
+                        for (int i = 0; i < cr.getItemCount(); i++) {
+                            int getItem = cr.getItem(i);
+                            String UTF = cr.readUTF8(getItem, buf);
+                            if (UTF != null && UTF.startsWith("WMID: ")) {
+                                if (UTF.length() > 6) {
+                                    String getId = StringUtils.aesDecrypt(UTF.substring(6, UTF.length()), key);
+                                    foundIds.add("Watermarked ID in constant pool of " + entry.getName() + " -> " + getId);
                                 }
                             }
-                        } catch (Throwable t) {
-                            // ignored;
                         }
+                    } catch (Throwable t) {
+                        // ignored;
+                    }
 
 
-                        if (classNode.signature != null) {
-                            try {
-                                String decrypted = StringUtils.aesDecrypt(classNode.signature, key);
-                                if (decrypted.startsWith("WMID: ")) {
-                                    foundIds.add("Watermarked ID in class signature of " + entry.getName() + " -> " + decrypted);
-                                }
-                            } catch (Throwable t) {
-                                // ignored
+                    if (classNode.signature != null) {
+                        try {
+                            String decrypted = StringUtils.aesDecrypt(classNode.signature, key);
+                            if (decrypted.startsWith("WMID: ")) {
+                                foundIds.add("Watermarked ID in class signature of " + entry.getName() + " -> " + decrypted);
                             }
+                        } catch (Throwable t) {
+                            // ignored
                         }
                     }
                 }
             }
-        } finally {
-            zipFile.close();
         }
         return foundIds;
     }